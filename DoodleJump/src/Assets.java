@@ -0,0 +1,336 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import javalib.impworld.WorldScene;
+import javalib.worldimages.ComputedPixelImage;
+import javalib.worldimages.WorldImage;
+
+// A background image converted once into raw window-sized pixels stored next to the source file (or in the temporary
+// directory if that cannot be written), so later launches memory-map the pixels instead of decoding a PNG or JPEG,
+// whether they draw with Java2D or javalib. The image is either centered at its own size or scaled to fill the
+// window. The cache is rebuilt whenever the source file changes, and nothing is read until the pixels are first asked
+// for.
+class BackgroundCache {
+	// "DJBG", followed by width, height, source length and source modification time
+	static final int MAGIC = 0x444A4247;
+	static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+
+	final File source;
+	final File cacheFile;
+	// Is the image scaled to fill the window (rather than centered at its own size)?
+	final boolean scaleToWindow;
+	// The mapped pixels, or null until first needed
+	IntBuffer mapped;
+
+	// Constructor caches the image centered at its own size
+	BackgroundCache(String sourcePath) {
+		this(sourcePath, false);
+	}
+
+	BackgroundCache(String sourcePath, boolean scaleToWindow) {
+		this.source = new File(sourcePath);
+		this.cacheFile = cacheFileFor(this.source, scaleToWindow ? ".scaled.bgcache" : ".bgcache");
+		this.scaleToWindow = scaleToWindow;
+		this.mapped = null;
+	}
+
+	// Where the cache of the given source file is kept: beside it, or in the temporary directory (named after the
+	// source's full path) if the source's directory cannot be written
+	static File cacheFileFor(File source, String suffix) {
+		File directory = source.getAbsoluteFile().getParentFile();
+		if (directory != null && Files.isWritable(directory.toPath())) {
+			return new File(source.getPath() + suffix);
+		}
+		String name = Integer.toHexString(source.getAbsolutePath().hashCode()) + "-" + source.getName() + suffix;
+		return new File(System.getProperty("java.io.tmpdir"), name);
+	}
+
+	// A copy of the window-sized background pixels
+	// EFFECT: Builds and maps the cache file if not done already
+	int[] pixels() throws IOException {
+		int[] pixels = new int[IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT];
+		this.pixelBuffer().get(pixels);
+		return pixels;
+	}
+
+	// A read-only view of the mapped background pixels
+	// EFFECT: Builds and maps the cache file if not done already
+	IntBuffer pixelBuffer() throws IOException {
+		if (this.mapped == null) {
+			if (!this.isFresh()) {
+				this.build();
+			}
+			try (FileChannel channel = FileChannel.open(this.cacheFile.toPath())) {
+				MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				bytes.position(HEADER_BYTES);
+				this.mapped = bytes.slice().asIntBuffer();
+			}
+		}
+		return this.mapped.duplicate();
+	}
+
+	// A javalib image of the background drawn from the mapped pixels, so the javalib path never decodes the source
+	// file once the cache is built
+	// EFFECT: Builds and maps the cache file if not done already
+	WorldImage image() throws IOException {
+		int[] pixels = this.pixels();
+		for (int i = 0; i < pixels.length; i += 1) {
+			pixels[i] |= 0xFF000000;
+		}
+		return toImage(pixels);
+	}
+
+	// A javalib image of window-sized ARGB pixels, where pixels with no alpha are left see-through
+	static WorldImage toImage(int[] pixels) {
+		ComputedPixelImage image = new ComputedPixelImage(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT);
+		for (int i = 0; i < pixels.length; i += 1) {
+			if ((pixels[i] >>> 24) != 0) {
+				image.setPixel(i % IConstant.WINDOW_WIDTH, i / IConstant.WINDOW_WIDTH, new Color(pixels[i], true));
+			}
+		}
+		return image;
+	}
+
+	// Does the cache file exist and match the window size and the current source file?
+	boolean isFresh() throws IOException {
+		if (!this.cacheFile.exists()
+				|| this.cacheFile.length() != HEADER_BYTES + 4L * IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(this.cacheFile.toPath())) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				continue;
+			}
+			header.flip();
+			return header.getInt() == MAGIC && header.getInt() == IConstant.WINDOW_WIDTH
+					&& header.getInt() == IConstant.WINDOW_HEIGHT && header.getLong() == this.source.length()
+					&& header.getLong() == this.source.lastModified();
+		}
+	}
+
+	// Decodes the source image, composes it at window size, and writes the cache file
+	// EFFECT: Replaces the cache file
+	void build() throws IOException {
+		BufferedImage image = this.source.exists() ? ImageIO.read(this.source) : null;
+		int[] pixels = this.scaleToWindow ? scale(image) : compose(image);
+		ByteBuffer bytes = ByteBuffer.allocateDirect(HEADER_BYTES + 4 * pixels.length);
+		bytes.putInt(MAGIC).putInt(IConstant.WINDOW_WIDTH).putInt(IConstant.WINDOW_HEIGHT);
+		bytes.putLong(this.source.length()).putLong(this.source.lastModified());
+		bytes.asIntBuffer().put(pixels);
+		bytes.position(0);
+		try (RandomAccessFile file = new RandomAccessFile(this.cacheFile, "rw")) {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+	}
+
+	// The pixels of a window-sized frame showing the given image centered at its own size over white (or plain
+	// white if there is no image)
+	static int[] compose(BufferedImage image) {
+		BufferedImage frame = new BufferedImage(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = frame.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT);
+		if (image != null) {
+			g.drawImage(image, (IConstant.WINDOW_WIDTH - image.getWidth()) / 2,
+					(IConstant.WINDOW_HEIGHT - image.getHeight()) / 2, null);
+		}
+		g.dispose();
+		return ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+	}
+
+	// The pixels of a window-sized frame with the given image stretched to fill it
+	// (or plain white if there is no image)
+	static int[] scale(BufferedImage image) {
+		BufferedImage frame = new BufferedImage(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = frame.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT);
+		if (image != null) {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(image, 0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT, null);
+		}
+		g.dispose();
+		return ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+	}
+}
+
+// One layer of a parallax background: an image scaled to the window that wraps around vertically and scrolls at
+// some fraction of the camera's speed. Its pixels come from a BackgroundCache and are held once, keyed if asked,
+// for both the Java2D and the javalib paths.
+class ParallaxLayer {
+	// Pixels of a keyed layer with red + green + blue below this are see-through
+	static final int KEY_BRIGHTNESS = 420;
+
+	final String sourcePath;
+	final BackgroundCache cache;
+	// Pixels this layer scrolls for each pixel the camera rises
+	final double speed;
+	// Are the dark parts of the image see-through, so only its stars cover the layers behind it?
+	final boolean keyed;
+	// The window-sized ARGB pixels (see-through pixels are 0) and the javalib image of them, or null until first used
+	int[] pixels;
+	WorldImage image;
+
+	ParallaxLayer(String sourcePath, double speed, boolean keyed) {
+		this.sourcePath = sourcePath;
+		this.cache = new BackgroundCache(sourcePath, true);
+		this.speed = speed;
+		this.keyed = keyed;
+		this.pixels = null;
+		this.image = null;
+	}
+
+	// How far down this layer has scrolled once the camera has risen the given height, within [0, WINDOW_HEIGHT)
+	int offset(int cameraHeight) {
+		return Math.floorMod((int) (cameraHeight * this.speed), IConstant.WINDOW_HEIGHT);
+	}
+
+	// This layer's pixels, opaque or see-through
+	// EFFECT: Maps the cached pixels and keys them out if not done already
+	int[] pixels() {
+		if (this.pixels == null) {
+			int[] pixels;
+			try {
+				pixels = this.cache.pixels();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not load background layer " + this.sourcePath, e);
+			}
+			for (int i = 0; i < pixels.length; i += 1) {
+				int p = pixels[i];
+				int brightness = ((p >> 16) & 0xFF) + ((p >> 8) & 0xFF) + (p & 0xFF);
+				pixels[i] = this.keyed && brightness < KEY_BRIGHTNESS ? 0 : p | 0xFF000000;
+			}
+			this.pixels = pixels;
+		}
+		return this.pixels;
+	}
+
+	// A javalib image of this layer's pixels, see-through where they are
+	// EFFECT: Builds the image if not done already
+	WorldImage image() {
+		if (this.image == null) {
+			this.image = BackgroundCache.toImage(this.pixels());
+		}
+		return this.image;
+	}
+}
+
+// A background of layers that scroll at different speeds as the camera rises, back layer first. Every layer is the
+// height of the window and wraps around, so composing a frame copies each layer in at most two spans of rows however
+// high the camera climbs, and the background only changes when some layer's offset does.
+class ParallaxBackground {
+	final ParallaxLayer[] layers;
+
+	ParallaxBackground(ParallaxLayer... layers) {
+		this.layers = layers;
+	}
+
+	// Slowly drifting deep space behind faster stars
+	static ParallaxBackground starField() {
+		return new ParallaxBackground(new ParallaxLayer("space.jpg", 0.125, false),
+				new ParallaxLayer("space2.jpg", 0.33, true));
+	}
+
+	// Does any layer sit at a different offset at one camera height than at the other?
+	boolean scrollsBetween(int fromHeight, int toHeight) {
+		for (ParallaxLayer layer : this.layers) {
+			if (layer.offset(fromHeight) != layer.offset(toHeight)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Draws every layer, scrolled for the given camera height, into window-sized pixels
+	// EFFECT: Modifies the given pixels, and loads any layer not yet loaded
+	void compose(int[] target, int cameraHeight) {
+		java.util.Arrays.fill(target, 0xFF000000);
+		for (ParallaxLayer layer : this.layers) {
+			// Screen rows show the layer shifted down by its offset, so the layer's last rows wrap into the top
+			int offset = layer.offset(cameraHeight);
+			int[] pixels = layer.pixels();
+			this.copyRows(pixels, IConstant.WINDOW_HEIGHT - offset, target, 0, offset, layer.keyed);
+			this.copyRows(pixels, 0, target, offset, IConstant.WINDOW_HEIGHT - offset, layer.keyed);
+		}
+	}
+
+	// Copies rows of a layer onto the target, skipping see-through pixels of keyed layers
+	// EFFECT: Modifies the given pixels
+	void copyRows(int[] layer, int layerRow, int[] target, int row, int rows, boolean keyed) {
+		int from = layerRow * IConstant.WINDOW_WIDTH;
+		int to = row * IConstant.WINDOW_WIDTH;
+		int count = rows * IConstant.WINDOW_WIDTH;
+		if (!keyed) {
+			System.arraycopy(layer, from, target, to, count);
+		} else {
+			for (int i = 0; i < count; i += 1) {
+				if (layer[from + i] != 0) {
+					target[to + i] = layer[from + i];
+				}
+			}
+		}
+	}
+
+	// Places every layer, scrolled for the given camera height, onto a javalib scene, drawn from the same pixels as
+	// compose so both paths show the same background
+	// EFFECT: Places images onto the given WorldScene, and builds any layer's image not yet built
+	void drawOntoScene(WorldScene scene, int cameraHeight) {
+		for (ParallaxLayer layer : this.layers) {
+			// The layer and the copy above it that wraps into view
+			int offset = layer.offset(cameraHeight);
+			scene.placeImageXY(layer.image(), IConstant.WINDOW_WIDTH / 2, offset + IConstant.WINDOW_HEIGHT / 2);
+			if (offset > 0) {
+				scene.placeImageXY(layer.image(), IConstant.WINDOW_WIDTH / 2, offset - IConstant.WINDOW_HEIGHT / 2);
+			}
+		}
+	}
+}
+
+// Measures how long it takes to get the background ready to draw, by decoding the image directly and through a
+// warm BackgroundCache
+class StartupBenchmark {
+	// Usage: StartupBenchmark [image file] [runs]
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		String path = args.length > 0 ? args[0] : IConstant.BACKGROUND_FILE;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		long start = System.nanoTime();
+		new BackgroundCache(path).build();
+		System.out.println("Cache build: " + (System.nanoTime() - start) / 1000 + " us");
+
+		long decode = 0;
+		long mapped = 0;
+		for (int i = 0; i < runs; i += 1) {
+			start = System.nanoTime();
+			BackgroundCache.compose(ImageIO.read(new File(path)));
+			decode += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			new BackgroundCache(path).pixels();
+			mapped += System.nanoTime() - start;
+		}
+		System.out.println("Decode and compose: " + decode / runs / 1000 + " us per launch");
+		System.out.println("Map cached pixels: " + mapped / runs / 1000 + " us per launch");
+	}
+}
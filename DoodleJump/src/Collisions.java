@@ -1,3 +1,7 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+
 
 // A function object that determines if the player is colliding with the game component that parameterizes it
 interface ICollisionFunc {
@@ -109,4 +113,263 @@ class WillCollideRect extends ARectCollisionFunc{
 
 		return horizontalCheck && verticalCheck;
 	}
+}
+
+// The range of ticks on which the player, if it stays in free fall, could land on a particular component
+class LandingWindow implements Comparable<LandingWindow> {
+	// Marks a window that can never open under the current free-fall arc
+	static final int NEVER = Integer.MAX_VALUE;
+
+	final IGameComponent component;
+	// First and last tick (inclusive) on which the player's bottom edge crosses the component's top edge
+	final int firstTick;
+	final int lastTick;
+	// Is the window currently open (the component needs narrow-phase tests)?
+	boolean open;
+
+	LandingWindow(IGameComponent component, int firstTick, int lastTick) {
+		this.component = component;
+		this.firstTick = firstTick;
+		this.lastTick = lastTick;
+		this.open = false;
+	}
+
+	// Windows are ordered by the first tick on which they open
+	public int compareTo(LandingWindow other) {
+		return Integer.compare(this.firstTick, other.firstTick);
+	}
+}
+
+// Predicts when the player's arc under gravity can reach the top edge of each component that can only be landed on,
+// so those components skip narrow-phase collision tests on every other tick. The prediction assumes free fall and is
+// thrown away whenever the player's vertical velocity stops matching it (bounces, items, deaths). Horizontal input
+// never invalidates it because only the vertical part of WillCollideRectAbove is predicted.
+class CollisionScheduler {
+	// Number of ticks started so far
+	int tick;
+	// The vertical velocity the player will have next tick if it stays in free fall
+	int expectedYVel;
+	// Must every window be recomputed on the next tick?
+	boolean stale;
+
+	// Closed windows, ordered by the tick on which they open
+	PriorityQueue<LandingWindow> upcoming;
+	// Windows that are currently open
+	ArrayList<LandingWindow> openWindows;
+	// The current window of each scheduled component
+	IdentityHashMap<IGameComponent, LandingWindow> windows;
+	// Components added since the last tick that have not been scheduled yet
+	ArrayList<IGameComponent> pending;
+
+	// Constructor begins with nothing scheduled, so the first tick schedules every component
+	CollisionScheduler() {
+		this.tick = 0;
+		this.expectedYVel = 0;
+		this.stale = true;
+		this.upcoming = new PriorityQueue<LandingWindow>();
+		this.openWindows = new ArrayList<LandingWindow>();
+		this.windows = new IdentityHashMap<IGameComponent, LandingWindow>();
+		this.pending = new ArrayList<IGameComponent>();
+	}
+
+	// Records a component that has been added to the game since the last tick
+	// EFFECT: Adds to the pending components
+	void track(IGameComponent component) {
+		this.pending.add(component);
+	}
+
+	// Stops scheduling a component that has been removed from the game
+	// EFFECT: Removes the component's window (its queue entry is discarded lazily)
+	void forget(IGameComponent component) {
+		LandingWindow window = this.windows.remove(component);
+		if (window != null && window.open) {
+			this.openWindows.remove(window);
+		}
+	}
+
+	// Advances to the next tick, rescheduling everything if the player has left its predicted arc,
+	// then opens the windows that start on this tick and closes the ones that have ended
+	// EFFECT: Modifies the tick count, the windows, and the expected velocity
+	void beginTick(Player player, ArrayList<IGameComponent> gamePieces) {
+		this.tick += 1;
+		if (this.stale || player.velocity.y != this.expectedYVel) {
+			this.reschedule(player, gamePieces);
+		} else {
+			for (IGameComponent component : this.pending) {
+				this.schedule(component, player);
+			}
+		}
+		this.pending.clear();
+
+		// Close windows that have ended
+		ArrayList<LandingWindow> stillOpen = new ArrayList<LandingWindow>();
+		for (LandingWindow window : this.openWindows) {
+			if (window.lastTick < this.tick) {
+				window.open = false;
+			} else {
+				stillOpen.add(window);
+			}
+		}
+		this.openWindows = stillOpen;
+
+		// Open windows that start now, skipping entries for forgotten or rescheduled components
+		while (!this.upcoming.isEmpty() && this.upcoming.peek().firstTick <= this.tick) {
+			LandingWindow window = this.upcoming.poll();
+			if (this.windows.get(window.component) == window && window.lastTick >= this.tick) {
+				window.open = true;
+				this.openWindows.add(window);
+			}
+		}
+
+		this.expectedYVel = Math.min(player.velocity.y + IConstant.ACC_GRAVITY, IConstant.TERMINAL_VELOCITY);
+	}
+
+	// Must the given component be tested for a collision with the player on this tick?
+	boolean needsTest(IGameComponent component) {
+		if (!component.landsOnTopOnly()) {
+			return true;
+		}
+		LandingWindow window = this.windows.get(component);
+		return window == null || window.open;
+	}
+
+	// Throws away every window and schedules each component from the player's current state
+	// EFFECT: Replaces all windows
+	void reschedule(Player player, ArrayList<IGameComponent> gamePieces) {
+		this.upcoming.clear();
+		this.openWindows.clear();
+		this.windows.clear();
+		for (IGameComponent component : gamePieces) {
+			this.schedule(component, player);
+		}
+		this.stale = false;
+	}
+
+	// Computes and stores the landing window of one component from the player's current state
+	// EFFECT: Adds a window for the component
+	void schedule(IGameComponent component, Player player) {
+		if (!component.landsOnTopOnly()) {
+			return;
+		}
+		int playerBottom = player.position.y + IConstant.PLAYER_HEIGHT / 2;
+		int gap = component.topEdge() - playerBottom;
+		int first = this.firstLandingOffset(gap, player.velocity.y);
+		LandingWindow window;
+		if (first == LandingWindow.NEVER) {
+			window = new LandingWindow(component, LandingWindow.NEVER, LandingWindow.NEVER);
+		} else {
+			// The bottom edge can sit exactly on the top edge for a second tick
+			int last = this.fallDistance(first + 1, player.velocity.y) == gap ? first + 1 : first;
+			window = new LandingWindow(component, this.tick + first, this.tick + last);
+			this.upcoming.add(window);
+		}
+		this.windows.put(component, window);
+	}
+
+	// The number of ticks from now until the player's bottom edge, starting at the given vertical velocity, first
+	// crosses a point gap pixels below it while moving downward, or NEVER if it is already below that point when it
+	// starts falling
+	int firstLandingOffset(int gap, int yVel) {
+		// The first tick on which the player is moving down
+		int falling = yVel > 0 ? 0 : -yVel / IConstant.ACC_GRAVITY + 1;
+		long startDist = this.fallDistance(falling, yVel);
+		if (startDist > gap) {
+			return LandingWindow.NEVER;
+		}
+		// Find the first tick k that ends at or below the point; fallDistance grows by at least 1 per falling tick
+		int low = falling;
+		int high = falling + (int) (gap - startDist);
+		while (low < high) {
+			int mid = (low + high) / 2;
+			if (this.fallDistance(mid + 1, yVel) >= gap) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	// The total downward displacement after the given number of ticks in free fall from the given vertical velocity,
+	// following Player.move: velocity grows by ACC_GRAVITY per tick up to TERMINAL_VELOCITY
+	long fallDistance(int ticks, int yVel) {
+		long acc = IConstant.ACC_GRAVITY;
+		long terminal = IConstant.TERMINAL_VELOCITY;
+		// Ticks spent accelerating before terminal velocity is reached
+		long accelerating = yVel >= terminal ? 0 : (terminal - yVel + acc - 1) / acc;
+		if (ticks <= accelerating) {
+			return ticks * yVel + acc * ticks * (ticks - 1) / 2;
+		} else {
+			long beforeTerminal = accelerating * yVel + acc * accelerating * (accelerating - 1) / 2;
+			return beforeTerminal + (ticks - accelerating) * terminal;
+		}
+	}
+}
+
+// A sweep-and-prune broadphase over the bounding boxes of components that collide with one another. Components are
+// kept sorted by left edge; since they move little between ticks an insertion sort restores the order in close to
+// linear time, and the sweep only compares components whose horizontal extents overlap.
+class SweepAndPrune {
+	// Colliding components sorted by left edge
+	ArrayList<IGameComponent> sorted;
+
+	SweepAndPrune() {
+		this.sorted = new ArrayList<IGameComponent>();
+	}
+
+	// Adds a component to the broadphase if it collides with other components
+	// EFFECT: Adds to the sorted components (order is restored on the next update)
+	void add(IGameComponent component) {
+		if (component.collidesWithComponents()) {
+			this.sorted.add(component);
+		}
+	}
+
+	// Drops removed components and restores the ordering by left edge
+	// EFFECT: Modifies the sorted components
+	void update() {
+		ArrayList<IGameComponent> kept = new ArrayList<IGameComponent>(this.sorted.size());
+		for (IGameComponent component : this.sorted) {
+			if (!component.shouldRemove()) {
+				kept.add(component);
+			}
+		}
+		// Insertion sort, cheap for the nearly-sorted order left by the previous tick
+		for (int i = 1; i < kept.size(); i += 1) {
+			IGameComponent current = kept.get(i);
+			int j = i - 1;
+			while (j >= 0 && kept.get(j).leftEdge() > current.leftEdge()) {
+				kept.set(j + 1, kept.get(j));
+				j -= 1;
+			}
+			kept.set(j + 1, current);
+		}
+		this.sorted = kept;
+	}
+
+	// Returns every pair of components whose bounding boxes overlap
+	ArrayList<IGameComponent[]> candidatePairs() {
+		ArrayList<IGameComponent[]> pairs = new ArrayList<IGameComponent[]>();
+		for (int i = 0; i < this.sorted.size(); i += 1) {
+			IGameComponent first = this.sorted.get(i);
+			// Stop as soon as the remaining components start right of this one
+			for (int j = i + 1; j < this.sorted.size() && this.sorted.get(j).leftEdge() <= first.rightEdge(); j += 1) {
+				IGameComponent second = this.sorted.get(j);
+				if (!(second.bottomEdge() < first.topEdge() || second.topEdge() > first.bottomEdge())) {
+					pairs.add(new IGameComponent[] { first, second });
+				}
+			}
+		}
+		return pairs;
+	}
+
+	// Lets every overlapping pair of components react to each other
+	// EFFECT: Modifies colliding components through interactComponent
+	void interactPairs() {
+		this.update();
+		for (IGameComponent[] pair : this.candidatePairs()) {
+			pair[0].interactComponent(pair[1]);
+			pair[1].interactComponent(pair[0]);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// A value that changes with the score, linear between given points and constant before the first and after the last
+class DifficultyCurve {
+	final int[] scores;
+	final double[] values;
+
+	// Constructor takes points in increasing order of score
+	DifficultyCurve(int[] scores, double[] values) {
+		if (scores.length == 0 || scores.length != values.length) {
+			throw new IllegalArgumentException("A curve needs at least one point.");
+		}
+		for (int i = 1; i < scores.length; i += 1) {
+			if (scores[i] <= scores[i - 1]) {
+				throw new IllegalArgumentException("Curve points must have increasing scores.");
+			}
+		}
+		this.scores = scores;
+		this.values = values;
+	}
+
+	// A curve with the same value at every score
+	static DifficultyCurve constant(double value) {
+		return new DifficultyCurve(new int[] { 0 }, new double[] { value });
+	}
+
+	// Reads points written as "<score>=<value>"
+	static DifficultyCurve parse(String[] points) {
+		int[] scores = new int[points.length];
+		double[] values = new double[points.length];
+		for (int i = 0; i < points.length; i += 1) {
+			String[] parts = points[i].split("=");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Expected <score>=<value> but found " + points[i] + ".");
+			}
+			scores[i] = Integer.parseInt(parts[0]);
+			values[i] = Double.parseDouble(parts[1]);
+			if (values[i] < 0) {
+				throw new IllegalArgumentException("Curve values must not be negative.");
+			}
+		}
+		return new DifficultyCurve(scores, values);
+	}
+
+	// The value at the given score
+	double valueAt(int score) {
+		if (score <= this.scores[0]) {
+			return this.values[0];
+		}
+		for (int i = 1; i < this.scores.length; i += 1) {
+			if (score < this.scores[i]) {
+				double along = (double) (score - this.scores[i - 1]) / (this.scores[i] - this.scores[i - 1]);
+				return this.values[i - 1] + along * (this.values[i] - this.values[i - 1]);
+			}
+		}
+		return this.values[this.values.length - 1];
+	}
+
+	// The score after which this curve no longer changes
+	int lastScore() {
+		return this.scores[this.scores.length - 1];
+	}
+}
+
+// Everything the generators need for one band of scores, worked out from the curves in advance
+class DifficultyBand {
+	final SpawnTable<ComponentKind> platforms;
+	final SpawnTable<ComponentKind> hazards;
+	final SpawnTable<ItemKind> items;
+	// The fastest a new moving platform or monster may move horizontally, in either direction
+	final int movingPlatformSpeed;
+	final int monsterSpeed;
+
+	DifficultyBand(SpawnTable<ComponentKind> platforms, SpawnTable<ComponentKind> hazards, SpawnTable<ItemKind> items,
+			int movingPlatformSpeed, int monsterSpeed) {
+		this.platforms = platforms;
+		this.hazards = hazards;
+		this.items = items;
+		this.movingPlatformSpeed = movingPlatformSpeed;
+		this.monsterSpeed = monsterSpeed;
+	}
+}
+
+// The curves of a spawn config's [difficulty] section, read as lines like
+//
+//   [difficulty] band 500
+//   hazard-spacing 0=1 20000=0.6
+//   monster-speed 0=10 20000=14
+//
+// "platform-spacing", "hazard-spacing" and "item-spacing" scale a generator's spacings, any spawnable name scales
+// that entry's weight, and "moving-platform-speed" and "monster-speed" give top speeds. Anything not mentioned stays
+// as its table says (top speeds default to 10).
+class DifficultyCurves {
+	// Precompiled bands beyond this many would be an editing mistake rather than a curve
+	static final int MAX_BANDS = 4096;
+	static final int DEFAULT_SPEED = 10;
+
+	final int bandHeight;
+	final HashMap<String, DifficultyCurve> curves;
+
+	DifficultyCurves(int bandHeight) {
+		if (bandHeight <= 0) {
+			throw new IllegalArgumentException("Band height must be positive.");
+		}
+		this.bandHeight = bandHeight;
+		this.curves = new HashMap<String, DifficultyCurve>();
+	}
+
+	// Reads a [difficulty] section, given its header words and the range of lines holding its curves
+	static DifficultyCurves parseSection(String[] header, String[] lines, int start, int end) {
+		if (header.length != 3 || !header[1].equals("band")) {
+			throw new IllegalArgumentException("Expected \"[difficulty] band <score per band>\".");
+		}
+		DifficultyCurves difficulty = new DifficultyCurves(Integer.parseInt(header[2]));
+		for (int i = start; i < end; i += 1) {
+			String line = lines[i].trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] words = line.split("\\s+");
+			if (words.length < 2 || !difficulty.known(words[0]) || difficulty.curves.containsKey(words[0])) {
+				throw new IllegalArgumentException("Unknown or repeated curve on line " + (i + 1) + ".");
+			}
+			difficulty.curves.put(words[0], DifficultyCurve.parse(Arrays.copyOfRange(words, 1, words.length)));
+		}
+		return difficulty;
+	}
+
+	// Can a curve have the given name?
+	boolean known(String name) {
+		if (name.equals("platform-spacing") || name.equals("hazard-spacing") || name.equals("item-spacing")
+				|| name.equals("moving-platform-speed") || name.equals("monster-speed")) {
+			return true;
+		}
+		String kind = name.toUpperCase().replace('-', '_');
+		for (List<? extends Enum<?>> kinds : Arrays.asList(SpawnConfig.PLATFORM_KINDS, SpawnConfig.HAZARD_KINDS,
+				SpawnConfig.ITEM_KINDS)) {
+			for (Enum<?> spawnable : kinds) {
+				if (spawnable.name().equals(kind)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	// The named curve, or the given constant if there is none
+	DifficultyCurve curve(String name, double otherwise) {
+		DifficultyCurve curve = this.curves.get(name);
+		return curve == null ? DifficultyCurve.constant(otherwise) : curve;
+	}
+
+	// Evaluates every curve at the start of each band, enough bands that the last starts at or past every score where
+	// a curve still changes, so it holds each curve's final value
+	DifficultyBand[] compile(SpawnTable<ComponentKind> platforms, SpawnTable<ComponentKind> hazards,
+			SpawnTable<ItemKind> items) {
+		int lastScore = 0;
+		for (DifficultyCurve curve : this.curves.values()) {
+			lastScore = Math.max(lastScore, curve.lastScore());
+		}
+		int count = (lastScore + this.bandHeight - 1) / this.bandHeight + 1;
+		if (count > MAX_BANDS) {
+			throw new IllegalArgumentException("Curves span more than " + MAX_BANDS + " bands.");
+		}
+		DifficultyBand[] bands = new DifficultyBand[count];
+		for (int band = 0; band < count; band += 1) {
+			int score = band * this.bandHeight;
+			bands[band] = new DifficultyBand(this.scaled(platforms, "platform-spacing", score),
+					this.scaled(hazards, "hazard-spacing", score), this.scaled(items, "item-spacing", score),
+					(int) Math.round(this.curve("moving-platform-speed", DEFAULT_SPEED).valueAt(score)),
+					(int) Math.round(this.curve("monster-speed", DEFAULT_SPEED).valueAt(score)));
+		}
+		return bands;
+	}
+
+	// The table with its weights and spacings scaled by their curves at the given score
+	<K extends Enum<K>> SpawnTable<K> scaled(SpawnTable<K> table, String spacingCurve, int score) {
+		List<K> outcomes = table.outcomes;
+		double[] weights = new double[outcomes.size()];
+		for (int i = 0; i < weights.length; i += 1) {
+			String name = outcomes.get(i).name().toLowerCase().replace('_', '-');
+			weights[i] = table.rawWeights[i] * this.curve(name, 1).valueAt(score);
+		}
+		double spacing = this.curve(spacingCurve, 1).valueAt(score);
+		int firstLow = Math.max(1, (int) Math.round(table.firstLow * spacing));
+		int spacingLow = Math.max(1, (int) Math.round(table.spacingLow * spacing));
+		return new SpawnTable<K>(outcomes, weights, firstLow,
+				Math.max(firstLow, (int) Math.round(table.firstHigh * spacing)), spacingLow,
+				Math.max(spacingLow, (int) Math.round(table.spacingHigh * spacing)));
+	}
+}
@@ -0,0 +1,219 @@
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// The things that happen during a tick that observers outside the game may care about
+enum GameEventType {
+	// The player bounced off something; the value is the new upward velocity
+	BOUNCE,
+	// A hazard killed the player
+	PLAYER_KILLED,
+	// The player took an item; the value is the item's ItemKind ordinal
+	ITEM_TAKEN,
+	// A brittle platform broke under the player; the value is its ComponentKind ordinal
+	PLATFORM_BROKEN,
+	// The player landed on a monster; the value is its ComponentKind ordinal
+	MONSTER_STOMPED,
+	// A generator added a component; the value is its ComponentKind ordinal
+	COMPONENT_SPAWNED
+}
+
+// Somewhere the simulation can report game events
+interface IGameEventSink {
+	// Reports an event at the given screen position
+	// EFFECT: May record the event
+	void publish(GameEventType type, int x, int y, int value);
+
+	// Marks the start of the next tick, which later events belong to
+	// EFFECT: May advance the current tick
+	void nextTick();
+}
+
+// The default sink, for games nobody is observing
+class NoEvents implements IGameEventSink {
+	// Ignores the event
+	public void publish(GameEventType type, int x, int y, int value) {
+		return;
+	}
+
+	// Ignores the tick
+	public void nextTick() {
+		return;
+	}
+}
+
+// Receives events read from a GameEventBus
+interface IGameEventHandler {
+	// EFFECT: Reacts to one event
+	void onEvent(GameEventType type, long tick, int x, int y, int value);
+}
+
+// A fixed-size ring of events written by the simulation thread and read by any number of consumers on their own
+// threads. Events are stored in preallocated parallel arrays, so publishing never allocates, and the simulation
+// never waits for a consumer: a consumer that falls a whole ring behind skips the events that were overwritten and
+// counts them as missed instead.
+class GameEventBus implements IGameEventSink {
+	static final GameEventType[] TYPES = GameEventType.values();
+
+	final int mask;
+	final byte[] types;
+	final long[] ticks;
+	final int[] xs;
+	final int[] ys;
+	final int[] values;
+	// Number of events whose slot the producer has started to write, and number completely written
+	final AtomicLong claimed;
+	final AtomicLong published;
+	// The current tick, only touched by the simulation thread
+	long tick;
+
+	// Constructor preallocates the given number of slots, which must be a power of two
+	GameEventBus(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a positive power of two.");
+		}
+		this.mask = capacity - 1;
+		this.types = new byte[capacity];
+		this.ticks = new long[capacity];
+		this.xs = new int[capacity];
+		this.ys = new int[capacity];
+		this.values = new int[capacity];
+		this.claimed = new AtomicLong(0);
+		this.published = new AtomicLong(0);
+		this.tick = 0;
+	}
+
+	// Number of slots in the ring
+	int capacity() {
+		return this.mask + 1;
+	}
+
+	// Writes the event into the next slot, overwriting the oldest event once the ring is full
+	// EFFECT: Modifies the ring and its counters
+	public void publish(GameEventType type, int x, int y, int value) {
+		long sequence = this.published.get();
+		// Announce the overwrite before touching the slot so a consumer reading the old event can tell
+		this.claimed.set(sequence + 1);
+		VarHandle.storeStoreFence();
+		int slot = (int) (sequence & this.mask);
+		this.types[slot] = (byte) type.ordinal();
+		this.ticks[slot] = this.tick;
+		this.xs[slot] = x;
+		this.ys[slot] = y;
+		this.values[slot] = value;
+		this.published.set(sequence + 1);
+	}
+
+	// EFFECT: Advances the tick later events are stamped with
+	public void nextTick() {
+		this.tick += 1;
+	}
+
+	// A consumer that starts reading from the next event published
+	GameEventConsumer subscribe() {
+		return new GameEventConsumer(this, this.published.get());
+	}
+}
+
+// One reader of a GameEventBus, with its own position in the ring. Each consumer must be polled from only one
+// thread at a time; it can run on its own thread as a Runnable.
+class GameEventConsumer implements Runnable {
+	final GameEventBus bus;
+	// Sequence number of the next event to read
+	long next;
+	// Events overwritten before this consumer got to them
+	long missed;
+	// What run() hands events to
+	IGameEventHandler handler;
+	volatile boolean running;
+
+	GameEventConsumer(GameEventBus bus, long next) {
+		this.bus = bus;
+		this.next = next;
+		this.missed = 0;
+		this.handler = null;
+		this.running = false;
+	}
+
+	// Hands every event published since the last poll to the handler, returning how many were handled
+	// EFFECT: Advances this' position and may count missed events
+	int poll(IGameEventHandler handler) {
+		long available = this.bus.published.get();
+		int handled = 0;
+		while (this.next < available) {
+			long oldest = available - this.bus.capacity();
+			if (this.next < oldest) {
+				this.missed += oldest - this.next;
+				this.next = oldest;
+			}
+			int slot = (int) (this.next & this.bus.mask);
+			GameEventType type = GameEventBus.TYPES[this.bus.types[slot]];
+			long tick = this.bus.ticks[slot];
+			int x = this.bus.xs[slot];
+			int y = this.bus.ys[slot];
+			int value = this.bus.values[slot];
+			// If the producer has since claimed this slot for a newer event, what was read may be torn
+			VarHandle.loadLoadFence();
+			long firstIntact = this.bus.claimed.get() - this.bus.capacity();
+			if (firstIntact > this.next) {
+				this.missed += firstIntact - this.next;
+				this.next = firstIntact;
+				available = this.bus.published.get();
+				continue;
+			}
+			handler.onEvent(type, tick, x, y, value);
+			this.next += 1;
+			handled += 1;
+		}
+		return handled;
+	}
+
+	// Starts polling on a new daemon thread, handing events to the given handler
+	// EFFECT: Starts a thread
+	Thread start(IGameEventHandler handler, String name) {
+		this.handler = handler;
+		this.running = true;
+		Thread thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	// Polls until stopped, resting briefly whenever there is nothing to read
+	// EFFECT: Hands events to this' handler
+	public void run() {
+		while (this.running) {
+			if (this.poll(this.handler) == 0) {
+				LockSupport.parkNanos(1000000);
+			}
+		}
+		this.poll(this.handler);
+	}
+
+	// EFFECT: Makes run() return after a final poll
+	void stop() {
+		this.running = false;
+	}
+}
+
+// Counts events of each type and the highest tick seen, as a stats or achievements consumer would
+class GameStats implements IGameEventHandler {
+	final long[] counts;
+	long lastTick;
+
+	GameStats() {
+		this.counts = new long[GameEventType.values().length];
+		this.lastTick = -1;
+	}
+
+	// EFFECT: Counts the event
+	public void onEvent(GameEventType type, long tick, int x, int y, int value) {
+		this.counts[type.ordinal()] += 1;
+		this.lastTick = Math.max(this.lastTick, tick);
+	}
+
+	// How many events of the given type have been seen
+	long count(GameEventType type) {
+		return this.counts[type.ordinal()];
+	}
+}
@@ -0,0 +1,227 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.imageio.ImageIO;
+
+// The ways exported frames can be written
+enum FrameFormat {
+	// One numbered PNG file per frame
+	PNG,
+	// Every frame appended to one file of packed 8-bit R, G, B pixels, row by row
+	RAW_RGB
+}
+
+// A frame waiting to be encoded: a copy of the frame's pixels and its number in the run
+class PendingFrame {
+	final int[] pixels;
+	int index;
+
+	PendingFrame(int[] pixels) {
+		this.pixels = pixels;
+		this.index = 0;
+	}
+}
+
+// Encodes frames to disk on a background thread. Frames are copied into a fixed pool of pixel buffers and handed
+// over through a bounded queue; if the encoder falls so far behind that every buffer is in use, the frame is dropped
+// (and counted) rather than making the caller wait on the disk.
+class FrameExporter implements Runnable {
+	final File directory;
+	final FrameFormat format;
+	// Frames waiting to be encoded, and the buffers free to hold new ones
+	final ArrayBlockingQueue<PendingFrame> pending;
+	final ArrayBlockingQueue<PendingFrame> free;
+	final Thread encoder;
+	// Marks the end of the frames
+	final PendingFrame done;
+
+	int framesSubmitted;
+	int framesDropped;
+	volatile int framesWritten;
+	volatile IOException failure;
+
+	// Constructor allocates the given number of frame buffers and starts the encoder thread, a daemon so that an
+	// export that fails part way never keeps the program running
+	FrameExporter(File directory, FrameFormat format, int bufferCount) {
+		if (bufferCount <= 0) {
+			throw new IllegalArgumentException("Must have at least one frame buffer.");
+		}
+		this.directory = directory;
+		this.format = format;
+		this.pending = new ArrayBlockingQueue<PendingFrame>(bufferCount + 1);
+		this.free = new ArrayBlockingQueue<PendingFrame>(bufferCount);
+		for (int i = 0; i < bufferCount; i += 1) {
+			this.free.add(new PendingFrame(new int[IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT]));
+		}
+		this.done = new PendingFrame(new int[0]);
+		this.framesSubmitted = 0;
+		this.framesDropped = 0;
+		this.framesWritten = 0;
+		this.encoder = new Thread(this, "frame-encoder");
+		this.encoder.setDaemon(true);
+		this.encoder.start();
+	}
+
+	// Copies a window-sized frame into a free buffer and queues it for encoding, dropping it if no buffer is free
+	// EFFECT: Modifies the queues and frame counts
+	boolean submit(BufferedImage frame) {
+		int index = this.framesSubmitted;
+		this.framesSubmitted += 1;
+		PendingFrame buffer = this.free.poll();
+		if (buffer == null) {
+			this.framesDropped += 1;
+			return false;
+		}
+		frame.getRGB(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT, buffer.pixels, 0,
+				IConstant.WINDOW_WIDTH);
+		buffer.index = index;
+		this.pending.add(buffer);
+		return true;
+	}
+
+	// Encodes queued frames until the end marker arrives
+	// EFFECT: Writes files into this' directory
+	public void run() {
+		try (FileChannel raw = this.openRawChannel()) {
+			ByteBuffer rgb = ByteBuffer.allocateDirect(3 * IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT);
+			BufferedImage png = new BufferedImage(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT,
+					BufferedImage.TYPE_INT_RGB);
+			int[] pngPixels = ((DataBufferInt) png.getRaster().getDataBuffer()).getData();
+			PendingFrame frame = this.pending.take();
+			while (frame != this.done) {
+				if (this.format == FrameFormat.PNG) {
+					System.arraycopy(frame.pixels, 0, pngPixels, 0, pngPixels.length);
+					ImageIO.write(png, "png", new File(this.directory, String.format("frame-%06d.png", frame.index)));
+				} else {
+					rgb.clear();
+					for (int pixel : frame.pixels) {
+						rgb.put((byte) (pixel >> 16)).put((byte) (pixel >> 8)).put((byte) pixel);
+					}
+					rgb.flip();
+					while (rgb.hasRemaining()) {
+						raw.write(rgb);
+					}
+				}
+				this.framesWritten += 1;
+				this.free.add(frame);
+				frame = this.pending.take();
+			}
+		} catch (IOException e) {
+			this.failure = e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// The channel raw frames are appended to, or null when writing PNGs
+	FileChannel openRawChannel() throws IOException {
+		if (this.format == FrameFormat.RAW_RGB) {
+			RandomAccessFile file = new RandomAccessFile(new File(this.directory, "frames.rgb"), "rw");
+			file.setLength(0);
+			return file.getChannel();
+		} else {
+			return null;
+		}
+	}
+
+	// Waits for every queued frame to be written and stops the encoder
+	// EFFECT: Stops the encoder thread
+	void close() throws IOException, InterruptedException {
+		this.pending.put(this.done);
+		this.encoder.join();
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+}
+
+// Plays a game offscreen and exports a frame per tick, for archiving sessions and bug reproductions on machines
+// without a display. The moves either replay a recorded run (such as a soak repro, on the same seeded game) or are
+// made at random.
+class HeadlessExport {
+	final JumpingGame game;
+	final Java2DRenderer renderer;
+	// The recorded moves to replay, or null to move at random
+	final List<SoakInput> recorded;
+	// Chooses random moves, or null when replaying
+	final Random inputs;
+
+	// Constructor moves at random, drawing the moves from the given seed
+	HeadlessExport(JumpingGame game, long inputSeed) {
+		this(game, null, new Random(inputSeed));
+	}
+
+	// Constructor replays the given recorded moves, each made at the start of its tick
+	HeadlessExport(JumpingGame game, List<SoakInput> recorded) {
+		this(game, recorded, null);
+	}
+
+	HeadlessExport(JumpingGame game, List<SoakInput> recorded, Random inputs) {
+		this.game = game;
+		this.renderer = new Java2DRenderer(ParallaxBackground.starField());
+		this.recorded = recorded;
+		this.inputs = inputs;
+	}
+
+	// Runs the game for up to the given number of ticks (or until it is lost), rendering and submitting each frame
+	// EFFECT: Modifies the game and queues frames on the exporter
+	void run(int ticks, FrameExporter exporter) {
+		int next = 0;
+		for (int tick = 0; tick < ticks && !this.game.gameOver(); tick += 1) {
+			if (this.recorded != null) {
+				while (next < this.recorded.size() && this.recorded.get(next).tick <= tick) {
+					this.game.playerHorizontalMove(this.recorded.get(next).move);
+					next += 1;
+				}
+			} else if (this.inputs.nextInt(15) == 0) {
+				// Change direction now and then, as a player would
+				this.game.playerHorizontalMove(SoakRun.MOVES[this.inputs.nextInt(SoakRun.MOVES.length)]);
+			}
+			this.game.tick();
+			exporter.submit(this.game.drawScene(this.renderer));
+		}
+	}
+
+	// Usage: HeadlessExport <output directory> [png|raw] [ticks] [seed] [recorded moves file]
+	// With a file of recorded moves (as a soak repro lists them) the seeded game is replayed with those moves;
+	// without one, a default game is played with moves drawn at random from the seed.
+	public static void main(String[] args) throws IOException, InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+		File directory = new File(args.length > 0 ? args[0] : "frames");
+		FrameFormat format = args.length > 1 && args[1].equals("raw") ? FrameFormat.RAW_RGB : FrameFormat.PNG;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 3000;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		directory.mkdirs();
+
+		HeadlessExport export;
+		if (args.length > 4) {
+			List<SoakInput> recorded = SoakInput.parseList(Files.readString(new File(args[4]).toPath()));
+			export = new HeadlessExport(SoakRun.seededGame(seed), recorded);
+		} else {
+			export = new HeadlessExport(new JumpingGame(), seed);
+		}
+		FrameExporter exporter = new FrameExporter(directory, format, 64);
+		long start = System.nanoTime();
+		long simulated;
+		try {
+			export.run(ticks, exporter);
+		} finally {
+			simulated = System.nanoTime();
+			exporter.close();
+		}
+		long finished = System.nanoTime();
+
+		System.out.println("Frames rendered: " + exporter.framesSubmitted + " (" + exporter.framesDropped + " dropped)");
+		System.out.println("Render rate: " + (int) (exporter.framesSubmitted / ((simulated - start) / 1e9)) + " fps");
+		System.out.println("Frames written: " + exporter.framesWritten + " in " + (finished - start) / 1000000 + " ms");
+	}
+}
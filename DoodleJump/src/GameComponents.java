@@ -1,12 +1,12 @@
 import java.awt.Color;
 import java.util.Random;
 
-import javalib.impworld.WorldScene;
-import javalib.worldimages.CircleImage;
-import javalib.worldimages.EmptyImage;
-import javalib.worldimages.OutlineMode;
-import javalib.worldimages.RectangleImage;
-import javalib.worldimages.WorldImage;
+// The kinds of game components, for code that needs to tell them apart from outside (spectator feeds, level files,
+// statistics)
+enum ComponentKind {
+	STANDARD_PLATFORM, MOVING_PLATFORM, BRITTLE_PLATFORM, SPRING_PLATFORM, ETHEREAL_PLATFORM, MONSTER, BLACK_HOLE,
+	ITEM, VERTICAL_PLATFORM, DIAGONAL_PLATFORM, CIRCLING_PLATFORM, SINKING_PLATFORM
+}
 
 //To represent a game piece that is a part of the environment
 interface IGameComponent {
@@ -17,8 +17,12 @@ interface IGameComponent {
 	// Should this game component be removed?
 	boolean shouldRemove();
 
-	// Visually depict the component onto the background
-	void drawOntoScene(WorldScene background);
+	// What kind of component is this?
+	ComponentKind kind();
+
+	// Describe the visual depiction of the component as sprites
+	// EFFECT: Adds sprites to the given list
+	void addSprites(SpriteList sprites);
 
 	// Modify this platform once a tick has passed
 	void tickComponent();
@@ -26,25 +30,144 @@ interface IGameComponent {
 	// Interact with the player on each tick, generally by determining if
 	// a collision occurs and then modifying the player if so
 	void interactPlayer(Player player);
+
+	// Can the player only affect (or be affected by) this component by landing on its top edge?
+	// Such components are handed to the CollisionScheduler instead of being tested every tick
+	boolean landsOnTopOnly();
+
+	// The image y-coordinate of the top edge of this component
+	int topEdge();
+
+	// The image coordinates of the remaining edges of this component's bounding box
+	int bottomEdge();
+
+	int leftEdge();
+
+	int rightEdge();
+
+	// Does this component react to touching other components (see SweepAndPrune)?
+	boolean collidesWithComponents();
+
+	// React to the bounding box of another colliding component overlapping this one's
+	// EFFECT: Modifies this component as appropriate
+	void interactComponent(IGameComponent other);
 }
 
 // To represent a game component with a definite position
 abstract class AGameComponent implements IGameComponent {
-	// The absolute image coordinates of the center of this platform
+	// The absolute image coordinates of the center of this component, while it is in no motion system (once in one,
+	// its slot there holds where it is; see position())
 	Vector2D position;
+	// The path this component follows, or null if this stays put
+	MotionPath path;
+	// The motion system moving this component along its path and this' slot there, or null if it is in none
+	MotionSystem motion;
+	int motionSlot;
+	// The motion this component has while it is in no motion system, which it takes into the first it joins: ticks
+	// along its path, horizontal velocity, and whether the player has landed on it
+	int pathPhase;
+	int pathXVel;
+	boolean pathHit;
 
 	AGameComponent(Vector2D position) {
 		this.position = position;
+		this.path = null;
+		this.motion = null;
+		this.motionSlot = -1;
+		this.pathPhase = 0;
+		this.pathXVel = 0;
+		this.pathHit = false;
+	}
+
+	// The absolute image coordinates of the center of this component
+	Vector2D position() {
+		return this.motion == null ? this.position : new Vector2D(this.x(), this.y());
+	}
+
+	// The image x-coordinate of the center of this component
+	int x() {
+		return this.motion == null ? this.position.x : this.motion.xs[this.motionSlot];
+	}
+
+	// The image y-coordinate of the center of this component
+	int y() {
+		return this.motion == null ? this.position.y : this.motion.ys[this.motionSlot];
+	}
+
+	// Describes a visual depiction of this component centered at this' position
+	// EFFECT: Adds sprites to the given list
+	public abstract void addSprites(SpriteList sprites);
+
+	// The width of this component's bounding box
+	abstract int width();
+
+	// The height of this component's bounding box
+	abstract int height();
+
+	// Most components can be touched from any side
+	public boolean landsOnTopOnly() {
+		return false;
+	}
+
+	// The image y-coordinate of the top edge of this component's bounding box
+	public int topEdge() {
+		return this.y() - this.height() / 2;
+	}
+
+	public int bottomEdge() {
+		return this.y() + this.height() / 2;
+	}
+
+	public int leftEdge() {
+		return this.x() - this.width() / 2;
+	}
+
+	public int rightEdge() {
+		return this.x() + this.width() / 2;
+	}
+
+	// Most components pass through one another
+	public boolean collidesWithComponents() {
+		return false;
+	}
+
+	// By default, touching another component has no effect
+	public void interactComponent(IGameComponent other) {
+		return;
+	}
+
+	// Is this component moving horizontally toward the center of the other with the given x velocity?
+	boolean movingToward(IGameComponent other, int xVel) {
+		int otherCenter = (other.leftEdge() + other.rightEdge()) / 2;
+		return (xVel > 0 && otherCenter > this.x()) || (xVel < 0 && otherCenter < this.x());
 	}
 
-	// Places a visual depiction of this component at this' position
-	// EFFECT: Places an image onto the given WorldScene
-	public void drawOntoScene(WorldScene background) {
-		background.placeImageXY(this.render(), this.position.x, this.position.y);
+	// The amount this component moves horizontally on the next tick of a bounce (0 if it stays put)
+	int xVel() {
+		return this.motion == null ? this.pathXVel : this.motion.xVels[this.motionSlot];
 	}
 
-	// A visual depiction of this component
-	abstract WorldImage render();
+	// Turns around on running into another moving component
+	// EFFECT: Reverses this' horizontal velocity
+	void turnAroundFrom(IGameComponent other) {
+		if (this.path != null && this.movingToward(other, this.xVel())) {
+			if (this.motion == null) {
+				this.pathXVel *= -1;
+			} else {
+				this.motion.reverseX(this.motionSlot);
+			}
+		}
+	}
+
+	// Marks this component as landed on, which starts it along a path that waits for that
+	// EFFECT: Modifies this' motion
+	void hitOnPath() {
+		if (this.motion == null) {
+			this.pathHit = true;
+		} else {
+			this.motion.hit(this.motionSlot);
+		}
+	}
 	
 	// Interact with the player on each tick, generally by determining if
 	// a collision occurs and then modifying the player if so
@@ -56,7 +179,11 @@ abstract class AGameComponent implements IGameComponent {
 		if (displacement <= 0) {
 			throw new IllegalArgumentException("Must have positive y-displacement in image coordinates.");
 		}
-		this.position = this.position.addToY(displacement);
+		if (this.motion == null) {
+			this.position = this.position.addToY(displacement);
+		} else {
+			this.motion.displaceDownwards(this.motionSlot, displacement);
+		}
 	}
 
 	// Is this component irrelevant to game-play?
@@ -67,7 +194,7 @@ abstract class AGameComponent implements IGameComponent {
 	
 	// Is this component below the screen (candidate for removal)
 	boolean belowScreen() {
-		return this.position.y > IConstant.WINDOW_HEIGHT;
+		return this.y() > IConstant.WINDOW_HEIGHT;
 	}
 
 	// Have this platform respond to a tick (default nothing since most platforms
@@ -89,9 +216,22 @@ class EnvironmentItem extends AGameComponent {
 		this.taken = false;
 	}
 	
-	// Render this item in the environment as the item itself renders
-	WorldImage render() {
-		return this.item.render();
+	public ComponentKind kind() {
+		return ComponentKind.ITEM;
+	}
+
+	// Depict this item in the environment as the item itself is depicted
+	public void addSprites(SpriteList sprites) {
+		this.item.addSprites(sprites, this.position, this, true);
+	}
+
+	// Items are picked up within a square of the item size
+	int width() {
+		return IConstant.ITEM_SIZE;
+	}
+
+	int height() {
+		return IConstant.ITEM_SIZE;
 	}
 	
 	// If the player contacts this item, the player is given the item and this item becomes taken
@@ -117,11 +257,25 @@ class BlackHole extends AGameComponent {
 	BlackHole(Vector2D position) {
 		super(position);
 	}
+
+	public ComponentKind kind() {
+		return ComponentKind.BLACK_HOLE;
+	}
 	
 	// Depicts this as a white circle of the set radius
-	WorldImage render() {
+	public void addSprites(SpriteList sprites) {
 		//TODO: Fix backgrounds or have better black hole image
-		return new CircleImage(IConstant.BLACK_HOLE_RADIUS, OutlineMode.SOLID, Color.WHITE);
+		sprites.add(SpriteShape.SOLID_CIRCLE, this.position, 2 * IConstant.BLACK_HOLE_RADIUS,
+				2 * IConstant.BLACK_HOLE_RADIUS, Color.WHITE, this);
+	}
+
+	// A black hole is bounded by the square around its circle
+	int width() {
+		return 2 * IConstant.BLACK_HOLE_RADIUS;
+	}
+
+	int height() {
+		return 2 * IConstant.BLACK_HOLE_RADIUS;
 	}
 	
 	// Kills the player if it is in contact with this Black Hole
@@ -135,52 +289,64 @@ class BlackHole extends AGameComponent {
 // A moving enemy that kills the player if touched unless the player lands on top, killing this monster and
 // bouncing the player
 class Monster extends AGameComponent {
-	int xVel;
 	//TODO: Custom image
 	boolean hit;
 	
 	// Constructor initializes this' position and a random x velocity from [-10, 9)
 	Monster(Vector2D position) {
+		this(position, new RUtils().randBetween(-10, 10));
+	}
+
+	// Constructor initializes this' position and the given x velocity, moving side to side across the screen and
+	// reversing at the edges
+	Monster(Vector2D position, int xVel) {
 		super(position);
-		this.xVel = new RUtils().randBetween(-10, 10);
+		MotionSystem.start(this, MotionPath.horizontal(xVel), 0);
 	}
 	 
+	public ComponentKind kind() {
+		return ComponentKind.MONSTER;
+	}
+
 	// Depicts this monster as a Magenta square
-	WorldImage render() {
+	public void addSprites(SpriteList sprites) {
 		//TODO: Some custom image
-		return new RectangleImage(IConstant.MONSTER_DIM.x, IConstant.MONSTER_DIM.y, OutlineMode.SOLID, Color.MAGENTA);
+		sprites.add(SpriteShape.SOLID_RECT, this.x(), this.y(), IConstant.MONSTER_DIM.x, IConstant.MONSTER_DIM.y,
+				Color.MAGENTA, this);
+	}
+
+	int width() {
+		return IConstant.MONSTER_DIM.x;
+	}
+
+	int height() {
+		return IConstant.MONSTER_DIM.y;
 	}
 	
 	// Kills this monster and bounces the player if the player lands on top of this
 	// Kills the player if contacted otherwise
 	public void interactPlayer(Player player) {
-		if(player.willCollide(new WillCollideRectAbove(this.position, IConstant.MONSTER_DIM.x, IConstant.MONSTER_DIM.y))) {
+		if(player.willCollide(new WillCollideRectAbove(this.position(), IConstant.MONSTER_DIM.x, IConstant.MONSTER_DIM.y))) {
 			this.hit = true;
 			player.bounce(IConstant.STD_BOUNCE_VELOCITY);
-		} else if(player.willCollide(new WillCollideRect(this.position, IConstant.MONSTER_DIM.x, IConstant.MONSTER_DIM.y))) {
+			player.events.publish(GameEventType.MONSTER_STOMPED, this.x(), this.y(),
+					this.kind().ordinal());
+		} else if(player.willCollide(new WillCollideRect(this.position(), IConstant.MONSTER_DIM.x, IConstant.MONSTER_DIM.y))) {
 			player.killPlayer();
 		}
 	}
 	
-	// Moves this monster horizontally across the screen until it hits a the edge, and then it reverses direction
-	// EFFECT: Modifies this' position and velocity
-	public void tickComponent() {
-		int nextX = this.position.x + this.xVel;
-		// If about to hit right wall
-		if (nextX > IConstant.WINDOW_WIDTH) {
-			// Set position to be at right wall
-			this.position = this.position.setX(IConstant.WINDOW_WIDTH);
-			// Reverse direction
-			this.xVel *= -1;
-		} else if (nextX < 0) {
-			this.position = this.position.setX(0);
-			this.xVel *= -1;
-		} else {
-			// Move normally
-			this.position = this.position.setX(nextX);
-		}
+	// Monsters bump into other moving components
+	public boolean collidesWithComponents() {
+		return true;
 	}
-	
+
+	// Turns around on running into another moving monster or platform
+	// EFFECT: Modifies this' velocity
+	public void interactComponent(IGameComponent other) {
+		this.turnAroundFrom(other);
+	}
+
 	// The monster should be removed from play if it is below view or was killed by the player
 	public boolean shouldRemove() {
 		return this.belowScreen() || this.hit;
@@ -0,0 +1,191 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// A black hole's place in the gravity field, in cells of world coordinates (which do not change as the camera rises)
+class GravityWell {
+	final IGameComponent hole;
+	final int row;
+	final int column;
+
+	GravityWell(IGameComponent hole, int row, int column) {
+		this.hole = hole;
+		this.row = row;
+		this.column = column;
+	}
+}
+
+// The pull of every black hole on the player, an inverse-square force toward each hole, summed ahead of time into a
+// grid of cells so the player's pull is one lookup however many holes there are. Every hole pulls the same way, so
+// its field is worked out once as a stamp that is added to the grid when a hole appears and subtracted when it goes.
+// The grid covers the screen and the reach of a hole above and below it, as a ring of rows in world coordinates:
+// when the camera rises, rows falling off the bottom are cleared and reused for the top, and only they are restamped.
+// Pulls are kept in 256ths of a pixel. Downward a pull accelerates the player, per tick squared, but sideways it only
+// drifts the player by that much on each tick it is in reach: the player's x velocity is its arrow keys' alone, so a
+// sideways pull added to it would carry on long after the hole was left behind.
+class GravityField {
+	static final int CELL = 4;
+	// Holes pull nothing beyond this distance
+	static final int REACH = 160;
+	// The pull at distance r is STRENGTH / r^2, as if never closer than NEAREST (half of gravity at most)
+	static final double STRENGTH = 450;
+	static final int NEAREST = 2 * IConstant.BLACK_HOLE_RADIUS;
+	static final int ONE = 256;
+	// The most a pull drifts the player sideways in a tick, no faster than the arrows move it
+	static final int MAX_DRIFT = IConstant.PLAYER_X_SPEED * ONE;
+
+	static final int COLUMNS = IConstant.WINDOW_WIDTH / CELL;
+	static final int ROWS = (IConstant.WINDOW_HEIGHT + 2 * REACH) / CELL + 1;
+	// The stamp reaches this many cells each way from the hole's cell
+	static final int STAMP_REACH = REACH / CELL;
+	static final int STAMP_SIZE = 2 * STAMP_REACH + 1;
+	static final int[] STAMP_X = new int[STAMP_SIZE * STAMP_SIZE];
+	static final int[] STAMP_Y = new int[STAMP_SIZE * STAMP_SIZE];
+
+	static {
+		for (int dRow = -STAMP_REACH; dRow <= STAMP_REACH; dRow += 1) {
+			for (int dColumn = -STAMP_REACH; dColumn <= STAMP_REACH; dColumn += 1) {
+				// From the cell toward the hole
+				double x = -dColumn * CELL;
+				double y = -dRow * CELL;
+				double distance = Math.sqrt(x * x + y * y);
+				int at = (dRow + STAMP_REACH) * STAMP_SIZE + dColumn + STAMP_REACH;
+				if (distance > 0 && distance <= REACH) {
+					double pull = ONE * STRENGTH / Math.pow(Math.max(distance, NEAREST), 2);
+					STAMP_X[at] = (int) Math.round(pull * x / distance);
+					STAMP_Y[at] = (int) Math.round(pull * y / distance);
+				}
+			}
+		}
+	}
+
+	// The summed pull in each cell of the ring, row by row
+	final int[] fieldX;
+	final int[] fieldY;
+	// The world row at the top of the ring, which holds rows topRow to topRow + ROWS - 1
+	int topRow;
+	final ArrayList<GravityWell> wells;
+	// The downward pull not yet turned into whole pixels of the player's velocity
+	int carryY;
+
+	// Constructor begins with no holes and the camera at the start
+	GravityField() {
+		this.fieldX = new int[ROWS * COLUMNS];
+		this.fieldY = new int[ROWS * COLUMNS];
+		this.topRow = topRowFor(0);
+		this.wells = new ArrayList<GravityWell>();
+		this.carryY = 0;
+	}
+
+	// The top world row of the ring when the camera has risen by the given score
+	static int topRowFor(int score) {
+		return Math.floorDiv(-score - REACH, CELL);
+	}
+
+	// The index in the grid of the given world row (which must be in the ring) and column
+	int index(int row, int column) {
+		return Math.floorMod(row, ROWS) * COLUMNS + column;
+	}
+
+	// Starts pulling toward a black hole at its position on screen at the given score
+	// EFFECT: Adds the hole's stamp to the grid
+	void add(IGameComponent hole, int score) {
+		int y = (hole.topEdge() + hole.bottomEdge()) / 2 - score;
+		int x = Math.floorMod((hole.leftEdge() + hole.rightEdge()) / 2, IConstant.WINDOW_WIDTH);
+		GravityWell well = new GravityWell(hole, Math.floorDiv(y, CELL), x / CELL);
+		this.wells.add(well);
+		this.stamp(well, 1, this.topRow, this.topRow + ROWS);
+	}
+
+	// Stops pulling toward a black hole, if it was pulling
+	// EFFECT: Subtracts the hole's stamp from the grid
+	void remove(IGameComponent hole) {
+		for (int i = 0; i < this.wells.size(); i += 1) {
+			if (this.wells.get(i).hole == hole) {
+				this.stamp(this.wells.remove(i), -1, this.topRow, this.topRow + ROWS);
+				return;
+			}
+		}
+	}
+
+	// Adds the well's stamp, times the sign, to the rows from fromRow to toRow (exclusive), wrapping sideways as
+	// the player does
+	// EFFECT: Modifies the grid
+	void stamp(GravityWell well, int sign, int fromRow, int toRow) {
+		int first = Math.max(fromRow, well.row - STAMP_REACH);
+		int last = Math.min(toRow - 1, well.row + STAMP_REACH);
+		for (int row = first; row <= last; row += 1) {
+			int stampRow = (row - well.row + STAMP_REACH) * STAMP_SIZE;
+			int rowStart = this.index(row, 0);
+			for (int dColumn = -STAMP_REACH; dColumn <= STAMP_REACH; dColumn += 1) {
+				int at = rowStart + Math.floorMod(well.column + dColumn, COLUMNS);
+				this.fieldX[at] += sign * STAMP_X[stampRow + dColumn + STAMP_REACH];
+				this.fieldY[at] += sign * STAMP_Y[stampRow + dColumn + STAMP_REACH];
+			}
+		}
+	}
+
+	// Moves the ring up with the camera, reusing the rows left below it for the rows now above
+	// EFFECT: Clears and restamps the reused rows
+	void scrollTo(int score) {
+		int newTop = topRowFor(score);
+		if (newTop >= this.topRow) {
+			return;
+		}
+		// After a rise of a whole ring or more, every row is new
+		int fromRow = newTop;
+		int toRow = Math.min(this.topRow, newTop + ROWS);
+		for (int row = fromRow; row < toRow; row += 1) {
+			int start = this.index(row, 0);
+			Arrays.fill(this.fieldX, start, start + COLUMNS, 0);
+			Arrays.fill(this.fieldY, start, start + COLUMNS, 0);
+		}
+		this.topRow = newTop;
+		for (GravityWell well : this.wells) {
+			this.stamp(well, 1, fromRow, toRow);
+		}
+	}
+
+	// The pull in 256ths of a pixel at the given point on screen: sideways per tick and downward per tick squared
+	int pullX(int x, int y, int score) {
+		int at = this.cellAt(x, y, score);
+		return at < 0 ? 0 : this.fieldX[at];
+	}
+
+	int pullY(int x, int y, int score) {
+		int at = this.cellAt(x, y, score);
+		return at < 0 ? 0 : this.fieldY[at];
+	}
+
+	// The grid index of the cell holding the given point on screen, or -1 if it lies outside the ring
+	int cellAt(int x, int y, int score) {
+		int row = Math.floorDiv(y - score, CELL);
+		if (row < this.topRow || row >= this.topRow + ROWS) {
+			return -1;
+		}
+		return this.index(row, Math.floorMod(x, IConstant.WINDOW_WIDTH) / CELL);
+	}
+
+	// Drifts the player sideways and accelerates it downward by the pull where it stands, carrying fractions of a
+	// pixel over to later ticks
+	// EFFECT: Modifies the player's position and velocity and the carried pull
+	void pull(Player player, int score) {
+		if (this.wells.isEmpty()) {
+			this.carryY = 0;
+			return;
+		}
+		int at = this.cellAt(player.position.x, player.position.y, score);
+		if (at < 0) {
+			return;
+		}
+		int drift = Math.max(-MAX_DRIFT, Math.min(MAX_DRIFT, this.fieldX[at]));
+		if (drift != 0) {
+			player.displaceSideways(drift * IConstant.SUBPIXEL_ONE / ONE);
+		}
+		this.carryY += this.fieldY[at];
+		int dy = this.carryY / ONE;
+		if (dy != 0) {
+			this.carryY -= dy * ONE;
+			player.velocity = player.velocity.setY(player.velocity.y + dy);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// What pressing or releasing an arrow key asks of the player
+enum InputCommand {
+	PRESS_LEFT, PRESS_RIGHT, RELEASE_LEFT, RELEASE_RIGHT;
+
+	// The command for pressing the given key, or null if the key does nothing
+	static InputCommand pressed(String key) {
+		if (key.equals("left")) {
+			return PRESS_LEFT;
+		} else if (key.equals("right")) {
+			return PRESS_RIGHT;
+		} else {
+			return null;
+		}
+	}
+
+	// The command for releasing the given key, or null if the key does nothing
+	static InputCommand released(String key) {
+		if (key.equals("left")) {
+			return RELEASE_LEFT;
+		} else if (key.equals("right")) {
+			return RELEASE_RIGHT;
+		} else {
+			return null;
+		}
+	}
+
+	boolean isPress() {
+		return this == PRESS_LEFT || this == PRESS_RIGHT;
+	}
+
+	boolean isLeft() {
+		return this == PRESS_LEFT || this == RELEASE_LEFT;
+	}
+}
+
+// A command and when it was made, per System.nanoTime
+class InputEvent {
+	final InputCommand command;
+	final long nanos;
+	// The tick that applied this, set before it is handed on to wait for a frame
+	long appliedTick;
+
+	InputEvent(InputCommand command, long nanos) {
+		this.command = command;
+		this.nanos = nanos;
+		this.appliedTick = -1;
+	}
+}
+
+// Counts of durations in buckets that grow with the duration, eight to each power of two, so every recorded
+// duration is known to within an eighth of itself. Recording is safe from any thread and never allocates.
+class LatencyHistogram {
+	// Durations below this many nanoseconds get a bucket each
+	static final int EXACT = 16;
+	static final int SUB_BUCKETS = 8;
+	static final int BUCKETS = EXACT + (63 - 4) * SUB_BUCKETS;
+
+	final AtomicLongArray counts;
+	final AtomicLong count;
+	final AtomicLong totalNanos;
+	final AtomicLong maxNanos;
+
+	LatencyHistogram() {
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.count = new AtomicLong(0);
+		this.totalNanos = new AtomicLong(0);
+		this.maxNanos = new AtomicLong(0);
+	}
+
+	// The bucket holding the given duration
+	static int bucket(long nanos) {
+		if (nanos < EXACT) {
+			return (int) Math.max(0, nanos);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return EXACT + (exponent - 4) * SUB_BUCKETS + sub;
+	}
+
+	// The longest duration that falls in the given bucket
+	static long highestIn(int bucket) {
+		if (bucket < EXACT) {
+			return bucket;
+		}
+		int exponent = (bucket - EXACT) / SUB_BUCKETS + 4;
+		long sub = (bucket - EXACT) % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+	}
+
+	// EFFECT: Counts the duration
+	void record(long nanos) {
+		this.counts.incrementAndGet(bucket(nanos));
+		this.count.incrementAndGet();
+		this.totalNanos.addAndGet(nanos);
+		long max = this.maxNanos.get();
+		while (nanos > max && !this.maxNanos.compareAndSet(max, nanos)) {
+			max = this.maxNanos.get();
+		}
+	}
+
+	// A duration no shorter than the given fraction of those recorded, or 0 if none have been
+	long percentile(double fraction) {
+		long rank = (long) Math.ceil(fraction * this.count.get());
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket += 1) {
+			seen += this.counts.get(bucket);
+			if (seen >= Math.max(1, rank)) {
+				return Math.min(highestIn(bucket), this.maxNanos.get());
+			}
+		}
+		return 0;
+	}
+
+	// The count and spread of durations, in microseconds
+	String summary() {
+		long count = this.count.get();
+		return String.format("n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus", count,
+				count == 0 ? 0 : this.totalNanos.get() / 1000.0 / count, this.percentile(0.5) / 1000.0,
+				this.percentile(0.99) / 1000.0, this.maxNanos.get() / 1000.0);
+	}
+}
+
+// Key presses and releases in the order they were made, applied to the player at the start of each tick. The keys
+// held decide the direction, so releasing one arrow while the other is still down keeps moving the other way, and a
+// key pressed and released within one tick still moves the player for that tick, its release held over to the next
+// unless the key is pressed again in the same tick, which leaves it held.
+// Each event is timed from when it was made to the tick that applies it and to the first frame showing that tick.
+class InputQueue {
+	// Offered from the input thread, drained by the simulation
+	final ConcurrentLinkedQueue<InputEvent> waiting;
+	// Applied by the simulation, waiting to be shown in a frame
+	final ConcurrentLinkedQueue<InputEvent> unframed;
+	final LatencyHistogram toSimulation;
+	final LatencyHistogram toFrame;
+	// Which arrows the simulation has seen held down, and the direction of the one pressed last
+	boolean leftHeld;
+	boolean rightHeld;
+	int lastPressed;
+	// Releases held over from the last tick because their key was pressed during it
+	ArrayList<InputEvent> heldOver;
+
+	InputQueue() {
+		this.waiting = new ConcurrentLinkedQueue<InputEvent>();
+		this.unframed = new ConcurrentLinkedQueue<InputEvent>();
+		this.toSimulation = new LatencyHistogram();
+		this.toFrame = new LatencyHistogram();
+		this.leftHeld = false;
+		this.rightHeld = false;
+		this.lastPressed = 0;
+		this.heldOver = new ArrayList<InputEvent>();
+	}
+
+	// Queues a command made at the given time; null commands (keys that do nothing) are ignored
+	// EFFECT: Adds to the waiting events
+	void offer(InputCommand command, long nanos) {
+		if (command != null) {
+			this.waiting.add(new InputEvent(command, nanos));
+		}
+	}
+
+	// Applies every event waiting since the last tick, in order, then sets the player moving the way the held keys
+	// say. The player is left alone if nothing happened, so moves made directly on the player stand.
+	// EFFECT: Modifies the held keys, the player's x velocity and the latencies
+	void drain(Player player, long tick, long nowNanos) {
+		if (this.heldOver.isEmpty() && this.waiting.isEmpty()) {
+			return;
+		}
+		ArrayList<InputEvent> releases = this.heldOver;
+		this.heldOver = new ArrayList<InputEvent>();
+		for (InputEvent release : releases) {
+			this.apply(release, tick, nowNanos);
+		}
+		boolean pressedLeft = false;
+		boolean pressedRight = false;
+		InputEvent event = this.waiting.poll();
+		while (event != null) {
+			if (!event.command.isPress() && (event.command.isLeft() ? pressedLeft : pressedRight)) {
+				this.heldOver.add(event);
+			} else {
+				if (event.command.isPress()) {
+					this.applyHeldRelease(event.command.isLeft(), tick, nowNanos);
+				}
+				this.apply(event, tick, nowNanos);
+				pressedLeft = pressedLeft || event.command == InputCommand.PRESS_LEFT;
+				pressedRight = pressedRight || event.command == InputCommand.PRESS_RIGHT;
+			}
+			event = this.waiting.poll();
+		}
+		player.moveHorizontally(this.direction());
+	}
+
+	// Applies the release of the given arrow held over from earlier in this tick, if there is one, since the key is
+	// being pressed again and the release must not stop the player on the next tick
+	// EFFECT: Removes the release from those held over and applies it
+	void applyHeldRelease(boolean left, long tick, long nowNanos) {
+		for (int i = 0; i < this.heldOver.size(); i += 1) {
+			if (this.heldOver.get(i).command.isLeft() == left) {
+				this.apply(this.heldOver.remove(i), tick, nowNanos);
+				return;
+			}
+		}
+	}
+
+	// EFFECT: Updates the held keys, times the event and hands it on to wait for a frame
+	void apply(InputEvent event, long tick, long nowNanos) {
+		int direction = event.command.isLeft() ? -1 : 1;
+		if (event.command.isLeft()) {
+			this.leftHeld = event.command.isPress();
+		} else {
+			this.rightHeld = event.command.isPress();
+		}
+		if (event.command.isPress()) {
+			this.lastPressed = direction;
+		}
+		this.toSimulation.record(nowNanos - event.nanos);
+		event.appliedTick = tick;
+		this.unframed.add(event);
+	}
+
+	// Which way the held keys move the player: -1 for left, 1 for right, 0 for neither
+	int direction() {
+		if (this.leftHeld && this.rightHeld) {
+			return this.lastPressed;
+		} else if (this.leftHeld) {
+			return -1;
+		} else if (this.rightHeld) {
+			return 1;
+		} else {
+			return 0;
+		}
+	}
+
+	// Times every event applied by the given tick or before, now that a frame showing it is on screen
+	// EFFECT: Removes those events and records their latencies
+	void framed(long frameTick, long nowNanos) {
+		InputEvent event = this.unframed.peek();
+		while (event != null && event.appliedTick <= frameTick) {
+			this.unframed.poll();
+			this.toFrame.record(nowNanos - event.nanos);
+			event = this.unframed.peek();
+		}
+	}
+
+	// Both latencies, for logs
+	String report() {
+		return "input to simulation: " + this.toSimulation.summary() + "\ninput to frame: " + this.toFrame.summary();
+	}
+}
@@ -1,6 +1,8 @@
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javalib.impworld.*;
 import javalib.worldimages.*;
@@ -23,6 +25,12 @@ interface IConstant {
 	int PLAYER_WIDTH = 10;
 	int PLAYER_HEIGHT = 15;
 	int TERMINAL_VELOCITY = 20;
+
+	// The player's position is kept to 1/SUBPIXEL_ONE of a pixel between steps
+	int SUBPIXEL_BITS = 8;
+	int SUBPIXEL_ONE = 1 << SUBPIXEL_BITS;
+	// Steps the player moves and collides in per tick: 1 simulates at the tick rate, 4 at four times it
+	int STEPS_PER_TICK = 1;
 	
 	int ITEM_SIZE = 10;
 	
@@ -31,76 +39,210 @@ interface IConstant {
 	int BLACK_HOLE_RADIUS = 15;
 
 	Color TEXT_COLOR = Color.white;
+
+	String BACKGROUND_FILE = "earth-space.PNG";
+
+	String SPAWN_CONFIG_FILE = "spawns.cfg";
+
+	String HIGH_SCORE_FILE = "src/highscores";
+
+	String TELEMETRY_FILE = "telemetry.djt";
+
+	// Components are ticked in parallel once there are at least this many
+	int PARALLEL_TICK_THRESHOLD = 16384;
 }
 
 // To interface between the world program and the JumpingGame,
 // responding to user key presses and clock ticks
 class JumpingWorld extends World {
 	JumpingGame jg;
-	final WorldImage spaceBackground;
-
-	// Default constructor initializes default JumpingGame
+	// Scrolls behind the game as the camera rises
+	final ParallaxBackground starField;
+	// Runs the game on its own thread, or null if the game is ticked by onTick
+	SimulationLoop simulation;
+	// Every finished game's score, and whether this game's has been added along with its telemetry
+	final HighScores highScores;
+	final TelemetryWriter telemetry;
+	boolean scoreRecorded;
+	// Lowers how much is drawn when frames come later than the tick rate, and the last frame drawn and how many
+	// have been asked for
+	final QualityController quality;
+	WorldScene lastScene;
+	long frames;
+	// When the last frame was asked for, per System.nanoTime
+	long lastFrameNanos;
+
+	// Default constructor initializes default JumpingGame, ticked by the world's clock
 	JumpingWorld() {
+		this(false);
+	}
+
+	// Initializes a default JumpingGame, run on its own fixed-timestep thread if requested
+	// so that rendering only ever reads published snapshots
+	JumpingWorld(boolean threadedSimulation) {
+		this(threadedSimulation, HighScores.standard(), TelemetryWriter.standard());
+	}
+
+	// Initializes a default JumpingGame whose score is added to the given high scores, and whose telemetry is handed
+	// to the given writer, when it ends
+	JumpingWorld(boolean threadedSimulation, HighScores highScores, TelemetryWriter telemetry) {
+		// Spawn table edits take effect in the running game
+		SpawnConfigSource.standard().startWatching();
 		this.jg = new JumpingGame();
-		this.spaceBackground = new FromFileImage("earth-space.png");
+		this.jg.recordTelemetry();
+		this.starField = ParallaxBackground.starField();
+		this.highScores = highScores;
+		this.telemetry = telemetry;
+		this.scoreRecorded = false;
+		this.quality = new QualityController((long) (IConstant.TICK_RATE * 1e9));
+		this.lastScene = null;
+		this.frames = 0;
+		this.lastFrameNanos = 0;
+		if (threadedSimulation) {
+			this.simulation = new SimulationLoop(this.jg, IConstant.TICK_RATE);
+			this.simulation.start();
+		}
 	}
 
-	// Provide a visual depiction of the game onto a WorldScene
+	// Provide a visual depiction of the game onto a WorldScene, at the quality the frame times so far allow. javalib
+	// paints the scene after this returns, so a frame is timed from the last call to this one, which takes in the
+	// ticks between them and the painting of the last scene as well as the drawing of it.
+	// EFFECT: Times the last frame, which may change the quality of later frames
 	public WorldScene makeScene() {
-		WorldScene scene = new WorldScene(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT);
-		scene.placeImageXY(this.spaceBackground, IConstant.WINDOW_WIDTH / 2, IConstant.WINDOW_HEIGHT / 2);
-		this.jg.drawScene(scene);
+		long now = System.nanoTime();
+		if (this.frames > 0) {
+			this.quality.record(now - this.lastFrameNanos);
+		}
+		this.lastFrameNanos = now;
+		RenderQuality quality = this.quality.quality;
+		long frame = this.frames;
+		this.frames += 1;
+		if (this.lastScene != null && !quality.drawsFrame(frame)) {
+			return this.lastScene;
+		}
+		this.lastScene = this.drawScene(quality);
+		return this.lastScene;
+	}
 
+	// Draws the game onto a new WorldScene, leaving out what the given quality does
+	// EFFECT: Times the inputs shown in the frame
+	WorldScene drawScene(RenderQuality quality) {
+		WorldScene scene = new WorldScene(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT);
+		this.jg.itemTimers = quality.drawsItemTimers();
+		if (this.simulation == null) {
+			if (quality.drawsBackground()) {
+				this.starField.drawOntoScene(scene, this.jg.score);
+			}
+			this.jg.drawScene(scene);
+			this.jg.input.framed(Long.MAX_VALUE, System.nanoTime());
+		} else {
+			FramePair frames = this.simulation.frames.get();
+			if (quality.drawsBackground()) {
+				this.starField.drawOntoScene(scene, frames.latest.score);
+			}
+			frames.latest.drawOntoScene(scene, frames.spritesAt(System.nanoTime(), this.simulation.tickNanos));
+			this.jg.input.framed(frames.latest.tick, System.nanoTime());
+			RuntimeException failure = this.simulation.failure;
+			if (failure != null) {
+				scene.placeImageXY(new TextImage("The game stopped: " + failure, IConstant.TEXT_COLOR),
+						IConstant.WINDOW_WIDTH / 2, IConstant.WINDOW_HEIGHT / 2);
+			}
+		}
 		return scene;
 	}
 
 	// The final scene is that of the current scene with text indicating the game is
-	// lost
+	// lost (or why it stopped) and where its score stands among every game played
 	WorldScene finalScene() {
-		WorldScene scene = this.makeScene();
-		scene.placeImageXY(new TextImage("You have lost.", IConstant.TEXT_COLOR), IConstant.WINDOW_WIDTH / 2,
-				IConstant.WINDOW_HEIGHT / 2);
+		WorldScene scene = this.drawScene(this.quality.quality);
+		if (this.simulation == null || this.simulation.failure == null) {
+			scene.placeImageXY(new TextImage("You have lost.", IConstant.TEXT_COLOR), IConstant.WINDOW_WIDTH / 2,
+					IConstant.WINDOW_HEIGHT / 2);
+		}
+		scene.placeImageXY(new TextImage(this.highScores.standing(this.score()), IConstant.TEXT_COLOR),
+				IConstant.WINDOW_WIDTH / 2, IConstant.WINDOW_HEIGHT / 2 + 20);
 		return scene;
 	}
 
-	// Adjusts game elements as the result of a tick
+	// Adjusts game elements as the result of a tick, unless the game runs on its own thread
 	// EFFECT: Modifies the player, obstacles, and score in Jumping Game
 	public void onTick() {
-		this.jg.tickPlayer();
-		this.jg.tickCamera();
-		this.jg.cleanObstacles();
-		this.jg.tickComponents();
-		this.jg.addObstacles();
+		if (this.simulation == null) {
+			this.jg.tick();
+		}
 	}
 
-	// Respond to user key presses to begin horizontal player motion
-	// EFFECT: Modifies the PLayer's x velocity
+	// Respond to user key presses to begin horizontal player motion on the next tick
+	// EFFECT: Queues the press for the game
 	public void onKeyEvent(String key) {
-		if (key.equals("left")) {
-			this.jg.playerHorizontalMove("left");
-		} else if (key.equals("right")) {
-			this.jg.playerHorizontalMove("right");
-		}
+		this.jg.input.offer(InputCommand.pressed(key), System.nanoTime());
 	}
 
-	// Respond to key releases to end horizontal player motion
-	// EFFECT: Sets the Player's x velocity to 0
+	// Respond to key releases to end horizontal player motion on the next tick
+	// EFFECT: Queues the release for the game
 	public void onKeyReleased(String key) {
-		if (key.equals("left") || key.contentEquals("right")) {
-			this.jg.playerHorizontalMove("reset");
+		this.jg.input.offer(InputCommand.released(key), System.nanoTime());
+	}
+
+	// Is the game over, according to the latest snapshot if the game runs on its own thread
+	boolean gameOver() {
+		if (this.simulation == null) {
+			return this.jg.gameOver();
+		} else {
+			return this.simulation.frames.get().latest.gameOver;
+		}
+	}
+
+	// The score, according to the latest snapshot if the game runs on its own thread
+	int score() {
+		if (this.simulation == null) {
+			return this.jg.score;
+		} else {
+			return this.simulation.frames.get().latest.score;
+		}
+	}
+
+	// Adds this game's score to the high scores and hands over its telemetry to be written, once
+	// EFFECT: Modifies the high scores and queues the telemetry
+	void recordScore() {
+		if (!this.scoreRecorded) {
+			this.highScores.record(this.score());
+			this.telemetry.submit(this.jg.telemetry);
+			this.scoreRecorded = true;
 		}
 	}
 
-	// Determines if the game is lost and depicts the final scene if so
+	// Determines if the game is lost, recording its score and depicting the final scene if so
 	public WorldEnd worldEnds() {
-		if (this.jg.gameOver()) {
+		if (this.gameOver()) {
+			this.recordScore();
 			return new WorldEnd(true, this.finalScene());
 		} else {
-			return new WorldEnd(false, this.makeScene());
+			// The scene is not shown, so the last one drawn stands in rather than drawing another
+			return new WorldEnd(false, this.lastScene == null ? this.makeScene() : this.lastScene);
 		}
 	}
 }
 
+// The parts of a game's tick, in the order JumpingGame.step runs them
+enum TickPhase {
+	PLAYER, CAMERA, CLEAN, COMPONENTS, INTERACTIONS, SPAWN, TELEMETRY
+}
+
+// Told as each phase of a game's tick ends, so that the phases can be timed; the player phase ends once per step
+interface ITickPhaseListener {
+	// EFFECT: Depends on the listener
+	void ended(TickPhase phase);
+}
+
+// The default listener, for games nobody is timing
+class NoPhaseListener implements ITickPhaseListener {
+	// Ignores the phase
+	public void ended(TickPhase phase) {
+		return;
+	}
+}
+
 // To represent the player, environment, and obstacles
 class JumpingGame {
 	final Player player;
@@ -111,34 +253,137 @@ class JumpingGame {
 	IComponentGenerator hazardGen;
 	IComponentGenerator itemGen;
 
+	// Predicts when platforms can be landed on so they are not tested on every tick
+	CollisionScheduler collisionScheduler;
+	// Finds components touching one another
+	SweepAndPrune broadphase;
+	// Where the player and components report what happens during a tick, for consumers on other threads
+	final GameEventBus events;
+	// Key presses and releases waiting for the next tick
+	final InputQueue input;
+	// The pull of the black holes on the player
+	final GravityField gravity;
+	// Moves every component that follows a path
+	final MotionSystem motion;
+	// Samples the game after every tick, or null if nobody keeps this game's telemetry
+	TelemetryRecorder telemetry;
+	// How many components of each kind are in play, by ComponentKind ordinal
+	final int[] kindCounts;
+	// Told as each phase of a tick ends
+	ITickPhaseListener phases;
+	// Components are ticked in parallel when there are at least this many, and one after another otherwise
+	int parallelThreshold;
+	// Whether the player's item is drawn shrinking with its time left, which the renderer turns off when frames run
+	// late
+	volatile boolean itemTimers;
+
 	int score;
 
 	// Default constructor begins game with the player part-way up the screen and a
 	// platform below
 	JumpingGame() {
+		this(new PlatformGenerator(), new HazardGenerator(), new ItemGenerator());
+	}
+
+	// Begins the game on the given platform generator's starting layout
+	JumpingGame(PlatformGenerator platformGen, IComponentGenerator hazardGen, IComponentGenerator itemGen) {
+		this(platformGen.startingPlatforms(), platformGen, hazardGen, itemGen);
+	}
+
+	// Begins the game on a pre-baked level, every component of which comes from the level file
+	JumpingGame(LevelFile level) {
+		this(level.initialComponents(), level.stream(), new NoComponents(), new NoComponents());
+	}
+
+	// Begins the game with the player part-way up the screen among the given components
+	JumpingGame(ArrayList<IGameComponent> gamePieces, IComponentGenerator platformGen,
+			IComponentGenerator hazardGen, IComponentGenerator itemGen) {
 		Vector2D startPos = new Vector2D(IConstant.WINDOW_WIDTH / 2, 2 * IConstant.WINDOW_HEIGHT / 3);
 		Vector2D startVel = new Vector2D(0, 0);
 		this.player = new Player(startPos, startVel);
-		this.gamePieces = this.initializePlatforms();
+		this.gamePieces = gamePieces;
 		this.score = 0;
-		this.platformGen = new PlatformGenerator();
-		this.hazardGen = new HazardGenerator();
-		this.itemGen = new ItemGenerator();
-	}
-
-	// Returns an initial list of standard platforms that guarantees one just below
-	// the player spawn
-	ArrayList<IGameComponent> initializePlatforms() {
-		ArrayList<IGameComponent> plts = new ArrayList<IGameComponent>();
-		// Add a platform below the player
-		plts.add(new StandardPlatform(new Vector2D(IConstant.WINDOW_WIDTH / 2, 9 * IConstant.WINDOW_HEIGHT / 10)));
-		// A dummy ObstacleGenerator just to use .randomHorizontal
-		PlatformGenerator og = new PlatformGenerator();
-		for (int height = 1; height < 10; height += 1) {
-			plts.add(new StandardPlatform(new Vector2D(og.randomHorizontal(), height * IConstant.WINDOW_HEIGHT / 10)));
+		this.platformGen = platformGen;
+		this.hazardGen = hazardGen;
+		this.itemGen = itemGen;
+		this.collisionScheduler = new CollisionScheduler();
+		this.broadphase = new SweepAndPrune();
+		this.events = new GameEventBus(1024);
+		this.player.events = this.events;
+		this.input = new InputQueue();
+		this.motion = new MotionSystem(64);
+		this.telemetry = null;
+		this.kindCounts = new int[ComponentKind.values().length];
+		for (IGameComponent component : gamePieces) {
+			this.kindCounts[component.kind().ordinal()] += 1;
+		}
+		this.phases = new NoPhaseListener();
+		this.gravity = new GravityField();
+		for (IGameComponent component : gamePieces) {
+			if (component.kind() == ComponentKind.BLACK_HOLE) {
+				this.gravity.add(component, 0);
+			}
+		}
+		// With a single core there is nothing to gain from splitting the work
+		this.parallelThreshold = Runtime.getRuntime().availableProcessors() > 1 ? IConstant.PARALLEL_TICK_THRESHOLD
+				: Integer.MAX_VALUE;
+		this.itemTimers = true;
+	}
+
+	// Advances the game by one tick
+	// EFFECT: Modifies the player, obstacles, and score
+	void tick() {
+		do {
+			this.step();
+		} while (this.player.step != 0);
+	}
+
+	// Advances the game by one of the player's steps. The first step begins a tick, every step applies waiting key
+	// presses and moves the player, and the last step finishes the tick with the camera and the components, which
+	// move once per tick whatever the simulation rate.
+	// EFFECT: Modifies the player, and the obstacles and score after a tick's last step
+	void step() {
+		if (this.player.step == 0) {
+			this.events.nextTick();
+		}
+		this.input.drain(this.player, this.events.tick, System.nanoTime());
+		this.stepPlayer();
+		this.phases.ended(TickPhase.PLAYER);
+		if (this.player.step == 0) {
+			this.tickCamera();
+			this.phases.ended(TickPhase.CAMERA);
+			this.cleanObstacles();
+			this.phases.ended(TickPhase.CLEAN);
+			this.tickComponents();
+			this.phases.ended(TickPhase.COMPONENTS);
+			this.tickInteractions();
+			this.phases.ended(TickPhase.INTERACTIONS);
+			this.addObstacles();
+			this.phases.ended(TickPhase.SPAWN);
+			if (this.telemetry != null) {
+				this.telemetry.sample(this);
+			}
+			this.phases.ended(TickPhase.TELEMETRY);
+		}
+	}
+
+	// Samples the game after every tick from now on, for a run whose telemetry is kept
+	// EFFECT: Starts a new recorder
+	void recordTelemetry() {
+		this.telemetry = new TelemetryRecorder();
+	}
+
+	// Splits each tick of the player's motion into the given number of steps, which moves the player through fractions
+	// of a pixel along the same path it takes at one step per tick and applies key presses sooner
+	// EFFECT: Modifies the player's steps per tick
+	void simulateAt(int stepsPerTick) {
+		if (stepsPerTick <= 0) {
+			throw new IllegalArgumentException("Must take at least one step per tick.");
 		}
-		
-		return plts;
+		if (this.player.step != 0) {
+			throw new RuntimeException("Cannot change the simulation rate part way through a tick.");
+		}
+		this.player.steps = stepsPerTick;
 	}
 
 	// Adjusts the perspective to follow the player upwards and increases the score
@@ -160,20 +405,30 @@ class JumpingGame {
 			this.platformGen.addToHeightSoFar(-displacement);
 			this.hazardGen.addToHeightSoFar(-displacement);
 			this.itemGen.addToHeightSoFar(-displacement);
+			this.gravity.scrollTo(this.score);
 		}
 		if (this.player.displacementFromCamera() < 0) {
 			throw new RuntimeException("Player displacement not fixed.");
 		}
 	}
 
-	// Have the player undergo actions for one tick by moving as normal unless
-	// a collision is about to occur
+	// Takes one of the player's steps. Everything that acts on the player acts on a tick's first step, as it would
+	// if the tick were taken whole: the pull of black holes, then the components the collision scheduler cannot rule
+	// out this tick, tested against the whole tick's move, then the player's item. The later steps only move the
+	// player, so it follows the same path at any number of steps per tick.
 	// EFFECT: Modifies the player according to a move or a collision
-	void tickPlayer() {
-		for (IGameComponent component : this.gamePieces) {
-			component.interactPlayer(this.player);
+	void stepPlayer() {
+		if (this.player.step == 0) {
+			this.gravity.pull(this.player, this.score);
+			this.collisionScheduler.beginTick(this.player, this.gamePieces);
+			for (IGameComponent component : this.gamePieces) {
+				if (this.collisionScheduler.needsTest(component)) {
+					component.interactPlayer(this.player);
+				}
+			}
+			this.player.tickItem();
 		}
-		this.player.tickPlayer();
+		this.player.moveStep();
 	}
 
 	// Begin or end horizontal movement for the player
@@ -192,17 +447,40 @@ class JumpingGame {
 	// Provides a visual depiction of the player, obstacles, and environment
 	// EFFECT: Places images onto the background
 	void drawScene(WorldScene background) {
-		// Draw player
-		this.player.drawOntoScene(background);
-		// Draw all game components
-		for (IGameComponent component : gamePieces) {
-			component.drawOntoScene(background);
+		this.snapshot(0).drawOntoScene(background);
+	}
+
+	// Draws the player, obstacles, and score with the given Java2D renderer instead of javalib
+	// EFFECT: Modifies and returns the renderer's frame image
+	java.awt.image.BufferedImage drawScene(Java2DRenderer renderer) {
+		return renderer.render(this.snapshot(0));
+	}
+
+	// Describes the player and then every game component that is at least partly on screen as sprites,
+	// with the components' sprites batched by shape and color
+	// EFFECT: Adds sprites to the given list
+	void addSprites(SpriteList sprites) {
+		this.player.addSprites(sprites, this.itemTimers);
+		int componentStart = sprites.size;
+		for (IGameComponent component : this.gamePieces) {
+			if (this.onScreen(component)) {
+				component.addSprites(sprites);
+			}
 		}
+		sprites.batchFrom(componentStart);
+	}
 
-		// Display the score on screen
-		String scoreText = "Score: " + Integer.toString(this.score);
-		TextImage scoreTextImg = new TextImage(scoreText, IConstant.TEXT_COLOR);
-		background.placeImageXY(scoreTextImg, 9 * IConstant.WINDOW_WIDTH / 10, 9 * IConstant.WINDOW_HEIGHT / 10);
+	// Does any part of the component's bounding box lie within the window?
+	boolean onScreen(IGameComponent component) {
+		return component.bottomEdge() >= 0 && component.topEdge() <= IConstant.WINDOW_HEIGHT
+				&& component.rightEdge() >= 0 && component.leftEdge() <= IConstant.WINDOW_WIDTH;
+	}
+
+	// An immutable picture of the game as it stands after the given tick
+	FrameSnapshot snapshot(long tick) {
+		SpriteList sprites = new SpriteList(2 * this.gamePieces.size() + 2);
+		this.addSprites(sprites);
+		return new FrameSnapshot(tick, this.score, this.gameOver(), sprites, System.nanoTime());
 	}
 
 	// Removes obstacles from the game as appropriate (usually if below the screen
@@ -213,6 +491,12 @@ class JumpingGame {
 		for (IGameComponent component : this.gamePieces) {
 			if (!component.shouldRemove()) {
 				componentsToKeep.add(component);
+			} else {
+				this.kindCounts[component.kind().ordinal()] -= 1;
+				this.collisionScheduler.forget(component);
+				if (component.kind() == ComponentKind.BLACK_HOLE) {
+					this.gravity.remove(component);
+				}
 			}
 		}
 		this.gamePieces = componentsToKeep;
@@ -222,22 +506,82 @@ class JumpingGame {
 	// has been gained since the last obstacle
 	// EFFECT: Adds elements to this' ArrayList of IGameComponents
 	void addObstacles() {
-		if (this.platformGen.hasNextComponent()) {
-			this.gamePieces.add(this.platformGen.nextComponent());
+		while (this.platformGen.hasNextComponent()) {
+			this.addComponent(this.platformGen.nextComponent());
+		}
+		while (this.hazardGen.hasNextComponent()) {
+			this.addComponent(this.hazardGen.nextComponent());
 		}
-		if (this.hazardGen.hasNextComponent()) {
-			this.gamePieces.add(this.hazardGen.nextComponent());
+		while (this.itemGen.hasNextComponent()) {
+			this.addComponent(this.itemGen.nextComponent());
 		}
-		if (this.itemGen.hasNextComponent()) {
-			this.gamePieces.add(this.itemGen.nextComponent());
+	}
+
+	// Adds a newly generated component to the game
+	// EFFECT: Adds to this' game pieces, schedules the component's collisions and reports its spawn
+	void addComponent(IGameComponent component) {
+		this.gamePieces.add(component);
+		this.kindCounts[component.kind().ordinal()] += 1;
+		this.collisionScheduler.track(component);
+		this.broadphase.add(component);
+		if (component.kind() == ComponentKind.BLACK_HOLE) {
+			this.gravity.add(component, this.score);
 		}
+		this.events.publish(GameEventType.COMPONENT_SPAWNED, (component.leftEdge() + component.rightEdge()) / 2,
+				(component.topEdge() + component.bottomEdge()) / 2, component.kind().ordinal());
 	}
 
 	// Moves obstacles that have movement
 	// EFFECT: Calls the tick function on all of this' platforms
+	// Each component's own tick only changes that component, so with enough of them the list is split across the
+	// common fork-join pool, and the result is the same as ticking them in order. Components following paths are
+	// then moved together by the motion system.
 	void tickComponents() {
-		for (IGameComponent comp : this.gamePieces) {
-			comp.tickComponent();
+		if (this.gamePieces.size() >= this.parallelThreshold) {
+			ForkJoinPool.commonPool().invoke(new ComponentTicks(this.gamePieces, 0, this.gamePieces.size()));
+		} else {
+			for (IGameComponent comp : this.gamePieces) {
+				comp.tickComponent();
+			}
+		}
+		this.motion.sync(this.gamePieces);
+		this.motion.advance();
+	}
+
+	// Has moving components that touch one another react to each other
+	// EFFECT: Modifies components that are in contact
+	void tickInteractions() {
+		this.broadphase.interactPairs();
+	}
+}
+
+// Ticks a range of components, splitting it in half until the pieces are small enough to tick in order
+class ComponentTicks extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	// Ranges no bigger than this are ticked on one worker
+	static final int LEAF_SIZE = 2048;
+
+	final ArrayList<IGameComponent> components;
+	final int from;
+	final int to;
+
+	// Constructor takes the range of indices from (inclusive) to (exclusive)
+	ComponentTicks(ArrayList<IGameComponent> components, int from, int to) {
+		this.components = components;
+		this.from = from;
+		this.to = to;
+	}
+
+	// EFFECT: Ticks every component in the range
+	protected void compute() {
+		if (this.to - this.from <= LEAF_SIZE) {
+			for (int i = this.from; i < this.to; i += 1) {
+				this.components.get(i).tickComponent();
+			}
+		} else {
+			int middle = (this.from + this.to) >>> 1;
+			invokeAll(new ComponentTicks(this.components, this.from, middle),
+					new ComponentTicks(this.components, middle, this.to));
 		}
 	}
 }
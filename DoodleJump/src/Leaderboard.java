@@ -0,0 +1,179 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Counts of past scores in buckets of equal width, kept as a Fenwick tree so that adding a score, counting the scores
+// above or below one, and finding the score at a rank each take one walk of O(log buckets) steps however many runs
+// have been counted. Scores in one bucket are ties; scores past the last bucket all count as the last bucket.
+class ScoreIndex {
+	static final int BUCKET_WIDTH = 10;
+	static final int BUCKETS = 1 << 16;
+
+	// tree[i] holds the count of the buckets (i - lowest bit of i, i], numbering buckets from 1
+	final long[] tree;
+	long total;
+
+	ScoreIndex() {
+		this.tree = new long[BUCKETS + 1];
+		this.total = 0;
+	}
+
+	// An index of the scores counted in each bucket, built in one pass rather than a walk per score
+	static ScoreIndex of(long[] bucketCounts) {
+		if (bucketCounts.length != BUCKETS) {
+			throw new IllegalArgumentException("Expected " + BUCKETS + " bucket counts but got " + bucketCounts.length);
+		}
+		ScoreIndex index = new ScoreIndex();
+		for (int i = 1; i <= BUCKETS; i += 1) {
+			index.tree[i] += bucketCounts[i - 1];
+			index.total += bucketCounts[i - 1];
+			int parent = i + (i & -i);
+			if (parent <= BUCKETS) {
+				index.tree[parent] += index.tree[i];
+			}
+		}
+		return index;
+	}
+
+	// The bucket (from 0) holding the given score
+	static int bucket(int score) {
+		return Math.min(Math.max(score, 0) / BUCKET_WIDTH, BUCKETS - 1);
+	}
+
+	// EFFECT: Counts one more run with the given score
+	void add(int score) {
+		for (int i = bucket(score) + 1; i <= BUCKETS; i += i & -i) {
+			this.tree[i] += 1;
+		}
+		this.total += 1;
+	}
+
+	// The number of runs in the buckets up to and including the given one
+	long countThrough(int bucket) {
+		long count = 0;
+		for (int i = bucket + 1; i > 0; i -= i & -i) {
+			count += this.tree[i];
+		}
+		return count;
+	}
+
+	// The number of runs that scored lower than the given score (in a lower bucket)
+	long countBelow(int score) {
+		return this.countThrough(bucket(score) - 1);
+	}
+
+	// The number of runs that scored higher than the given score (in a higher bucket)
+	long countAbove(int score) {
+		return this.total - this.countThrough(bucket(score));
+	}
+
+	// Where the given score places among the runs counted, 1 being the best, sharing a rank with its ties
+	long rank(int score) {
+		return this.countAbove(score) + 1;
+	}
+
+	// The percentage of the runs counted that the given score beat, or 100 if none have been counted
+	double percentile(int score) {
+		if (this.total == 0) {
+			return 100;
+		}
+		return 100.0 * this.countBelow(score) / this.total;
+	}
+
+	// The lowest score in the bucket of the run at the given rank, counting from the best
+	int scoreAtRank(long rank) {
+		if (rank < 1 || rank > this.total) {
+			throw new IllegalArgumentException("Rank " + rank + " is not between 1 and " + this.total);
+		}
+		// Walk down the tree to the last bucket with fewer than the wanted number of runs through it
+		long wanted = this.total - rank + 1;
+		int at = 0;
+		for (int step = Integer.highestOneBit(BUCKETS); step > 0; step >>= 1) {
+			if (at + step <= BUCKETS && this.tree[at + step] < wanted) {
+				at += step;
+				wanted -= this.tree[at];
+			}
+		}
+		return at * BUCKET_WIDTH;
+	}
+}
+
+// The scores of every finished game, one per line of a text file, indexed as they are read and as each game ends.
+// Lines that are not scores are skipped, and a file that cannot be read or written leaves the index as it was, so
+// a broken file never stops a game.
+class HighScores {
+	static HighScores standard;
+
+	final Path file;
+	final ScoreIndex index;
+	// Why the file last failed to be read or written, or null if it has not
+	volatile String lastError;
+
+	// Constructor indexes the scores in the given file if it exists
+	HighScores(Path file) {
+		this.file = file;
+		this.lastError = null;
+		this.index = this.load();
+	}
+
+	// Constructor indexes no scores and keeps them in no file
+	HighScores() {
+		this.file = null;
+		this.lastError = null;
+		this.index = new ScoreIndex();
+	}
+
+	// The scores shared by every game, kept in the standard high score file
+	static synchronized HighScores standard() {
+		if (standard == null) {
+			standard = new HighScores(Paths.get(IConstant.HIGH_SCORE_FILE));
+		}
+		return standard;
+	}
+
+	// Counts the scores in the file by bucket and builds the index from the counts
+	// EFFECT: Records any error reading the file
+	ScoreIndex load() {
+		long[] counts = new long[ScoreIndex.BUCKETS];
+		if (this.file != null && Files.exists(this.file)) {
+			try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+				String line = reader.readLine();
+				while (line != null) {
+					try {
+						counts[ScoreIndex.bucket(Integer.parseInt(line.trim()))] += 1;
+					} catch (NumberFormatException e) {
+						// Skip the line
+					}
+					line = reader.readLine();
+				}
+			} catch (IOException e) {
+				this.lastError = e.getMessage();
+			}
+		}
+		return ScoreIndex.of(counts);
+	}
+
+	// Counts the score of a game that has ended and adds it to the end of the file
+	// EFFECT: Modifies the index and the file, or records why the file could not be written
+	synchronized void record(int score) {
+		this.index.add(score);
+		if (this.file != null) {
+			try {
+				Files.write(this.file, (score + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+						StandardOpenOption.APPEND);
+			} catch (IOException e) {
+				this.lastError = e.getMessage();
+			}
+		}
+	}
+
+	// Where the given score stands among every game recorded, for the final screen
+	synchronized String standing(int score) {
+		return String.format("Rank %d of %d, better than %.1f%% of games", this.index.rank(score), this.index.total,
+				this.index.percentile(score));
+	}
+}
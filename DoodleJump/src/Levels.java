@@ -0,0 +1,293 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Random;
+
+// A pre-baked layout: every component of a seeded game up to some height, in a file of records sorted by altitude
+// (height above the start) and grouped into chunks of equal height, each listed in a table so one can be mapped
+// without reading the rest. The file is laid out as
+//
+//   header: "DJLV", version, seed, chunk height, chunk count, record count
+//   chunk table: for each chunk, the file offset of its first record and its number of records
+//   records: altitude, x, kind, item kind, parameter (x velocity, or ethereal cycle or path position)
+//
+// Chunk c holds altitudes below (c + 1) times the chunk height; the first chunk also begins with the starting
+// platforms, whose altitudes are zero or below.
+class LevelFile {
+	static final int MAGIC = 0x444A4C56;
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 8;
+	static final int CHUNK_ENTRY_BYTES = 8 + 4;
+	static final int RECORD_BYTES = 4 + 2 + 1 + 1 + 4;
+	static final int DEFAULT_CHUNK_HEIGHT = 4096;
+
+	static final ComponentKind[] KINDS = ComponentKind.values();
+	static final ItemKind[] ITEMS = ItemKind.values();
+
+	final FileChannel channel;
+	final long seed;
+	final int chunkHeight;
+	final int chunkCount;
+	final long recordCount;
+	// The mapped chunk table
+	final MappedByteBuffer chunks;
+
+	// Constructor opens the level file and maps its chunk table
+	LevelFile(File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath());
+		ByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			this.channel.close();
+			throw new IOException("Not a level file: " + file);
+		}
+		this.seed = header.getLong();
+		this.chunkHeight = header.getInt();
+		this.chunkCount = header.getInt();
+		this.recordCount = header.getLong();
+		this.chunks = this.channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+				(long) CHUNK_ENTRY_BYTES * this.chunkCount);
+	}
+
+	// Maps the records of the given chunk
+	MappedByteBuffer mapChunk(int chunk) {
+		long offset = this.chunks.getLong(chunk * CHUNK_ENTRY_BYTES);
+		int count = this.chunks.getInt(chunk * CHUNK_ENTRY_BYTES + 8);
+		try {
+			return this.channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) RECORD_BYTES * count);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// The components on screen when the game starts
+	ArrayList<IGameComponent> initialComponents() {
+		ArrayList<IGameComponent> components = new ArrayList<IGameComponent>();
+		ByteBuffer records = this.mapChunk(0);
+		while (records.hasRemaining() && records.getInt(records.position()) <= 0) {
+			components.add(decode(records, 0));
+		}
+		return components;
+	}
+
+	// A generator producing the rest of the level's components as their altitudes are reached
+	LevelStream stream() {
+		return new LevelStream(this);
+	}
+
+	// EFFECT: Closes the file
+	void close() throws IOException {
+		this.channel.close();
+	}
+
+	// Writes the component spawned at the given altitude as a record
+	// EFFECT: Adds to the buffer
+	static void encode(ByteBuffer records, IGameComponent component, int altitude) {
+		int param = 0;
+		ItemKind item = ItemKind.NONE;
+		if (component instanceof HorizontalMovingPlatform || component instanceof Monster) {
+			param = ((AGameComponent) component).xVel();
+		} else if (component instanceof PathPlatform) {
+			param = ((PathPlatform) component).phase();
+		} else if (component instanceof EtherealPlatform) {
+			param = ((EtherealPlatform) component).ticksElapsed;
+		} else if (component instanceof EnvironmentItem) {
+			item = ((EnvironmentItem) component).item.kind();
+		}
+		records.putInt(altitude);
+		records.putShort((short) ((component.leftEdge() + component.rightEdge()) / 2));
+		records.put((byte) component.kind().ordinal());
+		records.put((byte) item.ordinal());
+		records.putInt(param);
+	}
+
+	// Reads the next record as a component, placed on screen for the given score
+	// EFFECT: Advances the buffer past the record
+	static IGameComponent decode(ByteBuffer records, int score) {
+		int altitude = records.getInt();
+		Vector2D position = new Vector2D(records.getShort(), score - altitude);
+		ComponentKind kind = KINDS[records.get()];
+		ItemKind item = ITEMS[records.get()];
+		int param = records.getInt();
+		switch (kind) {
+		case MOVING_PLATFORM:
+			return new HorizontalMovingPlatform(position, param);
+		case BRITTLE_PLATFORM:
+			return new BrittlePlatform(position);
+		case SPRING_PLATFORM:
+			return new SpringPlatform(position);
+		case ETHEREAL_PLATFORM:
+			return new EtherealPlatform(position, param);
+		case VERTICAL_PLATFORM:
+		case DIAGONAL_PLATFORM:
+		case CIRCLING_PLATFORM:
+		case SINKING_PLATFORM:
+			return new PathPlatform(kind, position, param);
+		case MONSTER:
+			return new Monster(position, param);
+		case BLACK_HOLE:
+			return new BlackHole(position);
+		case ITEM:
+			if (item == ItemKind.PROPELLER_HAT) {
+				return new EnvironmentItem(position, new PropellerHat());
+			} else if (item == ItemKind.JET_PACK) {
+				return new EnvironmentItem(position, new JetPack());
+			} else {
+				return new EnvironmentItem(position, new Shield());
+			}
+		default:
+			return new StandardPlatform(position);
+		}
+	}
+
+	// Plays the seeded generators up to the given height, one pixel at a time, and writes every component they make
+	// to a level file. Records are written chunk by chunk, so only one chunk is ever held in memory.
+	// EFFECT: Replaces the file
+	static void compile(File file, long seed, int height, int chunkHeight, SpawnConfig config) throws IOException {
+		SpawnConfigSource spawns = new SpawnConfigSource(config);
+		PlatformGenerator platforms = new PlatformGenerator(spawns, new Random(seed));
+		IComponentGenerator[] generators = { platforms, new HazardGenerator(spawns, new Random(seed + 1)),
+				new ItemGenerator(spawns, new Random(seed + 2)) };
+		ArrayList<IGameComponent> start = platforms.startingPlatforms();
+		int chunkCount = height / chunkHeight + 1;
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(0);
+			FileChannel out = raf.getChannel();
+			ByteBuffer table = ByteBuffer.allocate(CHUNK_ENTRY_BYTES * chunkCount);
+			long offset = HEADER_BYTES + table.capacity();
+			long recordCount = 0;
+			ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * 1024);
+
+			// The starting platforms begin the first chunk, in the order the game lists them
+			for (IGameComponent platform : start) {
+				records = ensureRoom(records);
+				encode(records, platform, -(platform.topEdge() + platform.bottomEdge()) / 2);
+			}
+			int altitude = 0;
+			for (int chunk = 0; chunk < chunkCount; chunk += 1) {
+				int chunkTop = Math.min(height, (chunk + 1) * chunkHeight - 1);
+				while (altitude < chunkTop) {
+					altitude += 1;
+					for (IComponentGenerator generator : generators) {
+						generator.addToHeightSoFar(1);
+						while (generator.hasNextComponent()) {
+							records = ensureRoom(records);
+							IGameComponent component = generator.nextComponent();
+							encode(records, component, altitude - (component.topEdge() + component.bottomEdge()) / 2);
+						}
+					}
+				}
+				records.flip();
+				int count = records.remaining() / RECORD_BYTES;
+				table.putLong(offset).putInt(count);
+				while (records.hasRemaining()) {
+					offset += out.write(records, offset);
+				}
+				recordCount += count;
+				records.clear();
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(chunkHeight).putInt(chunkCount)
+					.putLong(recordCount);
+			header.flip();
+			while (header.hasRemaining()) {
+				out.write(header, header.position());
+			}
+			table.flip();
+			while (table.hasRemaining()) {
+				out.write(table, HEADER_BYTES + table.position());
+			}
+		}
+	}
+
+	// The buffer, or a copy twice its size if it has no room for another record
+	static ByteBuffer ensureRoom(ByteBuffer records) {
+		if (records.remaining() >= RECORD_BYTES) {
+			return records;
+		}
+		ByteBuffer bigger = ByteBuffer.allocate(records.capacity() * 2);
+		records.flip();
+		bigger.put(records);
+		return bigger;
+	}
+
+	// Usage: LevelFile <output file> [seed] [height]
+	public static void main(String[] args) throws IOException {
+		File file = new File(args.length > 0 ? args[0] : "daily.level");
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+		int height = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+		long start = System.nanoTime();
+		compile(file, seed, height, DEFAULT_CHUNK_HEIGHT, SpawnConfigSource.standard().current());
+		long compiled = System.nanoTime();
+		LevelFile level = new LevelFile(file);
+		JumpingGame game = new JumpingGame(level);
+		long opened = System.nanoTime();
+		System.out.println("Compiled " + level.recordCount + " components in " + level.chunkCount + " chunks ("
+				+ file.length() / 1024 + " KiB) in " + (compiled - start) / 1000000 + " ms");
+		System.out.println("Opened and started a game with " + game.gamePieces.size() + " components in "
+				+ (opened - compiled) / 1000 + " us");
+		level.close();
+	}
+}
+
+// Produces a level file's components as the camera rises to their altitudes, mapping one chunk of the file at a
+// time, so a level of any height starts at once and keeps almost nothing on the heap
+class LevelStream implements IComponentGenerator {
+	final LevelFile level;
+	// The chunk being read and its mapped records
+	int chunk;
+	MappedByteBuffer records;
+	// Height gained since the game began (the score)
+	int totalHeight;
+
+	// Constructor begins after the starting components of the first chunk
+	LevelStream(LevelFile level) {
+		this.level = level;
+		this.chunk = 0;
+		this.records = level.mapChunk(0);
+		while (this.records.hasRemaining() && this.records.getInt(this.records.position()) <= 0) {
+			this.records.position(this.records.position() + LevelFile.RECORD_BYTES);
+		}
+		this.totalHeight = 0;
+	}
+
+	// Is there another record, mapping later chunks as earlier ones run out?
+	// EFFECT: May map the next chunk with records
+	boolean hasRecord() {
+		while (!this.records.hasRemaining() && this.chunk + 1 < this.level.chunkCount) {
+			this.chunk += 1;
+			this.records = this.level.mapChunk(this.chunk);
+		}
+		return this.records.hasRemaining();
+	}
+
+	// The next component is ready once the camera has risen to its altitude
+	public boolean hasNextComponent() {
+		return this.hasRecord() && this.records.getInt(this.records.position()) <= this.totalHeight;
+	}
+
+	// Returns the next component, placed where its altitude is on screen now
+	// EFFECT: Advances past its record
+	public IGameComponent nextComponent() {
+		if (!this.hasNextComponent()) {
+			throw new RuntimeException("Not ready for another component.");
+		}
+		return LevelFile.decode(this.records, this.totalHeight);
+	}
+
+	// EFFECT: Adds to the height gained
+	public void addToHeightSoFar(int amt) {
+		this.totalHeight += amt;
+	}
+
+	// Components come at the altitudes recorded rather than after a spacing
+	public int heightSoFar() {
+		return 0;
+	}
+}
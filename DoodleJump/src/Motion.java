@@ -0,0 +1,340 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// The ways a component can move along a path
+enum MotionType {
+	// Straight at a constant velocity, reversing off the sides of the screen (and off the ends of a vertical range)
+	BOUNCE,
+	// Back and forth along a line through the anchor, on a sine wave
+	SINE,
+	// Round a circle about the anchor
+	CIRCLE,
+	// Still until the player lands on it, then falling at a constant speed
+	SINK_ON_HIT
+}
+
+// A description of how to move, shared by every component that moves the same way. Waves and circles are worked
+// out for every tick of one period in advance, so following them takes no trigonometry.
+class MotionPath {
+	// Shared horizontal bounces for the speeds the generators use
+	static final int CACHED_SPEED = 32;
+	static final MotionPath[] HORIZONTAL = new MotionPath[2 * CACHED_SPEED + 1];
+
+	static {
+		for (int speed = -CACHED_SPEED; speed <= CACHED_SPEED; speed += 1) {
+			HORIZONTAL[speed + CACHED_SPEED] = new MotionPath(MotionType.BOUNCE, speed, 0, 0, 1, null, null);
+		}
+	}
+
+	// The paths of the platforms that move other than side to side
+	static final MotionPath VERTICAL = sine(0, 40, 90);
+	static final MotionPath DIAGONAL = sine(40, 40, 120);
+	static final MotionPath CIRCLING = circle(30, 120);
+	static final MotionPath SINKING = sinkOnHit(3);
+
+	final MotionType type;
+	// Starting velocity of a bounce, or falling speed once hit
+	final int xVel;
+	final int yVel;
+	// How far a bounce may go up or down from where it began (0 for no limit)
+	final int range;
+	// Ticks in one trip round a wave or circle, and the offset from the anchor on each of them
+	final int period;
+	final int[] offsetXs;
+	final int[] offsetYs;
+
+	MotionPath(MotionType type, int xVel, int yVel, int range, int period, int[] offsetXs, int[] offsetYs) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("Period must be positive.");
+		}
+		this.type = type;
+		this.xVel = xVel;
+		this.yVel = yVel;
+		this.range = range;
+		this.period = period;
+		this.offsetXs = offsetXs;
+		this.offsetYs = offsetYs;
+	}
+
+	// Side to side at the given velocity, shared between components moving at the same speed
+	static MotionPath horizontal(int xVel) {
+		if (Math.abs(xVel) <= CACHED_SPEED) {
+			return HORIZONTAL[xVel + CACHED_SPEED];
+		}
+		return bounce(xVel, 0, 0);
+	}
+
+	// At the given velocity, off the sides of the screen and no further than range up or down (0 for no limit)
+	static MotionPath bounce(int xVel, int yVel, int range) {
+		return new MotionPath(MotionType.BOUNCE, xVel, yVel, range, 1, null, null);
+	}
+
+	// Back and forth up to the given distances from the anchor, once every period ticks
+	static MotionPath sine(int amplitudeX, int amplitudeY, int period) {
+		int[] xs = new int[period];
+		int[] ys = new int[period];
+		for (int tick = 0; tick < period; tick += 1) {
+			double wave = Math.sin(2 * Math.PI * tick / period);
+			xs[tick] = (int) Math.round(amplitudeX * wave);
+			ys[tick] = (int) Math.round(amplitudeY * wave);
+		}
+		return new MotionPath(MotionType.SINE, 0, 0, 0, period, xs, ys);
+	}
+
+	// Round a circle of the given radius about the anchor, once every period ticks
+	static MotionPath circle(int radius, int period) {
+		int[] xs = new int[period];
+		int[] ys = new int[period];
+		for (int tick = 0; tick < period; tick += 1) {
+			double angle = 2 * Math.PI * tick / period;
+			xs[tick] = (int) Math.round(radius * Math.cos(angle));
+			ys[tick] = (int) Math.round(radius * Math.sin(angle));
+		}
+		return new MotionPath(MotionType.CIRCLE, 0, 0, 0, period, xs, ys);
+	}
+
+	// Falling at the given speed once hit
+	static MotionPath sinkOnHit(int speed) {
+		return new MotionPath(MotionType.SINK_ON_HIT, 0, speed, 0, 1, null, null);
+	}
+
+	// Can a component on this path change height by itself? (If so the collision scheduler cannot predict when the
+	// player will land on it.)
+	boolean movesVertically() {
+		if (this.type == MotionType.BOUNCE) {
+			return this.yVel != 0;
+		}
+		if (this.type == MotionType.SINK_ON_HIT) {
+			return true;
+		}
+		for (int offset : this.offsetYs) {
+			if (offset != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
+
+// Moves components along their paths, keeping each one's motion in a slot of parallel arrays and moving them all in
+// one pass per tick, with no code in the components' own ticks. A moving component is made with its starting motion in
+// fields of its own and joins the game's motion system once it is among the game's components; from then on its slot
+// holds where it is, and the component reads its position from there rather than being given a new one every tick.
+class MotionSystem {
+	AGameComponent[] components;
+	MotionPath[] paths;
+	// The point a wave or circle is about (and where a bounce began), the current position, the current velocity
+	int[] anchorXs;
+	int[] anchorYs;
+	int[] xs;
+	int[] ys;
+	int[] xVels;
+	int[] yVels;
+	// Ticks along the path, and whether the player has landed on the component
+	int[] phases;
+	boolean[] hit;
+	// When each slot's component was last seen among the game's components
+	int[] seen;
+	int size;
+	int generation;
+
+	MotionSystem(int capacity) {
+		this.components = new AGameComponent[capacity];
+		this.paths = new MotionPath[capacity];
+		this.anchorXs = new int[capacity];
+		this.anchorYs = new int[capacity];
+		this.xs = new int[capacity];
+		this.ys = new int[capacity];
+		this.xVels = new int[capacity];
+		this.yVels = new int[capacity];
+		this.phases = new int[capacity];
+		this.hit = new boolean[capacity];
+		this.seen = new int[capacity];
+		this.size = 0;
+		this.generation = 0;
+	}
+
+	// Sets the component to move along the path from where it is, the given number of ticks along it, once it joins
+	// a motion system
+	// EFFECT: Modifies the component's path and starting motion
+	static void start(AGameComponent component, MotionPath path, int phase) {
+		component.path = path;
+		component.pathPhase = phase;
+		component.pathXVel = path.xVel;
+		component.pathHit = false;
+	}
+
+	// Puts a component in the next free slot
+	// EFFECT: Adds to this, growing the arrays if full, and points the component at its slot
+	void add(AGameComponent component, MotionPath path, int anchorX, int anchorY, int x, int y, int xVel, int yVel,
+			int phase, boolean hit) {
+		if (this.size == this.components.length) {
+			int capacity = 2 * this.size;
+			this.components = Arrays.copyOf(this.components, capacity);
+			this.paths = Arrays.copyOf(this.paths, capacity);
+			this.anchorXs = Arrays.copyOf(this.anchorXs, capacity);
+			this.anchorYs = Arrays.copyOf(this.anchorYs, capacity);
+			this.xs = Arrays.copyOf(this.xs, capacity);
+			this.ys = Arrays.copyOf(this.ys, capacity);
+			this.xVels = Arrays.copyOf(this.xVels, capacity);
+			this.yVels = Arrays.copyOf(this.yVels, capacity);
+			this.phases = Arrays.copyOf(this.phases, capacity);
+			this.hit = Arrays.copyOf(this.hit, capacity);
+			this.seen = Arrays.copyOf(this.seen, capacity);
+		}
+		int slot = this.size;
+		this.components[slot] = component;
+		this.paths[slot] = path;
+		this.anchorXs[slot] = anchorX;
+		this.anchorYs[slot] = anchorY;
+		this.xs[slot] = x;
+		this.ys[slot] = y;
+		this.xVels[slot] = xVel;
+		this.yVels[slot] = yVel;
+		this.phases[slot] = phase;
+		this.hit[slot] = hit;
+		this.seen[slot] = this.generation;
+		this.size += 1;
+		component.motion = this;
+		component.motionSlot = slot;
+	}
+
+	// Moves a component's motion into this system, from its own fields or from whichever system has it
+	// EFFECT: Modifies this, the other system if any, and the component's slot
+	void take(AGameComponent component) {
+		MotionSystem from = component.motion;
+		if (from == null) {
+			MotionPath path = component.path;
+			int phase = component.pathPhase;
+			int x = component.position.x;
+			int y = component.position.y;
+			int anchorX = x;
+			int anchorY = y;
+			if (path.offsetXs != null) {
+				anchorX -= path.offsetXs[Math.floorMod(phase, path.period)];
+				anchorY -= path.offsetYs[Math.floorMod(phase, path.period)];
+			}
+			this.add(component, path, anchorX, anchorY, x, y, component.pathXVel, path.yVel, phase,
+					component.pathHit);
+			return;
+		}
+		int at = component.motionSlot;
+		MotionPath path = from.paths[at];
+		int anchorX = from.anchorXs[at];
+		int anchorY = from.anchorYs[at];
+		int x = from.xs[at];
+		int y = from.ys[at];
+		int xVel = from.xVels[at];
+		int yVel = from.yVels[at];
+		int phase = from.phases[at];
+		boolean hit = from.hit[at];
+		from.removeSlot(at);
+		this.add(component, path, anchorX, anchorY, x, y, xVel, yVel, phase, hit);
+	}
+
+	// Empties the slot, moving the last slot into it, and leaves its component where the slot had it
+	// EFFECT: Modifies this, the removed component's position and motion, and the slot of the component moved
+	void removeSlot(int slot) {
+		AGameComponent removed = this.components[slot];
+		removed.position = new Vector2D(this.xs[slot], this.ys[slot]);
+		removed.pathPhase = this.phases[slot];
+		removed.pathXVel = this.xVels[slot];
+		removed.pathHit = this.hit[slot];
+		int last = this.size - 1;
+		if (slot != last) {
+			this.components[slot] = this.components[last];
+			this.paths[slot] = this.paths[last];
+			this.anchorXs[slot] = this.anchorXs[last];
+			this.anchorYs[slot] = this.anchorYs[last];
+			this.xs[slot] = this.xs[last];
+			this.ys[slot] = this.ys[last];
+			this.xVels[slot] = this.xVels[last];
+			this.yVels[slot] = this.yVels[last];
+			this.phases[slot] = this.phases[last];
+			this.hit[slot] = this.hit[last];
+			this.seen[slot] = this.seen[last];
+			this.components[slot].motionSlot = slot;
+		}
+		this.components[last] = null;
+		this.paths[last] = null;
+		this.size = last;
+		removed.motion = null;
+	}
+
+	// Takes on every moving component among the game's that is not yet here, and drops those no longer among them
+	// EFFECT: Modifies this and the moving components' slots
+	void sync(ArrayList<IGameComponent> gamePieces) {
+		this.generation += 1;
+		for (IGameComponent piece : gamePieces) {
+			if (piece instanceof AGameComponent) {
+				AGameComponent component = (AGameComponent) piece;
+				if (component.path != null) {
+					if (component.motion != this) {
+						this.take(component);
+					}
+					this.seen[component.motionSlot] = this.generation;
+				}
+			}
+		}
+		// Going down, each slot filled from the end has already been checked
+		for (int slot = this.size - 1; slot >= 0; slot -= 1) {
+			if (this.seen[slot] != this.generation) {
+				this.removeSlot(slot);
+			}
+		}
+	}
+
+	// Moves every component one tick along its path (which is where each component reads its position)
+	// EFFECT: Modifies the slots
+	void advance() {
+		for (int i = 0; i < this.size; i += 1) {
+			MotionPath path = this.paths[i];
+			switch (path.type) {
+			case BOUNCE:
+				int nextX = this.xs[i] + this.xVels[i];
+				if (nextX > IConstant.WINDOW_WIDTH) {
+					this.xs[i] = IConstant.WINDOW_WIDTH;
+					this.xVels[i] *= -1;
+				} else if (nextX < 0) {
+					this.xs[i] = 0;
+					this.xVels[i] *= -1;
+				} else {
+					this.xs[i] = nextX;
+				}
+				int nextY = this.ys[i] + this.yVels[i];
+				if (path.range > 0 && Math.abs(nextY - this.anchorYs[i]) > path.range) {
+					this.yVels[i] *= -1;
+				} else {
+					this.ys[i] = nextY;
+				}
+				break;
+			case SINE:
+			case CIRCLE:
+				this.phases[i] = (this.phases[i] + 1) % path.period;
+				this.xs[i] = this.anchorXs[i] + path.offsetXs[this.phases[i]];
+				this.ys[i] = this.anchorYs[i] + path.offsetYs[this.phases[i]];
+				break;
+			default:
+				if (this.hit[i]) {
+					this.ys[i] += path.yVel;
+				}
+			}
+		}
+	}
+
+	// EFFECT: Moves the slot's anchor and position down with the camera
+	void displaceDownwards(int slot, int displacement) {
+		this.anchorYs[slot] += displacement;
+		this.ys[slot] += displacement;
+	}
+
+	// EFFECT: Reverses the slot's horizontal velocity
+	void reverseX(int slot) {
+		this.xVels[slot] *= -1;
+	}
+
+	// EFFECT: Marks the slot's component as landed on
+	void hit(int slot) {
+		this.hit[slot] = true;
+	}
+}
@@ -1,3 +1,4 @@
+import java.util.ArrayList;
 import java.util.Random;
 
 // An generator that produces game components after some height has been gained
@@ -11,6 +12,28 @@ interface IComponentGenerator {
 	// Updates the progress toward the next component
 	// EFFECT: Modifies some notion of progress for this
 	void addToHeightSoFar(int amt);
+
+	// The height gained toward the next component (0 if components do not come after a spacing)
+	int heightSoFar();
+}
+
+// A generator that never produces anything
+class NoComponents implements IComponentGenerator {
+	public boolean hasNextComponent() {
+		return false;
+	}
+
+	public IGameComponent nextComponent() {
+		throw new RuntimeException("Never has a component.");
+	}
+
+	public void addToHeightSoFar(int amt) {
+		return;
+	}
+
+	public int heightSoFar() {
+		return 0;
+	}
 }
 
 // A component generator with a specific height spacing between generating components
@@ -19,20 +42,33 @@ abstract class AComponentGenerator implements IComponentGenerator {
 	int untilNext;
 	// Height gained so far
 	int heightSoFar;
+	// Height gained since the game began (the score), which picks the difficulty band
+	int totalHeight;
+	// Where the spawn tables come from, read afresh for every component so config changes apply at once
+	final SpawnConfigSource spawns;
+	final Random random;
 	
 	// Constructor initializes this with the given spacing and 0 progress so far
-	AComponentGenerator(int untilNext) {
+	AComponentGenerator(int untilNext, SpawnConfigSource spawns, Random random) {
 		if (untilNext <= 0) {
 			throw new IllegalArgumentException("Spacing must be positive.");
 		}
 		this.untilNext = untilNext;
 		this.heightSoFar = 0;
+		this.totalHeight = 0;
+		this.spawns = spawns;
+		this.random = random;
 	}
 	
 	// Updates the progress toward the next component
 	// EFFECT: Modifies some notion of progress for this
 	public void addToHeightSoFar(int amt) {
 		this.heightSoFar += amt;
+		this.totalHeight += amt;
+	}
+
+	public int heightSoFar() {
+		return this.heightSoFar;
 	}
 	
 	// A new component is ready if the height gained meets the requirement
@@ -57,11 +93,21 @@ abstract class AComponentGenerator implements IComponentGenerator {
 	// Given that the next component is ready, produces it
 	abstract IGameComponent generateComponent();
 
+	// The spawn tables and speeds for the current score
+	DifficultyBand band() {
+		return this.spawns.current().band(this.totalHeight);
+	}
+
+	// Returns a random horizontal velocity up to the given speed in either direction
+	int randomXVel(int speed) {
+		return this.random.nextInt(2 * speed + 1) - speed;
+	}
+
 	// Returns a moving platform at the top of the screen with a random horizontal
 	// position
-	// and random horizontal velocity between -10 and 10
+	// and random horizontal velocity up to the band's speed (10 at first) in either direction
 	IGameComponent createHorizMovingPlatform() {
-		int xVel = new RUtils().randBetween(-10, 10);
+		int xVel = this.randomXVel(this.band().movingPlatformSpeed);
 
 		return new HorizontalMovingPlatform(new Vector2D(this.randomHorizontal(), 0), xVel);
 	}
@@ -72,91 +118,340 @@ abstract class AComponentGenerator implements IComponentGenerator {
 
 	// Returns a random x coordinate within the boundaries of the window
 	int randomHorizontal() {
-		return new Random().nextInt(IConstant.WINDOW_WIDTH - 2 * IConstant.PLATFORM_WIDTH) 
+		return this.random.nextInt(IConstant.WINDOW_WIDTH - 2 * IConstant.PLATFORM_WIDTH) 
 				+ IConstant.PLATFORM_WIDTH;
 	}
 }
 
 // To produce somewhat random platforms at distinct height intervals
 class PlatformGenerator extends AComponentGenerator {
+	// The platforms known to be reachable near the top, which every new platform is checked against
+	final ReachabilityIndex reachable;
 
-	// Constructor initializes this' spacing and 0 height gained
+	// Constructor initializes this' spacing and 0 height gained, using the shared spawn config
 	PlatformGenerator() {
-		super(new RUtils().randBetween(20, 80));
+		this(SpawnConfigSource.standard(), new Random());
 	}
 
-	// Returns a random platform at the top of the screen according to set probabilities
+	PlatformGenerator(SpawnConfigSource spawns, Random random) {
+		super(spawns.current().band(0).platforms.firstSpacing(random), spawns, random);
+		this.reachable = new ReachabilityIndex();
+	}
+
+	// Returns the standard platforms a game starts with: one just below the player spawn and one at each tenth of
+	// the screen above it, recorded as reachable
+	// EFFECT: Draws positions from this' random and seeds this' reachability index
+	ArrayList<IGameComponent> startingPlatforms() {
+		ArrayList<IGameComponent> plts = new ArrayList<IGameComponent>();
+		// Add a platform below the player
+		plts.add(new StandardPlatform(new Vector2D(IConstant.WINDOW_WIDTH / 2, 9 * IConstant.WINDOW_HEIGHT / 10)));
+		for (int height = 1; height < 10; height += 1) {
+			plts.add(new StandardPlatform(new Vector2D(this.randomHorizontal(), height * IConstant.WINDOW_HEIGHT / 10)));
+		}
+		this.seedReachable(plts);
+		return plts;
+	}
+
+	// Records the platforms the game starts with, the first being the one under the player
+	// EFFECT: Adds the reachable ones to this' index, lowest first
+	void seedReachable(ArrayList<IGameComponent> platforms) {
+		ArrayList<IGameComponent> remaining = new ArrayList<IGameComponent>(platforms);
+		IGameComponent next = remaining.remove(0);
+		this.reachable.add(next, -(next.topEdge() + next.bottomEdge()) / 2);
+		while (!remaining.isEmpty()) {
+			next = remaining.get(0);
+			for (IGameComponent platform : remaining) {
+				if (platform.topEdge() > next.topEdge()) {
+					next = platform;
+				}
+			}
+			remaining.remove(next);
+			int altitude = -(next.topEdge() + next.bottomEdge()) / 2;
+			if (this.reachable.canReach(next, altitude)) {
+				this.reachable.add(next, altitude);
+			}
+		}
+	}
+
+	// Returns a random platform at the top of the screen according to the spawn table's weights at this score,
+	// replaced by a reachable standard platform if the climb would otherwise be cut off
 	public IGameComponent generateComponent() {
-		int chance = new Random().nextInt(100);
-		if (chance < 10) {
+		return this.reachable.admit(this.samplePlatform(), this.totalHeight, this.untilNext);
+	}
+
+	// Returns a random platform at the top of the screen according to the spawn table's weights at this score
+	IGameComponent samplePlatform() {
+		ComponentKind kind = this.band().platforms.sample(this.random);
+		switch (kind) {
+		case MOVING_PLATFORM:
 			return this.createHorizMovingPlatform();
-		} else if (chance < 20) {
+		case BRITTLE_PLATFORM:
 			return new BrittlePlatform(this.randomTopPosition());
-		} else if (chance < 23) {
+		case SPRING_PLATFORM:
 			return new SpringPlatform(this.randomTopPosition());
-		} else if (chance < 27) {
-			return new EtherealPlatform(this.randomTopPosition());
-		}else {
+		case ETHEREAL_PLATFORM:
+			return new EtherealPlatform(this.randomTopPosition(), this.random.nextInt(200));
+		case VERTICAL_PLATFORM:
+		case DIAGONAL_PLATFORM:
+		case CIRCLING_PLATFORM:
+		case SINKING_PLATFORM:
+			return this.createPathPlatform(kind);
+		default:
 			return new StandardPlatform(this.randomTopPosition());
 		}
 	}
 	
-	// The amount of space is some random number from [20, 80)
+	// Returns a platform of the given kind at the top of the screen, at a random point along its path
+	IGameComponent createPathPlatform(ComponentKind kind) {
+		return new PathPlatform(kind, this.randomTopPosition(), this.random.nextInt(PathPlatform.pathOf(kind).period));
+	}
+
+	// The amount of space is drawn from the spawn table's range at this score ([20, 80] at first)
 	public int nextSpacing() {
-		return new RUtils().randBetween(20, 80);
+		return this.band().platforms.nextSpacing(this.random);
+	}
+}
+
+// Keeps the highest platforms known to be reachable from the start, so each new platform can be checked in bounded
+// time. A platform can be reached from another if the player, bouncing off the lower one and moving sideways at
+// full speed (wrapping around the screen), passes over the higher one while falling. Only platforms that always hold
+// the player count as steps: brittle ones break and ethereal ones come and go. Altitudes are heights above the
+// start, so they do not change as the camera moves.
+class ReachabilityIndex {
+	// The index never holds more steps than this; the lowest is forgotten first
+	static final int CAPACITY = 32;
+	// Height left unused below a jump's apex, to allow for the player's own height on landing
+	static final int SAFETY_MARGIN = 10;
+	// Most the camera can rise in one tick (the speed off a spring), which a spawn may overshoot its spacing by
+	static final int MAX_RISE_PER_TICK = -IConstant.SPRING_VELOCITY;
+
+	// Ring of steps in increasing altitude: their altitudes, center x, launch velocities, and whether they move
+	// (a moving platform can be met anywhere across the screen)
+	final int[] altitudes;
+	final int[] xs;
+	final int[] launches;
+	final boolean[] anywhere;
+	int first;
+	int size;
+	// How many spawns have been replaced to keep the climb possible
+	int repaired;
+
+	ReachabilityIndex() {
+		this.altitudes = new int[CAPACITY];
+		this.xs = new int[CAPACITY];
+		this.launches = new int[CAPACITY];
+		this.anywhere = new boolean[CAPACITY];
+		this.first = 0;
+		this.size = 0;
+		this.repaired = 0;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	// Does the platform hold the player every time it is landed on?
+	static boolean isStep(IGameComponent platform) {
+		ComponentKind kind = platform.kind();
+		return kind == ComponentKind.STANDARD_PLATFORM || kind == ComponentKind.MOVING_PLATFORM
+				|| kind == ComponentKind.SPRING_PLATFORM;
+	}
+
+	// The upward velocity the platform gives the player
+	static int launchVelocity(IGameComponent platform) {
+		return platform.kind() == ComponentKind.SPRING_PLATFORM ? IConstant.SPRING_VELOCITY
+				: IConstant.STD_BOUNCE_VELOCITY;
+	}
+
+	// The highest the player rises after bouncing with the given launch velocity
+	static int apex(int launch) {
+		int rising = -(launch + IConstant.ACC_GRAVITY);
+		return rising * (rising + IConstant.ACC_GRAVITY) / (2 * IConstant.ACC_GRAVITY);
+	}
+
+	// The last tick after a bounce at which the player is still at least the given height above where it bounced,
+	// or -1 if it never gets that high: the larger root of rising * t - g * t * (t - 1) / 2 = rise
+	static int lastTickAbove(int launch, int rise) {
+		double rising = -(launch + IConstant.ACC_GRAVITY);
+		double b = rising + IConstant.ACC_GRAVITY / 2.0;
+		double discriminant = b * b - 2.0 * IConstant.ACC_GRAVITY * rise;
+		if (discriminant < 0) {
+			return -1;
+		}
+		return (int) Math.floor((b + Math.sqrt(discriminant)) / IConstant.ACC_GRAVITY);
+	}
+
+	// Horizontal distance between two x coordinates across the wrapping screen
+	static int wrappedDistance(int x1, int x2) {
+		int dx = Math.abs(x1 - x2) % IConstant.WINDOW_WIDTH;
+		return Math.min(dx, IConstant.WINDOW_WIDTH - dx);
+	}
+
+	// How far sideways the player can be from a platform's center and still land on it, after the given ticks
+	static int horizontalReach(int ticks) {
+		return IConstant.PLAYER_X_SPEED * ticks + (IConstant.PLATFORM_WIDTH + IConstant.PLAYER_WIDTH) / 2;
+	}
+
+	// The index in the arrays of the i-th lowest step
+	int slot(int i) {
+		return (this.first + i) % CAPACITY;
+	}
+
+	// How far sideways step i lets the player land at the given altitude, or -1 if it cannot
+	int reachFrom(int i, int altitude) {
+		int at = this.slot(i);
+		int ticks = lastTickAbove(this.launches[at], altitude - this.altitudes[at] + SAFETY_MARGIN);
+		return ticks < 1 ? -1 : horizontalReach(ticks);
+	}
+
+	// Can the platform at the given altitude be landed on from some step?
+	boolean canReach(IGameComponent platform, int altitude) {
+		int x = (platform.leftEdge() + platform.rightEdge()) / 2;
+		for (int i = 0; i < this.size; i += 1) {
+			int reach = this.reachFrom(i, altitude);
+			int at = this.slot(i);
+			if (reach >= 0 && (this.anywhere[at] || platform.kind() == ComponentKind.MOVING_PLATFORM
+					|| wrappedDistance(this.xs[at], x) <= reach)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// The highest altitude some step lets the player land at
+	int ceiling() {
+		int ceiling = Integer.MIN_VALUE;
+		for (int i = 0; i < this.size; i += 1) {
+			int at = this.slot(i);
+			ceiling = Math.max(ceiling, this.altitudes[at] + apex(this.launches[at]) - SAFETY_MARGIN);
+		}
+		return ceiling;
+	}
+
+	// Records a reachable step at the given altitude, which must be at least as high as every step so far
+	// EFFECT: Adds to this, forgetting the lowest step if full
+	void add(IGameComponent platform, int altitude) {
+		if (this.size == CAPACITY) {
+			this.first = (this.first + 1) % CAPACITY;
+			this.size -= 1;
+		}
+		int at = this.slot(this.size);
+		this.altitudes[at] = altitude;
+		this.xs[at] = (platform.leftEdge() + platform.rightEdge()) / 2;
+		this.launches[at] = launchVelocity(platform);
+		this.anywhere[at] = platform.kind() == ComponentKind.MOVING_PLATFORM;
+		this.size += 1;
+	}
+
+	// Forgets steps that cannot reach the given altitude, since nothing will be spawned lower
+	// EFFECT: Removes the lowest steps
+	void forgetBelow(int altitude) {
+		while (this.size > 1 && this.altitudes[this.first] + apex(this.launches[this.first]) < altitude) {
+			this.first = (this.first + 1) % CAPACITY;
+			this.size -= 1;
+		}
+	}
+
+	// Checks a platform spawned at the given altitude, when the next will come after at least the given spacing.
+	// A reachable step is recorded. Anything else is kept unless, without a new step, the next platform could be
+	// out of reach; then it is replaced by a standard platform at the nearest x that some step can reach.
+	// EFFECT: May add a step and count a repair
+	IGameComponent admit(IGameComponent platform, int altitude, int nextSpacing) {
+		this.forgetBelow(altitude);
+		boolean reachable = this.canReach(platform, altitude);
+		if (reachable && isStep(platform)) {
+			this.add(platform, altitude);
+			return platform;
+		}
+		if (this.ceiling() >= altitude + nextSpacing + 1 + MAX_RISE_PER_TICK) {
+			return platform;
+		}
+
+		// Move toward the step that can reach furthest sideways at this altitude
+		int best = -1;
+		int bestReach = -1;
+		for (int i = 0; i < this.size; i += 1) {
+			int reach = this.reachFrom(i, altitude);
+			if (reach > bestReach) {
+				best = this.slot(i);
+				bestReach = reach;
+			}
+		}
+		int x = (platform.leftEdge() + platform.rightEdge()) / 2;
+		if (best >= 0 && !this.anywhere[best] && wrappedDistance(this.xs[best], x) > bestReach) {
+			x = this.xs[best] + (Math.floorMod(x - this.xs[best], IConstant.WINDOW_WIDTH) < IConstant.WINDOW_WIDTH / 2
+					? bestReach : -bestReach);
+			x = Math.max(IConstant.PLATFORM_WIDTH, Math.min(IConstant.WINDOW_WIDTH - IConstant.PLATFORM_WIDTH,
+					Math.floorMod(x, IConstant.WINDOW_WIDTH)));
+			if (wrappedDistance(this.xs[best], x) > bestReach) {
+				x = this.xs[best];
+			}
+		}
+		IGameComponent repair = new StandardPlatform(new Vector2D(x, (platform.topEdge() + platform.bottomEdge()) / 2));
+		this.repaired += 1;
+		// If nothing could reach it, the climb was already cut off; carry on from here
+		this.add(repair, altitude);
+		return repair;
 	}
 }
 
 // To generate hazards that can harm the player
 class HazardGenerator extends AComponentGenerator {
-		// Constructor initializes this' spacing and 0 height gained
+		// Constructor initializes this' spacing and 0 height gained, using the shared spawn config
 		HazardGenerator() {
-			super(new RUtils().randBetween(500, 1500));
+			this(SpawnConfigSource.standard(), new Random());
+		}
+
+		HazardGenerator(SpawnConfigSource spawns, Random random) {
+			super(spawns.current().band(0).hazards.firstSpacing(random), spawns, random);
 		}
 
-		// Returns a random platform at the top of the screen according to set probabilities
-		// if sufficient height has been gained since the last obstacle (exception if not)
+		// Returns a random hazard at the top of the screen according to the spawn table's weights at this score
 		public IGameComponent generateComponent() {
-			int chance = new Random().nextInt(100);
-			if(chance < 50) {
+			DifficultyBand band = this.band();
+			if (band.hazards.sample(this.random) == ComponentKind.BLACK_HOLE) {
 				return new BlackHole(this.randomTopPosition());
 			}
 			else {
-				return new Monster(this.randomTopPosition());
+				return new Monster(this.randomTopPosition(), this.randomXVel(band.monsterSpeed));
 			}
 		}
 		
-		// The amount of space is some random number from [500, 1500)
+		// The amount of space is drawn from the spawn table's range at this score (500 at first)
 		public int nextSpacing() {
-			return 500;
+			return this.band().hazards.nextSpacing(this.random);
 		}
 }
 
 //To generate hazards that can harm the player
 class ItemGenerator extends AComponentGenerator {
-		// Constructor initializes this' spacing and 0 height gained
+		// Constructor initializes this' spacing and 0 height gained, using the shared spawn config
 		ItemGenerator() {
-			super(new RUtils().randBetween(2000, 4000));
+			this(SpawnConfigSource.standard(), new Random());
 		}
 
-		// Returns a random platform at the top of the screen according to set probabilities
-		// if sufficient height has been gained since the last obstacle (exception if not)
+		ItemGenerator(SpawnConfigSource spawns, Random random) {
+			super(spawns.current().band(0).items.firstSpacing(random), spawns, random);
+		}
+
+		// Returns a random item at the top of the screen according to the spawn table's weights at this score
 		public IGameComponent generateComponent() {
-			int chance = new Random().nextInt(100);
 			IPlayerItem item;
-			if(chance < 40) {
+			switch (this.band().items.sample(this.random)) {
+			case PROPELLER_HAT:
 				item = new PropellerHat();
-			} else if (chance < 60) {
+				break;
+			case JET_PACK:
 				item = new JetPack();
-			}
-			else {
+				break;
+			default:
 				item = new Shield();
 			}
 			return new EnvironmentItem(this.randomTopPosition(), item);
 		}
 		
-		// The amount of space is some random number from [500, 1500)
+		// The amount of space is drawn from the spawn table's range at this score ([2000, 4000] at first)
 		public int nextSpacing() {
-			return new RUtils().randBetween(2000, 4000);
+			return this.band().items.nextSpacing(this.random);
 		}
-}
\ No newline at end of file
+}
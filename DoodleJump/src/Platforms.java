@@ -1,10 +1,6 @@
 import java.awt.Color;
 import java.util.Random;
 
-import javalib.impworld.WorldScene;
-import javalib.worldimages.OutlineMode;
-import javalib.worldimages.RectangleImage;
-import javalib.worldimages.WorldImage;
 
 // A rectangular platform with a definite position that affects the player
 // when the player lands on top of it
@@ -17,18 +13,17 @@ abstract class APlatform extends AGameComponent{
 	// and modifies the player in some way if a collision is detected
 	// EFFECT: Modifies the player according to .onPlayerCollision
 	public void interactPlayer(Player player) {
-		if(player.willCollide(new WillCollideRectAbove(this.position, 
+		if(player.willCollide(new WillCollideRectAbove(this.position(), 
 				IConstant.PLATFORM_WIDTH, IConstant.PLATFORM_HEIGHT))) {
 			this.onPlayerCollision(player);
 		}
 	}
 	
-	// A visual depiction of this platform
-	public abstract WorldImage render();
-
-	// Returns a rectangle image of the constant dimensions with the given color
-	WorldImage drawPlatform(Color c) {
-		return new RectangleImage(IConstant.PLATFORM_WIDTH, IConstant.PLATFORM_HEIGHT, OutlineMode.SOLID, c);
+	// Describes a rectangle of the constant dimensions with the given color at this' position
+	// EFFECT: Adds a sprite to the given list
+	void addPlatformSprite(SpriteList sprites, Color c) {
+		sprites.add(SpriteShape.SOLID_RECT, this.x(), this.y(), IConstant.PLATFORM_WIDTH, IConstant.PLATFORM_HEIGHT, c,
+				this);
 	}
 
 	// The width of this platform
@@ -36,6 +31,16 @@ abstract class APlatform extends AGameComponent{
 		return IConstant.PLATFORM_WIDTH;
 	}
 
+	// The height of this platform
+	public int height() {
+		return IConstant.PLATFORM_HEIGHT;
+	}
+
+	// The player can only collide with a platform by landing on top of it
+	public boolean landsOnTopOnly() {
+		return true;
+	}
+
 	// If the Player is to bounce on most platforms, the player will be given
 	// the standard upward velocity
 	// EFFECT: Modifies the player's velocity
@@ -50,46 +55,98 @@ class StandardPlatform extends APlatform {
 		super(position);
 	}
 
+	public ComponentKind kind() {
+		return ComponentKind.STANDARD_PLATFORM;
+	}
+
 	// Depicts this platform as a green rectangle with standard width and height
-	public WorldImage render() {
-		return this.drawPlatform(Color.GREEN);
+	public void addSprites(SpriteList sprites) {
+		this.addPlatformSprite(sprites, Color.GREEN);
 	}
 }
 
 // To represent a platform that moves side to side
 class HorizontalMovingPlatform extends APlatform {
-	// The amount this platform moves horizontally on a single tick
-	int xVel;
-
+	// Moves the given amount horizontally on each tick, reversing at either side of the screen
 	HorizontalMovingPlatform(Vector2D position, int xVel) {
 		super(position);
-		this.xVel = xVel;
+		MotionSystem.start(this, MotionPath.horizontal(xVel), 0);
+	}
+
+	public ComponentKind kind() {
+		return ComponentKind.MOVING_PLATFORM;
 	}
 
 	// Renders as a grey rectangle
-	public WorldImage render() {
-		return this.drawPlatform(Color.GRAY);
+	public void addSprites(SpriteList sprites) {
+		this.addPlatformSprite(sprites, Color.GRAY);
 	}
 
-	// Moves this platform on a tick according to the velocity,
-	// unless either side is reached, in which case the velocity is reversed
-	// EFFECT: Modifies this' x position and x velocity
-	public void tickComponent() {
-		int nextX = this.position.x + this.xVel;
-		// If about to hit right wall
-		if (nextX > IConstant.WINDOW_WIDTH) {
-			// Set position to be at right wall
-			this.position = this.position.setX(IConstant.WINDOW_WIDTH);
-			// Reverse direction
-			this.xVel *= -1;
-		} else if (nextX < 0) {
-			this.position = this.position.setX(0);
-			this.xVel *= -1;
-		} else {
-			// Move normally
-			this.position = this.position.setX(nextX);
+	// Moving platforms bump into monsters and other moving platforms
+	public boolean collidesWithComponents() {
+		return true;
+	}
+
+	// Reverses direction on running into another moving component
+	// EFFECT: Modifies this' x velocity
+	public void interactComponent(IGameComponent other) {
+		this.turnAroundFrom(other);
+	}
+}
+
+// To represent a platform that moves along one of the shared paths: up and down, diagonally, in a circle, or
+// sinking once landed on
+class PathPlatform extends APlatform {
+	final ComponentKind kind;
+
+	// Starts the given number of ticks along the path of its kind
+	PathPlatform(ComponentKind kind, Vector2D position, int phase) {
+		super(position);
+		this.kind = kind;
+		MotionSystem.start(this, pathOf(kind), phase);
+	}
+
+	// The path platforms of the given kind follow
+	static MotionPath pathOf(ComponentKind kind) {
+		switch (kind) {
+		case VERTICAL_PLATFORM:
+			return MotionPath.VERTICAL;
+		case DIAGONAL_PLATFORM:
+			return MotionPath.DIAGONAL;
+		case CIRCLING_PLATFORM:
+			return MotionPath.CIRCLING;
+		case SINKING_PLATFORM:
+			return MotionPath.SINKING;
+		default:
+			throw new IllegalArgumentException("A " + kind + " does not follow a path.");
 		}
 	}
+
+	public ComponentKind kind() {
+		return this.kind;
+	}
+
+	// Renders as a cyan rectangle, or orange if it sinks
+	public void addSprites(SpriteList sprites) {
+		this.addPlatformSprite(sprites, this.kind == ComponentKind.SINKING_PLATFORM ? Color.ORANGE : Color.CYAN);
+	}
+
+	// A platform that rises or falls by itself cannot have its landings predicted, so it is tested every tick
+	public boolean landsOnTopOnly() {
+		return !pathOf(this.kind).movesVertically();
+	}
+
+	// Bounces the player, and starts sinking if it sinks when hit
+	// EFFECT: Modifies the player's velocity and this' motion
+	public void onPlayerCollision(Player player) {
+		super.onPlayerCollision(player);
+		this.hitOnPath();
+	}
+
+	// How many ticks along its path this platform is
+	int phase() {
+		return this.motion == null ? this.pathPhase : this.motion.phases[this.motionSlot];
+	}
 }
 
 // To represent a stationary platform that can only be jumped on once
@@ -102,16 +159,22 @@ class BrittlePlatform extends APlatform {
 		this.hit = false;
 	}
 
+	public ComponentKind kind() {
+		return ComponentKind.BRITTLE_PLATFORM;
+	}
+
 	// Renders as a red rectangle
-	public WorldImage render() {
-		return this.drawPlatform(Color.RED);
+	public void addSprites(SpriteList sprites) {
+		this.addPlatformSprite(sprites, Color.RED);
 	}
 
 	// If the Player is to bounce on a brittle platform, the player will be given
-	// the standard upward velocity and marks this platform as hit
+	// the standard upward velocity and marks this platform as hit, reporting that it broke
 	public void onPlayerCollision(Player player) {
 		super.onPlayerCollision(player);
 		this.hit = true;
+		player.events.publish(GameEventType.PLATFORM_BROKEN, this.position.x, this.position.y,
+				this.kind().ordinal());
 	}
 
 	// This platform should be removed if below window or has been jumped on
@@ -126,20 +189,17 @@ class SpringPlatform extends APlatform {
 		super(position);
 	}
 
+	public ComponentKind kind() {
+		return ComponentKind.SPRING_PLATFORM;
+	}
+
 	// Depicts this as a green platform with a grey square on top
-	// EFFECT: Draws an image onto the background
-	public void drawOntoScene(WorldScene background) {
-		WorldImage basePlatform = this.drawPlatform(Color.GREEN);
+	// EFFECT: Adds sprites to the given list
+	public void addSprites(SpriteList sprites) {
 		Vector2D springPosition = this.position.addVectors(new Vector2D(0, -IConstant.PLATFORM_HEIGHT));
-		WorldImage spring = new RectangleImage(IConstant.PLATFORM_HEIGHT, IConstant.PLATFORM_HEIGHT, OutlineMode.SOLID,
-				Color.GRAY);
-		background.placeImageXY(basePlatform, this.position.x, this.position.y);
-		background.placeImageXY(spring, springPosition.x, springPosition.y);
-	}
-	
-	// Because this overrides drawOntoScene, this should never have to be rendered
-	public WorldImage render() {
-		throw new RuntimeException("Spring platform draws itself.");
+		this.addPlatformSprite(sprites, Color.GREEN);
+		sprites.add(SpriteShape.SOLID_RECT, springPosition, IConstant.PLATFORM_HEIGHT, IConstant.PLATFORM_HEIGHT,
+				Color.GRAY, this);
 	}
 
 	// Have the player react to this
@@ -162,6 +222,16 @@ class EtherealPlatform extends APlatform {
 		this.ticksElapsed = new Random().nextInt(200);
 	}
 
+	// Initializes this at the given point in the cycle
+	EtherealPlatform(Vector2D position, int ticksElapsed) {
+		super(position);
+		this.ticksElapsed = ticksElapsed;
+	}
+
+	public ComponentKind kind() {
+		return ComponentKind.ETHEREAL_PLATFORM;
+	}
+
 	// Based on the number of ticks elapsed, will the player collide with this
 	// platform?
 	// Is ethereal for half of the time.
@@ -171,13 +241,13 @@ class EtherealPlatform extends APlatform {
 
 	// Depicts this platform as an outline yellow rectangle if ethereal and solid if
 	// not
-	public WorldImage render() {
+	public void addSprites(SpriteList sprites) {
 		Color pltColor = Color.yellow;
 		if (this.isEthereal()) {
-			return new RectangleImage(IConstant.PLATFORM_WIDTH, IConstant.PLATFORM_HEIGHT, OutlineMode.OUTLINE,
-					pltColor);
+			sprites.add(SpriteShape.OUTLINE_RECT, this.position, IConstant.PLATFORM_WIDTH, IConstant.PLATFORM_HEIGHT,
+					pltColor, this);
 		} else {
-			return this.drawPlatform(pltColor);
+			this.addPlatformSprite(sprites, pltColor);
 		}
 	}
 
@@ -1,12 +1,5 @@
 import java.awt.Color;
 
-import javalib.impworld.WorldScene;
-import javalib.worldimages.CircleImage;
-import javalib.worldimages.EmptyImage;
-import javalib.worldimages.OutlineMode;
-import javalib.worldimages.OverlayImage;
-import javalib.worldimages.RectangleImage;
-import javalib.worldimages.WorldImage;
 
 // To represent a user-controlled player that jumps and collides with platforms
 class Player {
@@ -14,25 +7,40 @@ class Player {
 	Vector2D position;
 	// The amount that the player will move on one tick
 	Vector2D velocity;
+	// How far past position this player is, in fractions of a pixel (each in [0, SUBPIXEL_ONE))
+	int subX;
+	int subY;
+	// How many steps each tick's move is split into, and how many of this tick's have been taken
+	int steps;
+	int step;
 	
 	IPlayerItem item;
 	
 	boolean isDead;
 
+	// Where this player reports bounces, deaths and items taken
+	IGameEventSink events;
+
 	// Standard constructor initializes fields
 	Player(Vector2D position, Vector2D velocity) {
 		this.position = position;
 		this.velocity = velocity;
+		this.subX = 0;
+		this.subY = 0;
+		this.steps = IConstant.STEPS_PER_TICK;
+		this.step = 0;
 		this.item = new NoItem();
 		this.isDead = false;
+		this.events = new NoEvents();
 	}
 
-	// Renders the player onto the background
-	// EFFECT: Draws an image onto the given WorldScene
-	void drawOntoScene(WorldScene background) {
-		WorldImage playerImg = new RectangleImage(IConstant.PLAYER_WIDTH, IConstant.PLAYER_HEIGHT, OutlineMode.SOLID, Color.BLUE);
-		WorldImage withItem = new OverlayImage(this.item.render(), playerImg);
-		background.placeImageXY(withItem, this.position.x, this.position.y);
+	// Describes the player as a blue rectangle with its item drawn on top, the item shrinking with the time it has left
+	// unless asked to leave that timer out
+	// EFFECT: Adds sprites to the given list
+	void addSprites(SpriteList sprites, boolean itemTimer) {
+		sprites.add(SpriteShape.SOLID_RECT, this.position, IConstant.PLAYER_WIDTH, IConstant.PLAYER_HEIGHT, Color.BLUE,
+				this);
+		this.item.addSprites(sprites, this.position, this, itemTimer);
 	}
 	
 	// Has this player's item affect the player on a tick and then move the player
@@ -40,26 +48,64 @@ class Player {
 	// EFFECT: Modifies this according to the rules of this' item and this' item itself
 	// by either removing it or ticking it
 	void tickPlayer() {
+		this.tickItem();
+		this.move();
+	}
+
+	// Removes the item if finished, and otherwise has it affect the player
+	// EFFECT: Modifies this' item, and this according to the rules of the item
+	void tickItem() {
 		if(this.item.finished()) {
 			this.item = new NoItem();
 		} else {
 			this.item.tickItem(this);
 		}
-		this.move();
 	}
 
 	// Applies the current velocity to the current position and then applies
-	// acceleration to the velocity
+	// acceleration to the velocity, taking every step of the tick's move that is left
 	// EFFECT: Modifies this' position and velocity
 	void move() {
-		// Increase position by this' velocity
-		this.position = this.position.addVectors(this.velocity);
-		// Adjust position for wrap-around using modulo
-		this.position = this.position.setX(Math.floorMod(this.position.x, IConstant.WINDOW_WIDTH));
+		do {
+			this.moveStep();
+		} while (this.step != 0);
+	}
+
+	// The distance covered on the given one of a tick's steps at the given velocity, in fractions of a pixel. The
+	// steps always add up to exactly one tick's velocity, so the player is in the same place at the end of every tick
+	// however many steps it is split into.
+	static int stepDistance(int velocity, int step, int steps) {
+		int distance = velocity * IConstant.SUBPIXEL_ONE;
+		return distance * (step + 1) / steps - distance * step / steps;
+	}
 
-		// Accelerate velocity by acceleration up to a maximum
-		this.velocity = this.velocity
-				.setY(Math.min(this.velocity.y + IConstant.ACC_GRAVITY, IConstant.TERMINAL_VELOCITY));
+	// Where this player will be at the end of this tick if its velocity holds, before wrapping around
+	Vector2D tickEndPosition() {
+		int x = this.subX + this.velocity.x * IConstant.SUBPIXEL_ONE
+				- this.velocity.x * IConstant.SUBPIXEL_ONE * this.step / this.steps;
+		int y = this.subY + this.velocity.y * IConstant.SUBPIXEL_ONE
+				- this.velocity.y * IConstant.SUBPIXEL_ONE * this.step / this.steps;
+		return new Vector2D(this.position.x + (x >> IConstant.SUBPIXEL_BITS),
+				this.position.y + (y >> IConstant.SUBPIXEL_BITS));
+	}
+
+	// Moves this player by one step of the current velocity, wrapping around horizontally, and accelerates it once
+	// the tick's last step is taken
+	// EFFECT: Modifies this' position, fraction of a pixel, step and velocity
+	void moveStep() {
+		int x = this.subX + stepDistance(this.velocity.x, this.step, this.steps);
+		int y = this.subY + stepDistance(this.velocity.y, this.step, this.steps);
+		this.position = new Vector2D(Math.floorMod(this.position.x + (x >> IConstant.SUBPIXEL_BITS),
+				IConstant.WINDOW_WIDTH), this.position.y + (y >> IConstant.SUBPIXEL_BITS));
+		this.subX = x & (IConstant.SUBPIXEL_ONE - 1);
+		this.subY = y & (IConstant.SUBPIXEL_ONE - 1);
+		this.step += 1;
+		if (this.step == this.steps) {
+			this.step = 0;
+			// Accelerate velocity by acceleration up to a maximum
+			this.velocity = this.velocity
+					.setY(Math.min(this.velocity.y + IConstant.ACC_GRAVITY, IConstant.TERMINAL_VELOCITY));
+		}
 	}
 
 	// Have the player's horizontal velocity react to the key presses
@@ -68,16 +114,31 @@ class Player {
 	// EFFECT: Modifies this' velocity
 	void horizontalMove(String moveType) {
 		if (moveType.equals("reset")) {
-			this.velocity = this.velocity.setX(0);
+			this.moveHorizontally(0);
 		} else if (moveType.equals("left")) {
-			this.velocity = this.velocity.setX(-IConstant.PLAYER_X_SPEED);
+			this.moveHorizontally(-1);
 		} else if (moveType.equals("right")) {
-			this.velocity = this.velocity.setX(IConstant.PLAYER_X_SPEED);
+			this.moveHorizontally(1);
 		} else {
 			throw new IllegalArgumentException("Invalid move type.");
 		}
 	}
 
+	// Moves at the constant speed to the left (-1) or right (1), or stops (0)
+	// EFFECT: Modifies this' velocity
+	void moveHorizontally(int direction) {
+		this.velocity = this.velocity.setX(direction * IConstant.PLAYER_X_SPEED);
+	}
+
+	// Moves the player sideways by the given fractions of a pixel, wrapping around
+	// EFFECT: Modifies this' position and fraction of a pixel
+	void displaceSideways(int subpixels) {
+		int x = this.subX + subpixels;
+		this.position = new Vector2D(Math.floorMod(this.position.x + (x >> IConstant.SUBPIXEL_BITS),
+				IConstant.WINDOW_WIDTH), this.position.y);
+		this.subX = x & (IConstant.SUBPIXEL_ONE - 1);
+	}
+
 	// How far is the player from the fixed camera location vertically?
 	// A positive number indicates the player appears below the camera
 	// while a negative indicates above
@@ -95,8 +156,9 @@ class Player {
 	}
 	
 	// According to the given collision function, is this player colliding with the game component used to parameterize it
+	// over the rest of this tick
 	boolean willCollide(ICollisionFunc cf) {
-		return cf.apply(this.position, this.position.addVectors(this.velocity), IConstant.PLAYER_WIDTH, IConstant.PLAYER_HEIGHT);
+		return cf.apply(this.position, this.tickEndPosition(), IConstant.PLAYER_WIDTH, IConstant.PLAYER_HEIGHT);
 	}
 
 	// Have the player's vertical velocity react to a collision with a platform,
@@ -107,6 +169,7 @@ class Player {
 			throw new RuntimeException("Player already moving upwards.");
 		} else {
 			this.velocity = this.velocity.setY(newY_Velocity).addToY(IConstant.ACC_GRAVITY);
+			this.events.publish(GameEventType.BOUNCE, this.position.x, this.position.y, newY_Velocity);
 		}
 	}
 	
@@ -130,6 +193,7 @@ class Player {
 		if(! this.item.hazardImmunity()) {
 			this.isDead = true;
 			this.velocity = Vector2D.ORIGIN;
+			this.events.publish(GameEventType.PLAYER_KILLED, this.position.x, this.position.y, 0);
 		}
 	}
 	
@@ -143,14 +207,25 @@ class Player {
 	void takeItem(IPlayerItem item) {
 		if (this.item.replaceable()) {
 			this.item = item;
+			this.events.publish(GameEventType.ITEM_TAKEN, this.position.x, this.position.y, item.kind().ordinal());
 		}
 	}
 }
 
+// The kinds of item a player can hold
+enum ItemKind {
+	NONE, PROPELLER_HAT, JET_PACK, SHIELD
+}
+
 // To represent an item held by the player
 interface IPlayerItem {
-	// A visual depiction of the item while it is on the player
-	WorldImage render();
+	// Which kind of item this is, for observers outside the game
+	ItemKind kind();
+
+	// Describes a visual depiction of the item centered at the given position, on behalf of the given owner
+	// (the player holding it or the item lying in the environment), shrunk to the time it has left if timed
+	// EFFECT: Adds sprites to the given list
+	void addSprites(SpriteList sprites, Vector2D position, Object owner, boolean timed);
 	
 	// Will this item be replaced by another item encountered
 	boolean replaceable();
@@ -167,9 +242,13 @@ interface IPlayerItem {
 
 // The default lack of an item with no interesting properties
 class NoItem implements IPlayerItem {
+	public ItemKind kind() {
+		return ItemKind.NONE;
+	}
+
 	// The absence of an item is invisible
-	public WorldImage render() {
-		return new EmptyImage();
+	public void addSprites(SpriteList sprites, Vector2D position, Object owner, boolean timed) {
+		return;
 	}
 	
 	// It can be replaced by any other item
@@ -227,6 +306,11 @@ abstract class TimeTemporaryItem implements IPlayerItem {
 	double proportionTicksLeft() {
 		return 1 - 1.0 * this.ticksSoFar / this.totalTicks;
 	}
+
+	// How much of its full size the item is drawn at: the share of its time left if timed, and all of it otherwise
+	double proportionShown(boolean timed) {
+		return timed ? this.proportionTicksLeft() : 1;
+	}
 	
 	// Modify the player according to specific rules
 	void modifyPlayer(Player player) {
@@ -240,10 +324,15 @@ class PropellerHat extends TimeTemporaryItem {
 	PropellerHat() {
 		super(50);
 	}
+
+	public ItemKind kind() {
+		return ItemKind.PROPELLER_HAT;
+	}
+
 	// Draws this as a small cyan circle
-	public WorldImage render() {
-		return new CircleImage((int) (this.proportionTicksLeft() * IConstant.ITEM_SIZE / 2), 
-				OutlineMode.SOLID, Color.CYAN);
+	public void addSprites(SpriteList sprites, Vector2D position, Object owner, boolean timed) {
+		int radius = (int) (this.proportionShown(timed) * IConstant.ITEM_SIZE / 2);
+		sprites.add(SpriteShape.SOLID_CIRCLE, position, 2 * radius, 2 * radius, Color.CYAN, owner);
 	}
 	
 	// The propeller hat is not replaceable
@@ -263,10 +352,15 @@ class JetPack extends TimeTemporaryItem {
 	JetPack() {
 		super(100);
 	}
+
+	public ItemKind kind() {
+		return ItemKind.JET_PACK;
+	}
+
 	// Draws this as a small cyan circle
-	public WorldImage render() {
-		return new CircleImage((int) (this.proportionTicksLeft() * IConstant.ITEM_SIZE / 2), 
-				OutlineMode.SOLID, Color.RED);
+	public void addSprites(SpriteList sprites, Vector2D position, Object owner, boolean timed) {
+		int radius = (int) (this.proportionShown(timed) * IConstant.ITEM_SIZE / 2);
+		sprites.add(SpriteShape.SOLID_CIRCLE, position, 2 * radius, 2 * radius, Color.RED, owner);
 	}
 	
 	// The propeller hat is not replaceable
@@ -286,10 +380,15 @@ class Shield extends TimeTemporaryItem {
 	Shield() {
 		super(200);
 	}
+
+	public ItemKind kind() {
+		return ItemKind.SHIELD;
+	}
+
 	// Draws this as a small orange circle
-	public WorldImage render() {
-		return new RectangleImage(IConstant.ITEM_SIZE, (int) (this.proportionTicksLeft() * IConstant.ITEM_SIZE), 
-				OutlineMode.SOLID, Color.ORANGE);
+	public void addSprites(SpriteList sprites, Vector2D position, Object owner, boolean timed) {
+		sprites.add(SpriteShape.SOLID_RECT, position, IConstant.ITEM_SIZE,
+				(int) (this.proportionShown(timed) * IConstant.ITEM_SIZE), Color.ORANGE, owner);
 	}
 	
 	// The propeller hat is not replaceable
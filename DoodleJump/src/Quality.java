@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+// How much of each frame is drawn, from everything down to the least that keeps the game playable. Each level leaves
+// out everything the level above it does, and more. The simulation is never slowed at any level.
+enum RenderQuality {
+	// The background, sprites, item timers and score on every frame
+	FULL,
+	// No parallax background
+	NO_BACKGROUND,
+	// Nor the shrinking timer of the item the player holds
+	NO_ITEM_TIMERS,
+	// And only every other frame drawn, the last one shown again in between. javalib paints whatever scene it is
+	// given on every tick, so this saves building the scene but not painting it, which cannot be skipped from here.
+	HALF_RATE;
+
+	boolean drawsBackground() {
+		return this == FULL;
+	}
+
+	boolean drawsItemTimers() {
+		return this.compareTo(NO_ITEM_TIMERS) < 0;
+	}
+
+	// Is the frame with the given number drawn, rather than the last one shown again?
+	boolean drawsFrame(long frame) {
+		return this != HALF_RATE || frame % 2 == 0;
+	}
+
+	// The next level down, or this if there is none
+	RenderQuality lower() {
+		return this == HALF_RATE ? this : values()[this.ordinal() + 1];
+	}
+
+	// The next level up, or this if there is none
+	RenderQuality higher() {
+		return this == FULL ? this : values()[this.ordinal() - 1];
+	}
+}
+
+// Watches the wall-clock time from one frame to the next, which covers the ticks in between, building the scene and
+// javalib painting it, and steps the render quality down one level when the slowest frames in a window come late.
+// The world's clock spaces frames a tick apart however little work they take, so spare time cannot be measured:
+// instead, after enough windows on time the level above is tried again, and each time it proves too slow the wait
+// before the next try doubles. Every window is measured at one level, so one slow burst drops only one level.
+class QualityController {
+	static final int WINDOW = 60;
+	// Judged by the 95th percentile frame, which is late if it takes a quarter longer than the budget
+	static final double PERCENTILE = 0.95;
+	static final double LATE_LOAD = 1.25;
+	// Windows on time before trying the level above, at first and at most
+	static final int FIRST_PROBATION = 2;
+	static final int MAX_PROBATION = 32;
+
+	final long budgetNanos;
+	// The latest frame times, as a ring, and a scratch copy for sorting
+	final long[] window;
+	final long[] sorted;
+	int count;
+	int next;
+	// Read by the simulation thread when it describes the item timers
+	volatile RenderQuality quality;
+	int stepsDown;
+	int stepsUp;
+	// Windows on time since the last step, how many are needed before stepping up, and whether the last window was
+	// the first at a level just stepped up to
+	int onTime;
+	int probation;
+	boolean trying;
+
+	// Constructor begins at full quality with the given time to draw each frame in
+	QualityController(long budgetNanos) {
+		this.budgetNanos = budgetNanos;
+		this.window = new long[WINDOW];
+		this.sorted = new long[WINDOW];
+		this.count = 0;
+		this.next = 0;
+		this.quality = RenderQuality.FULL;
+		this.stepsDown = 0;
+		this.stepsUp = 0;
+		this.onTime = 0;
+		this.probation = FIRST_PROBATION;
+		this.trying = false;
+	}
+
+	// Counts a frame that took the given time since the one before, and returns the quality to draw the next one at
+	// EFFECT: Adds to the window, and at the end of a window may change the quality and the wait before stepping up
+	RenderQuality record(long frameNanos) {
+		this.window[this.next] = frameNanos;
+		this.next = (this.next + 1) % WINDOW;
+		this.count += 1;
+		if (this.count < WINDOW) {
+			return this.quality;
+		}
+		this.count = 0;
+		if (this.percentile(PERCENTILE) > LATE_LOAD * this.budgetNanos) {
+			this.onTime = 0;
+			if (this.trying) {
+				this.probation = Math.min(2 * this.probation, MAX_PROBATION);
+			}
+			this.trying = false;
+			if (this.quality != RenderQuality.HALF_RATE) {
+				this.quality = this.quality.lower();
+				this.stepsDown += 1;
+			}
+		} else {
+			this.onTime += 1;
+			this.trying = false;
+			if (this.onTime >= this.probation && this.quality != RenderQuality.FULL) {
+				this.quality = this.quality.higher();
+				this.stepsUp += 1;
+				this.onTime = 0;
+				this.trying = true;
+			}
+		}
+		return this.quality;
+	}
+
+	// The frame time no shorter than the given fraction of those in the latest whole window
+	long percentile(double fraction) {
+		System.arraycopy(this.window, 0, this.sorted, 0, WINDOW);
+		Arrays.sort(this.sorted);
+		return this.sorted[Math.max(0, (int) Math.ceil(fraction * WINDOW) - 1)];
+	}
+}
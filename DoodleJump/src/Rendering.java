@@ -0,0 +1,489 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javalib.impworld.WorldScene;
+import javalib.worldimages.CircleImage;
+import javalib.worldimages.OutlineMode;
+import javalib.worldimages.RectangleImage;
+import javalib.worldimages.TextImage;
+import javalib.worldimages.WorldImage;
+
+// The primitive shapes that the game is drawn with
+enum SpriteShape {
+	SOLID_RECT, OUTLINE_RECT, SOLID_CIRCLE
+}
+
+// A list of primitive sprites kept in parallel arrays, describing a frame without building any images
+class SpriteList {
+	int size;
+	SpriteShape[] shapes;
+	// Center of each sprite in image coordinates
+	int[] xs;
+	int[] ys;
+	// Bounding box of each sprite (a circle's diameter)
+	int[] widths;
+	int[] heights;
+	Color[] colors;
+	// The game object each sprite depicts, only used to match sprites between frames
+	Object[] owners;
+
+	SpriteList() {
+		this(64);
+	}
+
+	// Constructor initializes empty arrays with the given capacity
+	SpriteList(int capacity) {
+		this.size = 0;
+		this.shapes = new SpriteShape[capacity];
+		this.xs = new int[capacity];
+		this.ys = new int[capacity];
+		this.widths = new int[capacity];
+		this.heights = new int[capacity];
+		this.colors = new Color[capacity];
+		this.owners = new Object[capacity];
+	}
+
+	// Adds a sprite centered at the given position
+	// EFFECT: Appends to the arrays, growing them if full
+	void add(SpriteShape shape, Vector2D position, int width, int height, Color color, Object owner) {
+		this.add(shape, position.x, position.y, width, height, color, owner);
+	}
+
+	// Adds a sprite centered at the given coordinates
+	// EFFECT: Appends to the arrays, growing them if full
+	void add(SpriteShape shape, int x, int y, int width, int height, Color color, Object owner) {
+		if (this.size == this.xs.length) {
+			this.grow();
+		}
+		this.shapes[this.size] = shape;
+		this.xs[this.size] = x;
+		this.ys[this.size] = y;
+		this.widths[this.size] = width;
+		this.heights[this.size] = height;
+		this.colors[this.size] = color;
+		this.owners[this.size] = owner;
+		this.size += 1;
+	}
+
+	// Doubles the capacity of every array
+	// EFFECT: Replaces the arrays with larger copies
+	void grow() {
+		int capacity = Math.max(1, 2 * this.xs.length);
+		this.shapes = java.util.Arrays.copyOf(this.shapes, capacity);
+		this.xs = java.util.Arrays.copyOf(this.xs, capacity);
+		this.ys = java.util.Arrays.copyOf(this.ys, capacity);
+		this.widths = java.util.Arrays.copyOf(this.widths, capacity);
+		this.heights = java.util.Arrays.copyOf(this.heights, capacity);
+		this.colors = java.util.Arrays.copyOf(this.colors, capacity);
+		this.owners = java.util.Arrays.copyOf(this.owners, capacity);
+	}
+
+	// A javalib image of the sprite at the given index
+	WorldImage image(int i) {
+		if (this.shapes[i] == SpriteShape.SOLID_CIRCLE) {
+			return new CircleImage(this.widths[i] / 2, OutlineMode.SOLID, this.colors[i]);
+		} else if (this.shapes[i] == SpriteShape.OUTLINE_RECT) {
+			return new RectangleImage(this.widths[i], this.heights[i], OutlineMode.OUTLINE, this.colors[i]);
+		} else {
+			return new RectangleImage(this.widths[i], this.heights[i], OutlineMode.SOLID, this.colors[i]);
+		}
+	}
+
+	// Does the sprite at index i look exactly like the one at index j (so one image can depict both)?
+	boolean sameLook(int i, int j) {
+		return this.shapes[i] == this.shapes[j] && this.colors[i].equals(this.colors[j])
+				&& this.widths[i] == this.widths[j] && this.heights[i] == this.heights[j];
+	}
+
+	// Places every sprite onto the background in order, reusing one image for each run of identical sprites
+	// EFFECT: Places images onto the given WorldScene
+	void drawOntoScene(WorldScene background) {
+		WorldImage image = null;
+		for (int i = 0; i < this.size; i += 1) {
+			if (image == null || !this.sameLook(i, i - 1)) {
+				image = this.image(i);
+			}
+			background.placeImageXY(image, this.xs[i], this.ys[i]);
+		}
+	}
+
+	// Stably sorts the sprites from the given index onward by shape and then color, so identical sprites are drawn
+	// in runs that share an image (or a Graphics2D color)
+	// EFFECT: Reorders the sprites from the given index onward
+	void batchFrom(int start) {
+		int count = this.size - start;
+		// Pack the batch key above the original position so that sorting the keys is stable
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i += 1) {
+			long look = ((long) this.shapes[start + i].ordinal() << 24) | (this.colors[start + i].getRGB() & 0xFFFFFFL);
+			keys[i] = (look << 32) | i;
+		}
+		java.util.Arrays.sort(keys);
+
+		SpriteList sorted = new SpriteList(Math.max(1, count));
+		for (long key : keys) {
+			int i = start + (int) (key & 0xFFFFFFFFL);
+			sorted.add(this.shapes[i], new Vector2D(this.xs[i], this.ys[i]), this.widths[i], this.heights[i],
+					this.colors[i], this.owners[i]);
+		}
+		System.arraycopy(sorted.shapes, 0, this.shapes, start, count);
+		System.arraycopy(sorted.xs, 0, this.xs, start, count);
+		System.arraycopy(sorted.ys, 0, this.ys, start, count);
+		System.arraycopy(sorted.widths, 0, this.widths, start, count);
+		System.arraycopy(sorted.heights, 0, this.heights, start, count);
+		System.arraycopy(sorted.colors, 0, this.colors, start, count);
+		System.arraycopy(sorted.owners, 0, this.owners, start, count);
+	}
+
+	// Returns a copy of this list whose sprites are moved the given fraction of the way from where their owners
+	// were in the previous list; sprites whose owners are new in this list stay where they are
+	SpriteList interpolateFrom(SpriteList previous, double alpha) {
+		// An owner's sprites move together, so the motion of its first sprite applies to all of them
+		IdentityHashMap<Object, Integer> previousStart = previous.ownerStarts();
+		IdentityHashMap<Object, Integer> currentStart = this.ownerStarts();
+		SpriteList result = new SpriteList(Math.max(1, this.size));
+		for (int i = 0; i < this.size; i += 1) {
+			int x = this.xs[i];
+			int y = this.ys[i];
+			Integer before = previousStart.get(this.owners[i]);
+			if (before != null) {
+				int now = currentStart.get(this.owners[i]);
+				x -= (int) Math.round((1 - alpha) * (this.xs[now] - previous.xs[before]));
+				y -= (int) Math.round((1 - alpha) * (this.ys[now] - previous.ys[before]));
+			}
+			result.add(this.shapes[i], new Vector2D(x, y), this.widths[i], this.heights[i], this.colors[i],
+					this.owners[i]);
+		}
+		return result;
+	}
+
+	// The index of the first sprite of each owner
+	IdentityHashMap<Object, Integer> ownerStarts() {
+		IdentityHashMap<Object, Integer> starts = new IdentityHashMap<Object, Integer>();
+		for (int i = this.size - 1; i >= 0; i -= 1) {
+			starts.put(this.owners[i], i);
+		}
+		return starts;
+	}
+}
+
+// An immutable picture of the game after some tick, safe to hand from the simulation thread to the render thread
+class FrameSnapshot {
+	final long tick;
+	final int score;
+	final boolean gameOver;
+	// Never modified once the snapshot is built
+	final SpriteList sprites;
+	// When the snapshot was taken, per System.nanoTime
+	final long takenNanos;
+
+	FrameSnapshot(long tick, int score, boolean gameOver, SpriteList sprites, long takenNanos) {
+		this.tick = tick;
+		this.score = score;
+		this.gameOver = gameOver;
+		this.sprites = sprites;
+		this.takenNanos = takenNanos;
+	}
+
+	// Places the sprites and the score onto the background
+	// EFFECT: Places images onto the given WorldScene
+	void drawOntoScene(WorldScene background) {
+		this.drawOntoScene(background, this.sprites);
+	}
+
+	// Places the given sprites (a possibly interpolated version of this' sprites) and the score onto the background
+	// EFFECT: Places images onto the given WorldScene
+	void drawOntoScene(WorldScene background, SpriteList toDraw) {
+		toDraw.drawOntoScene(background);
+		// Display the score on screen
+		String scoreText = "Score: " + Integer.toString(this.score);
+		TextImage scoreTextImg = new TextImage(scoreText, IConstant.TEXT_COLOR);
+		background.placeImageXY(scoreTextImg, 9 * IConstant.WINDOW_WIDTH / 10, 9 * IConstant.WINDOW_HEIGHT / 10);
+	}
+}
+
+// The two most recent snapshots, published together so the renderer can interpolate between them
+class FramePair {
+	final FrameSnapshot previous;
+	final FrameSnapshot latest;
+
+	FramePair(FrameSnapshot previous, FrameSnapshot latest) {
+		this.previous = previous;
+		this.latest = latest;
+	}
+
+	// The sprites of the latest frame moved back toward the previous frame to match the given time; the renderer
+	// draws one tick behind the simulation so that it always has two frames to blend
+	SpriteList spritesAt(long nowNanos, long tickNanos) {
+		double alpha = Math.min(1.0, Math.max(0.0, 1.0 * (nowNanos - this.latest.takenNanos) / tickNanos));
+		return this.latest.sprites.interpolateFrom(this.previous.sprites, alpha);
+	}
+}
+
+// Runs a JumpingGame at a fixed timestep on its own thread, publishing a snapshot after every tick. The renderer only
+// ever reads the latest published pair, so a slow frame never delays or stretches the simulation.
+class SimulationLoop implements Runnable {
+	// Never run more than this many ticks at once to catch up; past that the backlog is dropped
+	static final int MAX_CATCH_UP_TICKS = 5;
+
+	final JumpingGame game;
+	// The length of a tick, and of each of the player's steps in it
+	final long tickNanos;
+	final long stepNanos;
+	// The latest pair of snapshots (replaced wholesale, never modified)
+	final AtomicReference<FramePair> frames;
+	volatile boolean running;
+	// What a step of the game threw, which stopped the loop, or null if nothing has
+	volatile RuntimeException failure;
+	long tick;
+
+	// Constructor publishes a snapshot of the game's starting state
+	SimulationLoop(JumpingGame game, double tickRate) {
+		this.game = game;
+		this.tickNanos = (long) (tickRate * 1e9);
+		this.stepNanos = this.tickNanos / game.player.steps;
+		FrameSnapshot first = game.snapshot(0);
+		this.frames = new AtomicReference<FramePair>(new FramePair(first, first));
+		this.running = true;
+		this.failure = null;
+		this.tick = 0;
+	}
+
+	// Starts running this loop on a new daemon thread
+	// EFFECT: Starts a thread
+	void start() {
+		Thread thread = new Thread(this, "simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// Steps the game whenever a step's worth of time has passed until the game is over or this is stopped, so key
+	// presses are picked up at the simulation rate rather than once a tick. A step that throws stops the loop and
+	// publishes the last frame again as a game over, so the window shows the game has ended rather than freezing.
+	// EFFECT: Modifies the game and publishes snapshots
+	public void run() {
+		try {
+			this.runSteps();
+		} catch (RuntimeException e) {
+			this.failure = e;
+			this.running = false;
+			FrameSnapshot last = this.frames.get().latest;
+			this.frames.set(new FramePair(last,
+					new FrameSnapshot(last.tick, last.score, true, last.sprites, System.nanoTime())));
+		}
+	}
+
+	// Steps the game on time until the game is over or this is stopped
+	// EFFECT: Modifies the game and publishes snapshots
+	void runSteps() {
+		int maxSteps = MAX_CATCH_UP_TICKS * this.game.player.steps;
+		long next = System.nanoTime() + this.stepNanos;
+		while (this.running && !this.game.gameOver()) {
+			int steps = 0;
+			while (System.nanoTime() - next >= 0 && steps < maxSteps) {
+				this.step();
+				next += this.stepNanos;
+				steps += 1;
+			}
+			if (steps == maxSteps) {
+				next = System.nanoTime() + this.stepNanos;
+			}
+			LockSupport.parkNanos(next - System.nanoTime());
+		}
+	}
+
+	// Takes one step of the game, which applies waiting key presses first, and publishes the result at the end of
+	// each tick
+	// EFFECT: Modifies the game and the published frames
+	void step() {
+		this.game.step();
+		if (this.game.player.step == 0) {
+			this.tick += 1;
+			FrameSnapshot latest = this.game.snapshot(this.tick);
+			this.frames.set(new FramePair(this.frames.get().latest, latest));
+		}
+	}
+
+	// Stops the loop after its current tick
+	// EFFECT: Modifies whether this is running
+	void stop() {
+		this.running = false;
+	}
+}
+
+// Draws snapshots straight into a reused BufferedImage with Java2D fills, without building a javalib WorldScene.
+// Shapes are filled exactly as javalib places them (centered, antialiased, at fractional edges for odd sizes) so
+// both paths produce the same pixels. The background is composed once; when little of the frame changes only the
+// rectangles covered by the previous and current sprites are restored and redrawn.
+class Java2DRenderer {
+	// Redraw only dirty rectangles while they cover less than this fraction of the window
+	static final double DIRTY_AREA_LIMIT = 0.5;
+
+	final BufferedImage frame;
+	// The frame's pixels, shared with the image
+	final int[] pixels;
+	// The background composed at window size, in the same pixel layout
+	final int[] backgroundPixels;
+	final Graphics2D graphics;
+	final Font scoreFont;
+	// Scrolling background drawn in place of the fixed one, or null
+	ParallaxBackground parallax;
+	// The camera height of the last frame, which the background pixels are scrolled for
+	int backgroundHeight;
+	// Screen rectangles drawn by the previous frame, or null if the whole frame must be redrawn
+	ArrayList<Rectangle> previousRects;
+
+	// Constructor composes the given background (or plain white if null) at window size
+	Java2DRenderer(BufferedImage background) {
+		this(BackgroundCache.compose(background));
+	}
+
+	// Constructor draws over the given window-sized background pixels (see BackgroundCache)
+	Java2DRenderer(int[] backgroundPixels) {
+		if (backgroundPixels.length != IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT) {
+			throw new IllegalArgumentException("Background must be the size of the window.");
+		}
+		this.frame = new BufferedImage(IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) this.frame.getRaster().getDataBuffer()).getData();
+		this.graphics = this.frame.createGraphics();
+		this.graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		this.scoreFont = new Font(Font.DIALOG, Font.PLAIN, 13);
+		this.backgroundPixels = backgroundPixels;
+		System.arraycopy(backgroundPixels, 0, this.pixels, 0, this.pixels.length);
+		this.previousRects = null;
+		this.parallax = null;
+		this.backgroundHeight = 0;
+	}
+
+	// Constructor draws over the given scrolling background
+	Java2DRenderer(ParallaxBackground parallax) {
+		this(new int[IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT]);
+		this.parallax = parallax;
+		parallax.compose(this.backgroundPixels, 0);
+	}
+
+	// Draws the snapshot's sprites and score over the background
+	// EFFECT: Modifies and returns this' reused frame image
+	BufferedImage render(FrameSnapshot snapshot) {
+		return this.render(snapshot.sprites, snapshot.score);
+	}
+
+	// Draws the given sprites and score over the background, scrolling a parallax background to the score
+	// (the total height the camera has risen). The layers scroll slower than the camera, so while the camera rises
+	// less than a pixel of any layer the background is kept and only the dirty rectangles are redrawn.
+	// EFFECT: Modifies and returns this' reused frame image
+	BufferedImage render(SpriteList sprites, int score) {
+		if (this.parallax != null && this.parallax.scrollsBetween(this.backgroundHeight, score)) {
+			// The whole background has moved, so nothing from the previous frame can be kept
+			this.parallax.compose(this.backgroundPixels, score);
+			this.previousRects = null;
+		}
+		this.backgroundHeight = score;
+		String scoreText = "Score: " + Integer.toString(score);
+		ArrayList<Rectangle> rects = this.spriteRects(sprites);
+		rects.add(this.scoreRect(scoreText));
+
+		ArrayList<Rectangle> dirty = new ArrayList<Rectangle>(rects);
+		if (this.previousRects != null) {
+			dirty.addAll(this.previousRects);
+		}
+		if (this.previousRects == null || this.area(dirty) > DIRTY_AREA_LIMIT * this.pixels.length) {
+			System.arraycopy(this.backgroundPixels, 0, this.pixels, 0, this.pixels.length);
+			this.drawAll(sprites, scoreText);
+		} else {
+			// Every sprite lies inside its own dirty rectangle, so once those are restored everything can be drawn
+			// again without touching the rest of the frame
+			for (Rectangle r : dirty) {
+				this.restoreBackground(r);
+			}
+			this.drawAll(sprites, scoreText);
+		}
+		this.previousRects = rects;
+		return this.frame;
+	}
+
+	// Fills every sprite in order and then the score text
+	// EFFECT: Draws onto the frame
+	void drawAll(SpriteList sprites, String scoreText) {
+		for (int i = 0; i < sprites.size; i += 1) {
+			// Batched sprites share a color, so only switch colors between runs
+			if (i == 0 || !sprites.colors[i].equals(sprites.colors[i - 1])) {
+				this.graphics.setColor(sprites.colors[i]);
+			}
+			this.fillSprite(sprites, i);
+		}
+		this.graphics.setColor(IConstant.TEXT_COLOR);
+		this.graphics.setFont(this.scoreFont);
+		FontMetrics metrics = this.graphics.getFontMetrics();
+		int x = 9 * IConstant.WINDOW_WIDTH / 10 - metrics.stringWidth(scoreText) / 2;
+		int y = 9 * IConstant.WINDOW_HEIGHT / 10 + (metrics.getAscent() - metrics.getDescent()) / 2;
+		this.graphics.drawString(scoreText, x, y);
+	}
+
+	// Fills one sprite centered on its position in the current color
+	// EFFECT: Draws onto the frame
+	void fillSprite(SpriteList sprites, int i) {
+		double left = sprites.xs[i] - sprites.widths[i] / 2.0;
+		double top = sprites.ys[i] - sprites.heights[i] / 2.0;
+		if (sprites.shapes[i] == SpriteShape.SOLID_CIRCLE) {
+			this.graphics.fill(new Ellipse2D.Double(left, top, sprites.widths[i], sprites.heights[i]));
+		} else if (sprites.shapes[i] == SpriteShape.OUTLINE_RECT) {
+			this.graphics.draw(new Rectangle2D.Double(left, top, sprites.widths[i], sprites.heights[i]));
+		} else {
+			this.graphics.fill(new Rectangle2D.Double(left, top, sprites.widths[i], sprites.heights[i]));
+		}
+	}
+
+	// The on-screen pixel rectangles touched by each sprite, padded by a pixel for antialiasing and outlines
+	ArrayList<Rectangle> spriteRects(SpriteList sprites) {
+		ArrayList<Rectangle> rects = new ArrayList<Rectangle>(sprites.size + 1);
+		for (int i = 0; i < sprites.size; i += 1) {
+			Rectangle r = new Rectangle(sprites.xs[i] - sprites.widths[i] / 2 - 2,
+					sprites.ys[i] - sprites.heights[i] / 2 - 2, sprites.widths[i] + 4, sprites.heights[i] + 4);
+			Rectangle onScreen = r.intersection(new Rectangle(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT));
+			if (!onScreen.isEmpty()) {
+				rects.add(onScreen);
+			}
+		}
+		return rects;
+	}
+
+	// The rectangle the score text is drawn within
+	Rectangle scoreRect(String scoreText) {
+		FontMetrics metrics = this.graphics.getFontMetrics(this.scoreFont);
+		int width = metrics.stringWidth(scoreText) + 4;
+		int height = metrics.getHeight() + 4;
+		return new Rectangle(9 * IConstant.WINDOW_WIDTH / 10 - width / 2, 9 * IConstant.WINDOW_HEIGHT / 10 - height / 2,
+				width, height).intersection(new Rectangle(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT));
+	}
+
+	// The total area of the given rectangles, counting overlaps more than once
+	long area(ArrayList<Rectangle> rects) {
+		long total = 0;
+		for (Rectangle r : rects) {
+			total += (long) r.width * r.height;
+		}
+		return total;
+	}
+
+	// Copies the background back over one rectangle of the frame
+	// EFFECT: Modifies the frame's pixels
+	void restoreBackground(Rectangle r) {
+		for (int row = r.y; row < r.y + r.height; row += 1) {
+			int start = row * IConstant.WINDOW_WIDTH + r.x;
+			System.arraycopy(this.backgroundPixels, start, this.pixels, start, r.width);
+		}
+	}
+}
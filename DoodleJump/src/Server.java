@@ -0,0 +1,799 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Bytes on their way to one client over a non-blocking channel. Each message reaches the channel whole or not at all:
+// when the channel takes only part of one, the rest waits here for the selector thread to flush once the channel is
+// writable again, and newer messages are shed until it has gone, so the client never sees a message cut short.
+class ClientOutput {
+	final SocketChannel channel;
+	// The channel's registration with the server's selector, or null if it has none
+	volatile SelectionKey key;
+	// The rest of a message the channel has not taken yet, ready to be written (empty if there is none)
+	ByteBuffer pending;
+	// Messages shed because part of an earlier one was still waiting
+	long shed;
+	volatile boolean closed;
+
+	ClientOutput(SocketChannel channel) {
+		this.channel = channel;
+		this.key = null;
+		this.pending = ByteBuffer.allocate(256);
+		this.pending.flip();
+		this.shed = 0;
+		this.closed = false;
+	}
+
+	// Sends a message made of the given parts unless part of an earlier one is still waiting, and returns whether
+	// it was sent (the channel may only take part of it, in which case the rest follows before anything else)
+	// EFFECT: Writes to the channel and keeps what it does not take, or closes this if the channel fails
+	synchronized boolean send(ByteBuffer... parts) {
+		if (this.closed) {
+			return false;
+		}
+		try {
+			if (this.pending.hasRemaining()) {
+				this.channel.write(this.pending);
+				if (this.pending.hasRemaining()) {
+					this.shed += 1;
+					return false;
+				}
+				this.wantWrite(false);
+			}
+			long length = 0;
+			for (ByteBuffer part : parts) {
+				length += part.remaining();
+			}
+			long written = this.channel.write(parts);
+			if (written == 0 && length > 0) {
+				this.shed += 1;
+				return false;
+			}
+			if (written < length) {
+				this.keep(parts, (int) (length - written));
+				this.wantWrite(true);
+			}
+			return true;
+		} catch (IOException e) {
+			this.close();
+			return false;
+		}
+	}
+
+	// Copies what is left of the given parts to wait for the channel
+	// EFFECT: Replaces the pending bytes
+	void keep(ByteBuffer[] parts, int count) {
+		if (this.pending.capacity() < count) {
+			this.pending = ByteBuffer.allocate(Math.max(count, 2 * this.pending.capacity()));
+		}
+		this.pending.clear();
+		for (ByteBuffer part : parts) {
+			this.pending.put(part);
+		}
+		this.pending.flip();
+	}
+
+	// Writes whatever is waiting, once the selector finds the channel writable
+	// EFFECT: Writes to the channel, or closes this if the channel fails
+	synchronized void flush() {
+		try {
+			this.channel.write(this.pending);
+			if (!this.pending.hasRemaining()) {
+				this.wantWrite(false);
+			}
+		} catch (IOException e) {
+			this.close();
+		}
+	}
+
+	// Asks the selector to report when the channel is writable, or stops asking
+	// EFFECT: Modifies the key's interest and wakes its selector
+	void wantWrite(boolean write) {
+		SelectionKey key = this.key;
+		if (key == null) {
+			return;
+		}
+		try {
+			key.interestOps(write ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+			key.selector().wakeup();
+		} catch (CancelledKeyException e) {
+			// The client is gone and nothing more will be written
+			return;
+		}
+	}
+
+	// EFFECT: Cancels the channel's registration and closes it
+	synchronized void close() {
+		this.closed = true;
+		if (this.key != null) {
+			this.key.cancel();
+		}
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			return;
+		}
+	}
+}
+
+// Something at the other end of a connection to a GameServer
+interface IServerClient {
+	// Where this client is written to
+	ClientOutput output();
+
+	// What the client sent after its last complete line
+	StringBuilder partialInput();
+
+	// Handles one line the client sent
+	// EFFECT: Depends on the client
+	void receive(String line, GameServer server);
+}
+
+// A connection watching some session's game: it names the session on its first line and then receives a frame from
+// the session's SpectatorFeed after every tick, each preceded by its length as an unsigned VarInt. Frames are encoded
+// against the last tick this spectator was sent whole; TCP delivers in order, so that is the tick it will have seen.
+class SpectatorClient implements IServerClient {
+	final ClientOutput output;
+	final StringBuilder partialInput;
+	// Set once the spectator has named a session
+	boolean watching;
+	// The last tick sent to this spectator, or -1 before the first
+	long ackedTick;
+	final ByteBuffer lengthPrefix;
+
+	SpectatorClient(SocketChannel channel) {
+		this.output = new ClientOutput(channel);
+		this.partialInput = new StringBuilder();
+		this.watching = false;
+		this.ackedTick = -1;
+		this.lengthPrefix = ByteBuffer.allocate(10);
+	}
+
+	public ClientOutput output() {
+		return this.output;
+	}
+
+	public StringBuilder partialInput() {
+		return this.partialInput;
+	}
+
+	// Starts watching the named session, or leaves if there is no such session
+	// EFFECT: Adds this to a session's spectators, or closes this
+	public void receive(String line, GameServer server) {
+		if (this.watching) {
+			return;
+		}
+		this.watching = true;
+		GameSession session = null;
+		try {
+			session = server.sessions.get(Integer.parseInt(line));
+		} catch (NumberFormatException e) {
+			session = null;
+		}
+		if (session == null) {
+			this.output.close();
+			return;
+		}
+		session.incomingSpectators.add(this);
+		if (session.closed) {
+			// The session may have ended without seeing this spectator
+			this.output.close();
+		}
+	}
+
+	// Sends the feed's latest frame encoded against what this spectator last saw
+	// EFFECT: Writes to this spectator and moves its acknowledged tick on if the frame was sent
+	void send(SpectatorFeed feed) {
+		ByteBuffer frame = feed.frameFor(this.ackedTick);
+		this.lengthPrefix.clear();
+		VarInts.putUnsigned(this.lengthPrefix, frame.remaining());
+		this.lengthPrefix.flip();
+		if (this.output.send(this.lengthPrefix, frame)) {
+			this.ackedTick = feed.latest.tick;
+		}
+	}
+}
+
+// How many ticks a session ran and how late they started, over some stretch of time
+class SessionStats {
+	// Lateness is bucketed by powers of two of microseconds, the last bucket holding everything later
+	static final int LAG_BUCKETS = 32;
+
+	long ticks;
+	// Ticks skipped because the session fell too far behind, and states not sent because the client was slow
+	long shedTicks;
+	long shedStates;
+	long maxLagNanos;
+	final long[] lagHistogram;
+
+	SessionStats() {
+		this.ticks = 0;
+		this.shedTicks = 0;
+		this.shedStates = 0;
+		this.maxLagNanos = 0;
+		this.lagHistogram = new long[LAG_BUCKETS];
+	}
+
+	// EFFECT: Counts a tick that started the given time late
+	void recordLag(long lagNanos) {
+		this.ticks += 1;
+		this.maxLagNanos = Math.max(this.maxLagNanos, lagNanos);
+		int bucket = 64 - Long.numberOfLeadingZeros(Math.max(0, lagNanos / 1000));
+		this.lagHistogram[Math.min(bucket, LAG_BUCKETS - 1)] += 1;
+	}
+
+	// EFFECT: Adds the other stats to these
+	void add(SessionStats other) {
+		this.ticks += other.ticks;
+		this.shedTicks += other.shedTicks;
+		this.shedStates += other.shedStates;
+		this.maxLagNanos = Math.max(this.maxLagNanos, other.maxLagNanos);
+		for (int b = 0; b < LAG_BUCKETS; b += 1) {
+			this.lagHistogram[b] += other.lagHistogram[b];
+		}
+	}
+
+	// The lateness in microseconds below which the given fraction of the ticks started
+	long lagPercentileMicros(double fraction) {
+		long seen = 0;
+		for (int bucket = 0; bucket < LAG_BUCKETS; bucket += 1) {
+			seen += this.lagHistogram[bucket];
+			if (seen >= fraction * this.ticks) {
+				return bucket == 0 ? 0 : 1L << bucket;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+}
+
+// One game hosted by the server, ticked by a SessionScheduler worker and optionally connected to a client and watched
+// by spectators
+class GameSession implements IServerClient {
+	final int id;
+	JumpingGame game;
+	// Key presses from the client waiting for the next tick
+	final ConcurrentLinkedQueue<String> moves;
+	// Where state is sent to the connected client, or null for a session driven by its own random input
+	final ClientOutput output;
+	// Input received from the client after its last complete line
+	final StringBuilder partialInput;
+	final Random botInput;
+	// Where a connected game's telemetry is handed when the session ends (bots' games are not recorded)
+	final TelemetryWriter telemetry;
+
+	// When the next tick is due, per System.nanoTime
+	long nextTickNanos;
+	long ticks;
+	int gamesPlayed;
+	// What made ticking the session fail, which ends it, or null if nothing has
+	RuntimeException failure;
+	// Set once the session has ended and let go of its connections
+	volatile boolean closed;
+	// Spectators waiting to be picked up on the next tick, and those watching
+	final ConcurrentLinkedQueue<SpectatorClient> incomingSpectators;
+	final ArrayList<SpectatorClient> spectators;
+	// Encodes the game for spectators, made when the first one arrives
+	SpectatorFeed feed;
+	// Since they were last taken, read by other threads
+	SessionStats stats;
+
+	// Constructor for a session whose telemetry is discarded
+	GameSession(int id, SocketChannel client, long startNanos) {
+		this(id, client, startNanos, new TelemetryWriter(null));
+	}
+
+	GameSession(int id, SocketChannel client, long startNanos, TelemetryWriter telemetry) {
+		this.id = id;
+		this.game = new JumpingGame();
+		this.moves = new ConcurrentLinkedQueue<String>();
+		this.output = client == null ? null : new ClientOutput(client);
+		this.partialInput = new StringBuilder();
+		this.botInput = new Random(id);
+		this.telemetry = telemetry;
+		if (client != null) {
+			this.game.recordTelemetry();
+		}
+		this.nextTickNanos = startNanos;
+		this.ticks = 0;
+		this.gamesPlayed = 1;
+		this.failure = null;
+		this.closed = false;
+		this.incomingSpectators = new ConcurrentLinkedQueue<SpectatorClient>();
+		this.spectators = new ArrayList<SpectatorClient>();
+		this.feed = null;
+		this.stats = new SessionStats();
+	}
+
+	public ClientOutput output() {
+		return this.output;
+	}
+
+	public StringBuilder partialInput() {
+		return this.partialInput;
+	}
+
+	// Queues a move the client sent
+	// EFFECT: Adds to this' moves
+	public void receive(String line, GameServer server) {
+		if (line.equals("left") || line.equals("right") || line.equals("reset")) {
+			this.moves.add(line);
+		}
+	}
+
+	// Runs one tick that was due at this' next tick time, recording how late it started
+	// EFFECT: Modifies the game, the tick schedule and the stats
+	void tick(long nowNanos, long stepNanos) {
+		synchronized (this) {
+			this.stats.recordLag(nowNanos - this.nextTickNanos);
+		}
+
+		if (this.output == null) {
+			if (this.botInput.nextInt(15) == 0) {
+				String[] choices = { "left", "right", "reset" };
+				this.moves.add(choices[this.botInput.nextInt(choices.length)]);
+			}
+		}
+		String move = this.moves.poll();
+		while (move != null) {
+			this.game.playerHorizontalMove(move);
+			move = this.moves.poll();
+		}
+		this.game.tick();
+		if (this.game.gameOver() && this.output == null) {
+			// Bots keep playing so that the load stays steady
+			this.game = new JumpingGame();
+			this.gamesPlayed += 1;
+		}
+		this.ticks += 1;
+		this.nextTickNanos += stepNanos;
+	}
+
+	// Gives up on ticks the session is too far behind to catch up on
+	// EFFECT: Moves the tick schedule forward and counts the skipped ticks
+	void shed(long nowNanos, long stepNanos) {
+		long behind = (nowNanos - this.nextTickNanos) / stepNanos;
+		synchronized (this) {
+			this.stats.shedTicks += behind;
+		}
+		this.nextTickNanos += behind * stepNanos;
+	}
+
+	// Sends the client one line of state: STATE tick x y score dead
+	// If part of the last line is still on its way the state is skipped, since a newer one follows next tick, and
+	// a client whose connection fails is closed, which finishes the session
+	// EFFECT: Writes to the client's socket
+	void sendState() {
+		if (this.output == null) {
+			return;
+		}
+		Vector2D position = this.game.player.getPosition();
+		String line = "STATE " + this.ticks + " " + position.x + " " + position.y + " " + this.game.score + " "
+				+ this.game.gameOver() + "\n";
+		if (!this.output.send(ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII))) && !this.output.closed) {
+			synchronized (this) {
+				this.stats.shedStates += 1;
+			}
+		}
+	}
+
+	// EFFECT: Moves the spectators waiting to be picked up to this' spectators
+	void takeIncomingSpectators() {
+		SpectatorClient added = this.incomingSpectators.poll();
+		while (added != null) {
+			this.spectators.add(added);
+			added = this.incomingSpectators.poll();
+		}
+	}
+
+	// Sends every spectator the game as it is after the latest tick, dropping those that have left
+	// EFFECT: Captures the game into the feed and writes to the spectators
+	void sendSpectators() {
+		this.takeIncomingSpectators();
+		if (this.spectators.isEmpty()) {
+			return;
+		}
+		if (this.feed == null) {
+			this.feed = new SpectatorFeed();
+		}
+		this.feed.capture(this.game, this.ticks);
+		for (int i = this.spectators.size() - 1; i >= 0; i -= 1) {
+			SpectatorClient spectator = this.spectators.get(i);
+			spectator.send(this.feed);
+			if (spectator.output.closed) {
+				this.spectators.remove(i);
+			}
+		}
+	}
+
+	// Is the session finished (ticking it failed, or it is a connected game that was lost or whose client left)?
+	boolean finished() {
+		return this.failure != null || (this.output != null && (this.game.gameOver() || this.output.closed));
+	}
+
+	// Ends the session, letting go of its client and spectators and handing over the game's telemetry
+	// EFFECT: Closes their channels, cancels their registrations and queues the telemetry
+	void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		if (this.game.telemetry != null) {
+			this.telemetry.submit(this.game.telemetry);
+		}
+		if (this.output != null) {
+			this.output.close();
+		}
+		this.takeIncomingSpectators();
+		for (SpectatorClient spectator : this.spectators) {
+			spectator.output.close();
+		}
+		this.spectators.clear();
+	}
+
+	// The stats since they were last taken, starting new ones
+	// EFFECT: Replaces this' stats
+	synchronized SessionStats takeStats() {
+		SessionStats taken = this.stats;
+		this.stats = new SessionStats();
+		return taken;
+	}
+}
+
+// Ticks many sessions at a steady rate on a few worker threads. Each worker owns a share of the sessions and ticks
+// each one whenever it is due; a session that falls behind runs up to MAX_CATCH_UP_TICKS extra ticks at once,
+// and beyond that its backlog is shed so that one slow moment cannot snowball into every later tick being late.
+class SessionScheduler {
+	static final int MAX_CATCH_UP_TICKS = 3;
+
+	final long stepNanos;
+	final SessionWorker[] workers;
+	// Sessions dropped because ticking them failed, each holding its failure
+	final ConcurrentLinkedQueue<GameSession> dropped;
+	int sessionsAdded;
+
+	SessionScheduler(int workerCount, double tickRate) {
+		this.stepNanos = (long) (tickRate * 1e9);
+		this.dropped = new ConcurrentLinkedQueue<GameSession>();
+		this.workers = new SessionWorker[workerCount];
+		for (int i = 0; i < workerCount; i += 1) {
+			this.workers[i] = new SessionWorker(this.stepNanos, this.dropped);
+		}
+		this.sessionsAdded = 0;
+	}
+
+	// Starts every worker thread
+	// EFFECT: Starts threads
+	void start() {
+		for (int i = 0; i < this.workers.length; i += 1) {
+			Thread thread = new Thread(this.workers[i], "session-worker-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	// Hands a new session to the workers in turn
+	// EFFECT: Adds the session to a worker
+	void add(GameSession session) {
+		this.workers[this.sessionsAdded % this.workers.length].incoming.add(session);
+		this.sessionsAdded += 1;
+	}
+
+	// Stops every worker after its current pass
+	// EFFECT: Stops the workers
+	void stop() {
+		for (SessionWorker worker : this.workers) {
+			worker.running = false;
+		}
+	}
+
+	// Every session currently being ticked
+	ArrayList<GameSession> sessions() {
+		ArrayList<GameSession> all = new ArrayList<GameSession>();
+		for (SessionWorker worker : this.workers) {
+			all.addAll(worker.sessionsView);
+		}
+		return all;
+	}
+}
+
+// One worker thread of a SessionScheduler and the sessions it owns
+class SessionWorker implements Runnable {
+	final long stepNanos;
+	// Sessions waiting to be picked up by this worker
+	final ConcurrentLinkedQueue<GameSession> incoming;
+	// Where sessions whose ticks failed are reported, shared by every worker
+	final ConcurrentLinkedQueue<GameSession> dropped;
+	final ArrayList<GameSession> sessions;
+	// A copy of the sessions published after every pass for reporting
+	volatile ArrayList<GameSession> sessionsView;
+	volatile boolean running;
+
+	SessionWorker(long stepNanos, ConcurrentLinkedQueue<GameSession> dropped) {
+		this.stepNanos = stepNanos;
+		this.incoming = new ConcurrentLinkedQueue<GameSession>();
+		this.dropped = dropped;
+		this.sessions = new ArrayList<GameSession>();
+		this.sessionsView = new ArrayList<GameSession>();
+		this.running = true;
+	}
+
+	// Repeatedly ticks every due session and then sleeps until the next one is due
+	// EFFECT: Modifies this' sessions
+	public void run() {
+		while (this.running) {
+			GameSession added = this.incoming.poll();
+			while (added != null) {
+				this.sessions.add(added);
+				added = this.incoming.poll();
+			}
+
+			long nextDue = System.nanoTime() + this.stepNanos;
+			ArrayList<GameSession> kept = new ArrayList<GameSession>(this.sessions.size());
+			for (GameSession session : this.sessions) {
+				try {
+					this.runDue(session);
+				} catch (RuntimeException e) {
+					// One broken game must not take the others on this worker down with it
+					session.failure = e;
+					this.dropped.add(session);
+				}
+				if (session.finished()) {
+					session.close();
+				} else {
+					kept.add(session);
+					nextDue = Math.min(nextDue, session.nextTickNanos);
+				}
+			}
+			this.sessions.clear();
+			this.sessions.addAll(kept);
+			this.sessionsView = kept;
+			LockSupport.parkNanos(nextDue - System.nanoTime());
+		}
+		for (GameSession session : this.sessions) {
+			session.close();
+		}
+	}
+
+	// Runs the ticks the session is due, sheds any it is too far behind on, and sends the client the result
+	// EFFECT: Modifies the session
+	void runDue(GameSession session) {
+		int ticked = 0;
+		long now = System.nanoTime();
+		while (now - session.nextTickNanos >= 0 && ticked <= SessionScheduler.MAX_CATCH_UP_TICKS) {
+			session.tick(now, this.stepNanos);
+			ticked += 1;
+			now = System.nanoTime();
+		}
+		if (now - session.nextTickNanos >= 0) {
+			session.shed(now, this.stepNanos);
+		}
+		if (ticked > 0) {
+			session.sendState();
+			session.sendSpectators();
+		}
+	}
+}
+
+// Hosts a game session for every client that connects to a local port. Clients are first sent "SESSION id", then
+// send one move per line ("left", "right" or "reset") and receive a STATE line after every tick. Spectators connect
+// to a second port and send the id of the session to watch (see SpectatorClient). A single selector thread reads
+// every connection.
+class GameServer implements Runnable {
+	final SessionScheduler scheduler;
+	final ServerSocketChannel listener;
+	final ServerSocketChannel spectatorListener;
+	final Selector selector;
+	// The sessions spectators can ask for, by id; finished ones are forgotten as new ones start
+	final ConcurrentHashMap<Integer, GameSession> sessions;
+	// Where each finished game's telemetry is written
+	final TelemetryWriter telemetry;
+	int sessionsStarted;
+	// Cleared to make the selector thread stop serving
+	volatile boolean running;
+
+	GameServer(int port, int spectatorPort, int workerCount, TelemetryWriter telemetry) throws IOException {
+		this.scheduler = new SessionScheduler(workerCount, IConstant.TICK_RATE);
+		this.telemetry = telemetry;
+		this.selector = Selector.open();
+		this.listener = this.listen(port);
+		this.spectatorListener = this.listen(spectatorPort);
+		this.sessions = new ConcurrentHashMap<Integer, GameSession>();
+		this.sessionsStarted = 0;
+		this.running = true;
+	}
+
+	// A channel listening on the given local port and registered for accepting
+	ServerSocketChannel listen(int port) throws IOException {
+		ServerSocketChannel listener = ServerSocketChannel.open();
+		listener.bind(new InetSocketAddress("localhost", port));
+		listener.configureBlocking(false);
+		listener.register(this.selector, SelectionKey.OP_ACCEPT);
+		return listener;
+	}
+
+	// The port players connect to, which the system picked if the server was given port 0
+	int port() throws IOException {
+		return ((InetSocketAddress) this.listener.getLocalAddress()).getPort();
+	}
+
+	// The port spectators connect to, which the system picked if the server was given port 0
+	int spectatorPort() throws IOException {
+		return ((InetSocketAddress) this.spectatorListener.getLocalAddress()).getPort();
+	}
+
+	// Accepts clients, reads their moves and finishes writes they were slow to take until the server is closed, then
+	// closes every connection and the selector
+	// EFFECT: Adds sessions to the scheduler and moves to their queues
+	void serve() throws IOException {
+		this.scheduler.start();
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		while (this.running) {
+			this.selector.select();
+			Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (!key.isValid()) {
+					continue;
+				}
+				if (key.isAcceptable()) {
+					if (key.channel() == this.spectatorListener) {
+						this.acceptSpectator();
+					} else {
+						this.accept();
+					}
+					continue;
+				}
+				if (key.isWritable()) {
+					((IServerClient) key.attachment()).output().flush();
+				}
+				if (key.isValid() && key.isReadable()) {
+					this.read(key, buffer);
+				}
+			}
+		}
+		for (SelectionKey key : this.selector.keys()) {
+			if (key.attachment() instanceof IServerClient) {
+				((IServerClient) key.attachment()).output().close();
+			} else {
+				key.channel().close();
+			}
+		}
+		this.selector.close();
+	}
+
+	// Serves on the current thread until the server is closed
+	// EFFECT: Adds sessions to the scheduler and moves to their queues
+	public void run() {
+		try {
+			this.serve();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// Stops ticking sessions and has the selector thread stop serving, which it does as soon as it wakes
+	// EFFECT: Stops the scheduler and the selector thread
+	void close() {
+		this.running = false;
+		this.scheduler.stop();
+		this.selector.wakeup();
+	}
+
+	// Starts a session for a newly connected client and tells it the session's id
+	// EFFECT: Adds a session to the scheduler and forgets finished sessions
+	void accept() throws IOException {
+		SocketChannel client = this.listener.accept();
+		if (client == null) {
+			return;
+		}
+		client.configureBlocking(false);
+		GameSession session = new GameSession(this.sessionsStarted, client, System.nanoTime(), this.telemetry);
+		this.sessionsStarted += 1;
+		session.output.key = client.register(this.selector, SelectionKey.OP_READ, session);
+		session.output.send(ByteBuffer.wrap(("SESSION " + session.id + "\n").getBytes(StandardCharsets.US_ASCII)));
+		Iterator<GameSession> known = this.sessions.values().iterator();
+		while (known.hasNext()) {
+			if (known.next().closed) {
+				known.remove();
+			}
+		}
+		this.sessions.put(session.id, session);
+		this.scheduler.add(session);
+	}
+
+	// Waits for a newly connected spectator to name the session it watches
+	// EFFECT: Registers the spectator with the selector
+	void acceptSpectator() throws IOException {
+		SocketChannel channel = this.spectatorListener.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		SpectatorClient spectator = new SpectatorClient(channel);
+		spectator.output.key = channel.register(this.selector, SelectionKey.OP_READ, spectator);
+	}
+
+	// Reads whatever a client has sent and hands it each complete line
+	// EFFECT: Passes lines to the client
+	void read(SelectionKey key, ByteBuffer buffer) {
+		IServerClient client = (IServerClient) key.attachment();
+		StringBuilder partial = client.partialInput();
+		buffer.clear();
+		int read;
+		try {
+			read = ((SocketChannel) key.channel()).read(buffer);
+		} catch (IOException e) {
+			read = -1;
+		}
+		if (read < 0) {
+			// A session sees its client has gone and finishes
+			client.output().close();
+			return;
+		}
+		partial.append(new String(buffer.array(), 0, read, StandardCharsets.US_ASCII));
+		int newline = partial.indexOf("\n");
+		while (newline >= 0) {
+			client.receive(partial.substring(0, newline).trim(), this);
+			partial.delete(0, newline + 1);
+			newline = partial.indexOf("\n");
+		}
+	}
+
+	// Usage: GameServer [port] [worker threads] [spectator port]
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+		int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int spectatorPort = args.length > 2 ? Integer.parseInt(args[2]) : port + 1;
+		new GameServer(port, spectatorPort, workers, TelemetryWriter.standard()).serve();
+	}
+}
+
+// Finds how many bot-driven sessions one worker thread (one core) can tick at a steady 30 Hz: sessions are added
+// in steps, and each step reports tick lag and shed ticks across all sessions
+class SessionBenchmark {
+	// Usage: SessionBenchmark [worker threads] [sessions added per step] [steps] [seconds per step]
+	public static void main(String[] args) throws InterruptedException {
+		int workers = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		int perStep = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+		int steps = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+		SessionScheduler scheduler = new SessionScheduler(workers, IConstant.TICK_RATE);
+		scheduler.start();
+		System.out.println("sessions\tticks/s\tp50 lag us\tp99 lag us\tmax lag us\tshed ticks\tdropped");
+		for (int step = 1; step <= steps; step += 1) {
+			for (int i = 0; i < perStep; i += 1) {
+				scheduler.add(new GameSession(scheduler.sessionsAdded, null, System.nanoTime()));
+			}
+			// Let the new sessions settle before measuring
+			Thread.sleep(500);
+			for (GameSession session : scheduler.sessions()) {
+				session.takeStats();
+			}
+			Thread.sleep(1000L * seconds);
+
+			ArrayList<GameSession> sessions = scheduler.sessions();
+			SessionStats combined = new SessionStats();
+			for (GameSession session : sessions) {
+				combined.add(session.takeStats());
+			}
+			System.out.println(sessions.size() + "\t" + combined.ticks / seconds + "\t"
+					+ combined.lagPercentileMicros(0.5) + "\t" + combined.lagPercentileMicros(0.99) + "\t"
+					+ combined.maxLagNanos / 1000 + "\t" + combined.shedTicks + "\t" + scheduler.dropped.size());
+		}
+		scheduler.stop();
+	}
+}
@@ -0,0 +1,301 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A horizontal move made at the start of some tick
+class SoakInput {
+	final int tick;
+	final String move;
+
+	SoakInput(int tick, String move) {
+		this.tick = tick;
+		this.move = move;
+	}
+
+	public String toString() {
+		return this.tick + ":" + this.move;
+	}
+
+	// Reads a list of moves as SoakRepro prints them ("[12:left, 40:right]"), with or without the brackets and
+	// separated by commas or whitespace
+	static ArrayList<SoakInput> parseList(String text) {
+		ArrayList<SoakInput> inputs = new ArrayList<SoakInput>();
+		for (String entry : text.replace("[", " ").replace("]", " ").trim().split("[,\\s]+")) {
+			if (entry.isEmpty()) {
+				continue;
+			}
+			String[] parts = entry.split(":");
+			if (parts.length != 2 || !java.util.Arrays.asList(SoakRun.MOVES).contains(parts[1])) {
+				throw new IllegalArgumentException("Not a recorded move: " + entry);
+			}
+			try {
+				inputs.add(new SoakInput(Integer.parseInt(parts[0]), parts[1]));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Not a recorded move: " + entry);
+			}
+		}
+		return inputs;
+	}
+}
+
+// Why and when a soak run stopped early
+class SoakFailure {
+	final int tick;
+	final String message;
+
+	SoakFailure(int tick, String message) {
+		this.tick = tick;
+		this.message = message;
+	}
+}
+
+// A seed and moves that make a game fail, small enough to replay by hand
+class SoakRepro {
+	final long seed;
+	final List<SoakInput> inputs;
+	final SoakFailure failure;
+
+	SoakRepro(long seed, List<SoakInput> inputs, SoakFailure failure) {
+		this.seed = seed;
+		this.inputs = inputs;
+		this.failure = failure;
+	}
+
+	public String toString() {
+		return "seed " + this.seed + ", inputs " + this.inputs + ", fails at tick " + this.failure.tick + ": "
+				+ this.failure.message;
+	}
+}
+
+// Plays one seeded game with the given moves, checking the game's invariants after every tick. Everything random in
+// the game comes from the seed, so the same seed and moves always play out the same way.
+class SoakRun {
+	// Fixed spawn tables, so an edit to the config file cannot change a replay
+	static final SpawnConfigSource SPAWNS = new SpawnConfigSource(SpawnConfig.DEFAULT);
+	static final String[] MOVES = { "left", "right", "reset" };
+	// More components than this at once means something is not being cleaned up
+	static final int MAX_COMPONENTS = 500;
+
+	final long seed;
+	// The moves to replay, or the moves made so far when piloted
+	final List<SoakInput> inputs;
+	final int maxTicks;
+	// Chooses moves when piloted, or null when replaying
+	final Random pilot;
+	// Ticks completed by the last run
+	int ticks;
+
+	// Constructor replays the given moves
+	SoakRun(long seed, List<SoakInput> inputs, int maxTicks) {
+		this(seed, inputs, maxTicks, null);
+	}
+
+	SoakRun(long seed, List<SoakInput> inputs, int maxTicks, Random pilot) {
+		this.seed = seed;
+		this.inputs = inputs;
+		this.maxTicks = maxTicks;
+		this.pilot = pilot;
+		this.ticks = 0;
+	}
+
+	// A run that steers toward the platform below the player, as someone playing would, so games last long enough
+	// to reach deep into the game, with random moves mixed in; the moves made are recorded for replay
+	static SoakRun piloted(long seed, int maxTicks) {
+		return new SoakRun(seed, new ArrayList<SoakInput>(), maxTicks, new Random(seed ^ 0x5DEECE66DL));
+	}
+
+	// A new game with all of its randomness drawn from the seed
+	static JumpingGame seededGame(long seed) {
+		return new JumpingGame(new PlatformGenerator(SPAWNS, new Random(seed)),
+				new HazardGenerator(SPAWNS, new Random(seed * 31 + 1)),
+				new ItemGenerator(SPAWNS, new Random(seed * 31 + 2)));
+	}
+
+	// The move the pilot makes: usually toward the nearest platform below the player, now and then at random
+	String pilotMove(JumpingGame game) {
+		if (this.pilot.nextInt(10) == 0) {
+			return MOVES[this.pilot.nextInt(MOVES.length)];
+		}
+		Player player = game.player;
+		IGameComponent target = null;
+		for (IGameComponent component : game.gamePieces) {
+			if ((ReachabilityIndex.isStep(component) || component.kind() == ComponentKind.BRITTLE_PLATFORM)
+					&& component.topEdge() > player.position.y
+					&& (target == null || component.topEdge() < target.topEdge())) {
+				target = component;
+			}
+		}
+		if (target == null) {
+			return "reset";
+		}
+		int dx = Math.floorMod((target.leftEdge() + target.rightEdge()) / 2 - player.position.x,
+				IConstant.WINDOW_WIDTH);
+		if (dx < IConstant.PLAYER_X_SPEED || dx > IConstant.WINDOW_WIDTH - IConstant.PLAYER_X_SPEED) {
+			return "reset";
+		}
+		return dx < IConstant.WINDOW_WIDTH / 2 ? "right" : "left";
+	}
+
+	// Plays until the game is lost, the tick limit, or a failure, which is returned (null if none)
+	// EFFECT: Records the number of ticks played
+	SoakFailure run() {
+		JumpingGame game = seededGame(this.seed);
+		int next = 0;
+		String lastMove = "reset";
+		this.ticks = 0;
+		while (this.ticks < this.maxTicks && !game.gameOver()) {
+			if (this.pilot != null) {
+				String move = this.pilotMove(game);
+				if (!move.equals(lastMove)) {
+					this.inputs.add(new SoakInput(this.ticks, move));
+					lastMove = move;
+				}
+			}
+			while (next < this.inputs.size() && this.inputs.get(next).tick <= this.ticks) {
+				game.playerHorizontalMove(this.inputs.get(next).move);
+				next += 1;
+			}
+			int previousScore = game.score;
+			try {
+				game.tick();
+			} catch (RuntimeException e) {
+				return new SoakFailure(this.ticks, e.getClass().getSimpleName() + ": " + e.getMessage());
+			}
+			String violation = this.violation(game, previousScore);
+			if (violation != null) {
+				return new SoakFailure(this.ticks, violation);
+			}
+			this.ticks += 1;
+		}
+		return null;
+	}
+
+	// Describes the first invariant the game breaks after a tick, or null if it keeps them all
+	String violation(JumpingGame game, int previousScore) {
+		Player player = game.player;
+		if (game.score < previousScore) {
+			return "Score went down.";
+		}
+		if (player.displacementFromCamera() < 0) {
+			return "Player is above the camera.";
+		}
+		if (player.position.x < 0 || player.position.x >= IConstant.WINDOW_WIDTH) {
+			return "Player is off the side of the screen.";
+		}
+		if (player.velocity.y > IConstant.TERMINAL_VELOCITY) {
+			return "Player is falling faster than terminal velocity.";
+		}
+		if (game.gamePieces.size() > MAX_COMPONENTS) {
+			return "Too many components; some are not being removed.";
+		}
+		for (IGameComponent component : game.gamePieces) {
+			if (component.topEdge() > IConstant.WINDOW_HEIGHT + IConstant.WINDOW_HEIGHT) {
+				return "A " + component.kind() + " fell far below the screen without being removed.";
+			}
+		}
+		return null;
+	}
+
+	// A run of the same game that replays the given moves instead
+	SoakRun replay(List<SoakInput> moves) {
+		return new SoakRun(this.seed, moves, this.maxTicks);
+	}
+
+	// Shrinks this run's failure to as few moves as still fail the same way: moves after the failure are dropped,
+	// then ever smaller runs of moves are removed for as long as the failure persists
+	SoakRepro shrink(SoakFailure failure) {
+		ArrayList<SoakInput> kept = new ArrayList<SoakInput>();
+		for (SoakInput input : this.inputs) {
+			if (input.tick <= failure.tick) {
+				kept.add(input);
+			}
+		}
+		SoakFailure current = failure;
+		int chunk = Math.max(1, kept.size() / 2);
+		while (chunk >= 1 && !kept.isEmpty()) {
+			int start = 0;
+			while (start < kept.size()) {
+				ArrayList<SoakInput> candidate = new ArrayList<SoakInput>(kept.subList(0, start));
+				candidate.addAll(kept.subList(Math.min(kept.size(), start + chunk), kept.size()));
+				SoakFailure result = this.replay(candidate).run();
+				if (result != null && result.message.equals(failure.message)) {
+					kept = candidate;
+					current = result;
+				} else {
+					start += chunk;
+				}
+			}
+			chunk /= 2;
+		}
+		return new SoakRepro(this.seed, kept, current);
+	}
+}
+
+// Runs seeded, piloted games on every core until the requested number of ticks has been played, and
+// reports each distinct failure found with the smallest repro shrunk from it
+class SoakHarness implements Runnable {
+	final long targetTicks;
+	final int maxTicksPerGame;
+	final AtomicLong nextSeed;
+	final AtomicLong ticksPlayed;
+	final AtomicLong gamesPlayed;
+	// The smallest repro of each distinct failure message
+	final ConcurrentHashMap<String, SoakRepro> failures;
+
+	SoakHarness(long firstSeed, long targetTicks, int maxTicksPerGame) {
+		this.targetTicks = targetTicks;
+		this.maxTicksPerGame = maxTicksPerGame;
+		this.nextSeed = new AtomicLong(firstSeed);
+		this.ticksPlayed = new AtomicLong(0);
+		this.gamesPlayed = new AtomicLong(0);
+		this.failures = new ConcurrentHashMap<String, SoakRepro>();
+	}
+
+	// Plays games until the target is reached, shrinking any failure not already found
+	// EFFECT: Adds to the counts and failures
+	public void run() {
+		while (this.ticksPlayed.get() < this.targetTicks) {
+			long seed = this.nextSeed.getAndIncrement();
+			SoakRun run = SoakRun.piloted(seed, this.maxTicksPerGame);
+			SoakFailure failure = run.run();
+			this.ticksPlayed.addAndGet(run.ticks + 1);
+			this.gamesPlayed.incrementAndGet();
+			if (failure != null && !this.failures.containsKey(failure.message)) {
+				SoakRepro repro = run.shrink(failure);
+				SoakRepro found = this.failures.putIfAbsent(failure.message, repro);
+				if (found != null && repro.inputs.size() < found.inputs.size()) {
+					this.failures.replace(failure.message, found, repro);
+				}
+			}
+		}
+	}
+
+	// Usage: SoakHarness [ticks] [threads] [first seed] [max ticks per game]
+	public static void main(String[] args) throws InterruptedException {
+		long ticks = args.length > 0 ? Long.parseLong(args[0]) : 100000000L;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		int maxTicksPerGame = args.length > 3 ? Integer.parseInt(args[3]) : 20000;
+
+		SoakHarness harness = new SoakHarness(firstSeed, ticks, maxTicksPerGame);
+		long start = System.nanoTime();
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i += 1) {
+			workers[i] = new Thread(harness, "soak-" + i);
+			workers[i].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println("Played " + harness.ticksPlayed.get() + " ticks in " + harness.gamesPlayed.get()
+				+ " games on " + threads + " threads (" + (long) (harness.ticksPlayed.get() / seconds) + " ticks/s)");
+		System.out.println(harness.failures.size() + " distinct failures");
+		for (SoakRepro repro : harness.failures.values()) {
+			System.out.println("  " + repro);
+		}
+	}
+}
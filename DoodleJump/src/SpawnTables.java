@@ -0,0 +1,388 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Samples an index with probability proportional to its weight in constant time, using Vose's alias method: each
+// of n equally likely columns holds its own index with some probability and otherwise an alias index, arranged so
+// the total chance of each index matches its weight
+class AliasTable {
+	final double[] probability;
+	final int[] alias;
+
+	// Constructor builds the columns from non-negative weights with a positive total
+	AliasTable(double[] weights) {
+		int n = weights.length;
+		double total = 0;
+		for (double weight : weights) {
+			if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+				throw new IllegalArgumentException("Weights must be finite and non-negative.");
+			}
+			total += weight;
+		}
+		if (n == 0 || total <= 0) {
+			throw new IllegalArgumentException("Weights must have a positive total.");
+		}
+		this.probability = new double[n];
+		this.alias = new int[n];
+
+		// Scale so the average weight is 1, then pair each under-full column with an over-full one
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int smallCount = 0;
+		int[] large = new int[n];
+		int largeCount = 0;
+		for (int i = 0; i < n; i += 1) {
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1) {
+				small[smallCount] = i;
+				smallCount += 1;
+			} else {
+				large[largeCount] = i;
+				largeCount += 1;
+			}
+		}
+		while (smallCount > 0 && largeCount > 0) {
+			smallCount -= 1;
+			int less = small[smallCount];
+			largeCount -= 1;
+			int more = large[largeCount];
+			this.probability[less] = scaled[less];
+			this.alias[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if (scaled[more] < 1) {
+				small[smallCount] = more;
+				smallCount += 1;
+			} else {
+				large[largeCount] = more;
+				largeCount += 1;
+			}
+		}
+		// Whatever is left is full up to rounding error
+		for (int i = 0; i < largeCount; i += 1) {
+			this.probability[large[i]] = 1;
+			this.alias[large[i]] = large[i];
+		}
+		for (int i = 0; i < smallCount; i += 1) {
+			this.probability[small[i]] = 1;
+			this.alias[small[i]] = small[i];
+		}
+	}
+
+	// Picks an index
+	int sample(Random random) {
+		int column = random.nextInt(this.probability.length);
+		return random.nextDouble() < this.probability[column] ? column : this.alias[column];
+	}
+
+	// The chance that the given index is picked
+	double chanceOf(int index) {
+		double chance = this.probability[index];
+		for (int column = 0; column < this.alias.length; column += 1) {
+			if (this.alias[column] == index && column != index) {
+				chance += 1 - this.probability[column];
+			}
+		}
+		return chance / this.probability.length;
+	}
+}
+
+// What one generator produces, with weights, and how much height it waits between components
+class SpawnTable<K extends Enum<K>> {
+	final List<K> outcomes;
+	// The weight of each outcome, and the alias table sampling by them
+	final double[] rawWeights;
+	final AliasTable weights;
+	// Inclusive ranges of the spacing before the first component and between later ones
+	final int firstLow;
+	final int firstHigh;
+	final int spacingLow;
+	final int spacingHigh;
+
+	SpawnTable(List<K> outcomes, double[] weights, int firstLow, int firstHigh, int spacingLow, int spacingHigh) {
+		if (firstLow <= 0 || spacingLow <= 0 || firstHigh < firstLow || spacingHigh < spacingLow) {
+			throw new IllegalArgumentException("Spacings must be positive ranges.");
+		}
+		this.outcomes = outcomes;
+		this.rawWeights = weights;
+		this.weights = new AliasTable(weights);
+		this.firstLow = firstLow;
+		this.firstHigh = firstHigh;
+		this.spacingLow = spacingLow;
+		this.spacingHigh = spacingHigh;
+	}
+
+	// Picks what to produce next
+	K sample(Random random) {
+		return this.outcomes.get(this.weights.sample(random));
+	}
+
+	// Picks the height to wait before the first component
+	int firstSpacing(Random random) {
+		return this.firstLow + random.nextInt(this.firstHigh - this.firstLow + 1);
+	}
+
+	// Picks the height to wait between components
+	int nextSpacing(Random random) {
+		return this.spacingLow + random.nextInt(this.spacingHigh - this.spacingLow + 1);
+	}
+}
+
+// The spawn tables of all three generators, read from a config file of sections like
+//
+//   [platforms] spacing 20 80
+//   standard-platform 73
+//   moving-platform 10
+//
+// where each section names a generator and its inclusive spacing range (optionally followed by "first" and a
+// separate range for the first component), and each line below it names something the generator can produce and its
+// weight. Lines starting with '#' are comments. An optional [difficulty] section (see DifficultyCurves) changes the
+// tables with the score; its curves are evaluated once per band of scores when the config is read, so a generator
+// finds its tables with one array read.
+class SpawnConfig {
+	// What each generator knows how to create
+	static final List<ComponentKind> PLATFORM_KINDS = Arrays.asList(ComponentKind.STANDARD_PLATFORM,
+			ComponentKind.MOVING_PLATFORM, ComponentKind.BRITTLE_PLATFORM, ComponentKind.SPRING_PLATFORM,
+			ComponentKind.ETHEREAL_PLATFORM, ComponentKind.VERTICAL_PLATFORM, ComponentKind.DIAGONAL_PLATFORM,
+			ComponentKind.CIRCLING_PLATFORM, ComponentKind.SINKING_PLATFORM);
+	static final List<ComponentKind> HAZARD_KINDS = Arrays.asList(ComponentKind.BLACK_HOLE, ComponentKind.MONSTER);
+	static final List<ItemKind> ITEM_KINDS = Arrays.asList(ItemKind.PROPELLER_HAT, ItemKind.JET_PACK,
+			ItemKind.SHIELD);
+
+	// The game's usual mix: the original platforms, less six of the standard platforms' weight, which now goes to
+	// the platforms that follow paths
+	static final String DEFAULT_TEXT = String.join("\n",
+			"[platforms] spacing 20 80",
+			"standard-platform 67",
+			"moving-platform 10",
+			"brittle-platform 10",
+			"spring-platform 3",
+			"ethereal-platform 4",
+			"vertical-platform 2",
+			"diagonal-platform 2",
+			"circling-platform 1",
+			"sinking-platform 1",
+			"[hazards] spacing 500 500 first 500 1500",
+			"black-hole 50",
+			"monster 50",
+			"[items] spacing 2000 4000",
+			"propeller-hat 40",
+			"jet-pack 20",
+			"shield 40",
+			"[difficulty] band 500",
+			"platform-spacing 0=1 20000=1.5",
+			"moving-platform 0=1 20000=2.5",
+			"brittle-platform 0=1 20000=2",
+			"moving-platform-speed 0=10 20000=14",
+			"hazard-spacing 0=1 20000=0.6",
+			"monster-speed 0=10 20000=14");
+	static final SpawnConfig DEFAULT = SpawnConfig.parse(DEFAULT_TEXT);
+
+	final SpawnTable<ComponentKind> platforms;
+	final SpawnTable<ComponentKind> hazards;
+	final SpawnTable<ItemKind> items;
+	// The tables and speeds for each band of scores, the last covering every higher score too
+	final int bandHeight;
+	final DifficultyBand[] bands;
+
+	SpawnConfig(SpawnTable<ComponentKind> platforms, SpawnTable<ComponentKind> hazards, SpawnTable<ItemKind> items,
+			DifficultyCurves difficulty) {
+		this.platforms = platforms;
+		this.hazards = hazards;
+		this.items = items;
+		this.bandHeight = difficulty.bandHeight;
+		this.bands = difficulty.compile(platforms, hazards, items);
+	}
+
+	// The tables and speeds to use at the given score
+	DifficultyBand band(int score) {
+		return this.bands[Math.min(score / this.bandHeight, this.bands.length - 1)];
+	}
+
+	// Reads a config, throwing an IllegalArgumentException naming the line of the first problem
+	static SpawnConfig parse(String text) {
+		String[] lines = text.split("\r?\n");
+		SpawnTable<ComponentKind> platforms = null;
+		SpawnTable<ComponentKind> hazards = null;
+		SpawnTable<ItemKind> items = null;
+		DifficultyCurves difficulty = null;
+		int at = 0;
+		while (at < lines.length) {
+			String header = lines[at].trim();
+			if (header.isEmpty() || header.startsWith("#")) {
+				at += 1;
+				continue;
+			}
+			int sectionLine = at + 1;
+			// The section's entries run to the next header
+			int end = at + 1;
+			while (end < lines.length && !lines[end].trim().startsWith("[")) {
+				end += 1;
+			}
+			String[] words = header.split("\\s+");
+			try {
+				if (words[0].equals("[platforms]") && platforms == null) {
+					platforms = parseSection(words, lines, at + 1, end, PLATFORM_KINDS);
+				} else if (words[0].equals("[hazards]") && hazards == null) {
+					hazards = parseSection(words, lines, at + 1, end, HAZARD_KINDS);
+				} else if (words[0].equals("[items]") && items == null) {
+					items = parseSection(words, lines, at + 1, end, ITEM_KINDS);
+				} else if (words[0].equals("[difficulty]") && difficulty == null) {
+					difficulty = DifficultyCurves.parseSection(words, lines, at + 1, end);
+				} else {
+					throw new IllegalArgumentException("Unknown or repeated section " + words[0] + ".");
+				}
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Spawn config line " + sectionLine + ": " + e.getMessage());
+			}
+			at = end;
+		}
+		if (platforms == null || hazards == null || items == null) {
+			throw new IllegalArgumentException("Spawn config needs [platforms], [hazards] and [items] sections.");
+		}
+		return new SpawnConfig(platforms, hazards, items,
+				difficulty == null ? new DifficultyCurves(Integer.MAX_VALUE) : difficulty);
+	}
+
+	// Reads one section, given its header words and the range of lines holding its entries
+	static <K extends Enum<K>> SpawnTable<K> parseSection(String[] header, String[] lines, int start, int end,
+			List<K> allowed) {
+		if (!(header.length == 4 || (header.length == 7 && header[4].equals("first")))
+				|| !header[1].equals("spacing")) {
+			throw new IllegalArgumentException(
+					"Expected \"" + header[0] + " spacing <low> <high> [first <low> <high>]\".");
+		}
+		int spacingLow = Integer.parseInt(header[2]);
+		int spacingHigh = Integer.parseInt(header[3]);
+		int firstLow = header.length == 7 ? Integer.parseInt(header[5]) : spacingLow;
+		int firstHigh = header.length == 7 ? Integer.parseInt(header[6]) : spacingHigh;
+
+		ArrayList<K> outcomes = new ArrayList<K>();
+		double[] weights = new double[end - start];
+		for (int i = start; i < end; i += 1) {
+			String line = lines[i].trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] words = line.split("\\s+");
+			if (words.length != 2) {
+				throw new IllegalArgumentException("Expected \"<name> <weight>\" on line " + (i + 1) + ".");
+			}
+			K kind = null;
+			for (K candidate : allowed) {
+				if (candidate.name().equals(words[0].toUpperCase().replace('-', '_'))) {
+					kind = candidate;
+				}
+			}
+			if (kind == null || outcomes.contains(kind)) {
+				throw new IllegalArgumentException("Cannot spawn " + words[0] + " here (line " + (i + 1) + ").");
+			}
+			weights[outcomes.size()] = Double.parseDouble(words[1]);
+			outcomes.add(kind);
+		}
+		return new SpawnTable<K>(outcomes, Arrays.copyOf(weights, outcomes.size()), firstLow, firstHigh, spacingLow,
+				spacingHigh);
+	}
+}
+
+// The spawn config games read from, swapped atomically for a new one whenever its file changes. A file that is
+// missing or fails to parse leaves the config in use unchanged, so a half-saved edit never interrupts a game.
+class SpawnConfigSource implements Runnable {
+	static SpawnConfigSource standard;
+
+	final Path file;
+	final AtomicReference<SpawnConfig> current;
+	// When the file was last read, whether or not it parsed
+	FileTime loadedModified;
+	// Why the last read was rejected, or null if it was accepted
+	volatile String lastError;
+	Thread watcher;
+	final long checkMillis;
+
+	// Constructor begins with the default config and reads the given file if it exists
+	SpawnConfigSource(Path file, long checkMillis) {
+		this.file = file;
+		this.current = new AtomicReference<SpawnConfig>(SpawnConfig.DEFAULT);
+		this.loadedModified = null;
+		this.lastError = null;
+		this.watcher = null;
+		this.checkMillis = checkMillis;
+		this.reloadIfChanged();
+	}
+
+	// Constructor always supplies the given config, reading no file
+	SpawnConfigSource(SpawnConfig config) {
+		this.file = null;
+		this.current = new AtomicReference<SpawnConfig>(config);
+		this.loadedModified = null;
+		this.lastError = null;
+		this.watcher = null;
+		this.checkMillis = 0;
+	}
+
+	// The source shared by every game, reading the standard config file
+	static synchronized SpawnConfigSource standard() {
+		if (standard == null) {
+			standard = new SpawnConfigSource(Paths.get(IConstant.SPAWN_CONFIG_FILE), 500);
+		}
+		return standard;
+	}
+
+	// The config to use now
+	SpawnConfig current() {
+		return this.current.get();
+	}
+
+	// Reads the file again if it has been modified since it was last read, returning whether a new config was
+	// swapped in
+	// EFFECT: May replace the current config and record a parse error
+	synchronized boolean reloadIfChanged() {
+		try {
+			if (this.file == null || !Files.exists(this.file)) {
+				return false;
+			}
+			FileTime modified = Files.getLastModifiedTime(this.file);
+			if (modified.equals(this.loadedModified)) {
+				return false;
+			}
+			this.loadedModified = modified;
+			String text = new String(Files.readAllBytes(this.file), StandardCharsets.UTF_8);
+			this.current.set(SpawnConfig.parse(text));
+			this.lastError = null;
+			return true;
+		} catch (IOException | IllegalArgumentException e) {
+			this.lastError = e.getMessage();
+			return false;
+		}
+	}
+
+	// Starts checking the file for changes on a background thread, if not already checking
+	// EFFECT: May start a thread
+	synchronized void startWatching() {
+		if (this.watcher == null) {
+			this.watcher = new Thread(this, "spawn-config-watcher");
+			this.watcher.setDaemon(true);
+			this.watcher.start();
+		}
+	}
+
+	// Checks the file for changes until interrupted
+	// EFFECT: Replaces the current config as the file changes
+	public void run() {
+		try {
+			while (true) {
+				Thread.sleep(this.checkMillis);
+				this.reloadIfChanged();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,344 @@
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+
+// Reads and writes variable-length integers: 7 bits per byte, low bits first, with the high bit marking that
+// more bytes follow. Signed values are zigzag-encoded first so small negative numbers stay short.
+class VarInts {
+	// EFFECT: Writes the non-negative value to the buffer
+	static void putUnsigned(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	// EFFECT: Writes the value to the buffer
+	static void putSigned(ByteBuffer buffer, long value) {
+		putUnsigned(buffer, (value << 1) ^ (value >> 63));
+	}
+
+	// EFFECT: Reads a non-negative value from the buffer
+	static long getUnsigned(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte b = buffer.get();
+		while ((b & 0x80) != 0) {
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+			b = buffer.get();
+		}
+		return value | ((long) b << shift);
+	}
+
+	// EFFECT: Reads a value from the buffer
+	static long getSigned(ByteBuffer buffer) {
+		long zigzag = getUnsigned(buffer);
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+}
+
+// What a spectator can see of a game after one tick. Component heights are world heights (screen y minus the
+// score), which do not change when the camera moves, and components are sorted by id.
+class SpectatorState {
+	final long tick;
+	final int playerX;
+	final int playerWorldY;
+	final int playerXVel;
+	final int playerYVel;
+	final int score;
+	final boolean gameOver;
+	final int[] ids;
+	final int[] kinds;
+	final int[] xs;
+	final int[] worldYs;
+
+	SpectatorState(long tick, int playerX, int playerWorldY, int playerXVel, int playerYVel, int score,
+			boolean gameOver, int[] ids, int[] kinds, int[] xs, int[] worldYs) {
+		this.tick = tick;
+		this.playerX = playerX;
+		this.playerWorldY = playerWorldY;
+		this.playerXVel = playerXVel;
+		this.playerYVel = playerYVel;
+		this.score = score;
+		this.gameOver = gameOver;
+		this.ids = ids;
+		this.kinds = kinds;
+		this.xs = xs;
+		this.worldYs = worldYs;
+	}
+
+	// The state before anything has been seen, which keyframes are encoded against
+	static SpectatorState empty() {
+		return new SpectatorState(-1, 0, 0, 0, 0, 0, false, new int[0], new int[0], new int[0], new int[0]);
+	}
+}
+
+// Encodes each tick of a game for spectators as changes against a state the spectator has acknowledged: the
+// player's motion, the score, components spawned and removed, and components that moved. A frame is encoded at most
+// once per tick for each baseline, straight into a buffer that every spectator on that baseline reads through its
+// own read-only view, so a crowd of caught-up spectators costs one encoding per tick.
+class SpectatorFeed {
+	// How many past states are kept as possible baselines; older acknowledgements get a keyframe
+	static final int HISTORY = 64;
+
+	// Ids handed out to the components currently in the game
+	IdentityHashMap<IGameComponent, Integer> ids;
+	int nextId;
+	final SpectatorState[] history;
+	SpectatorState latest;
+	// Frames of the latest state already encoded, by baseline tick (-1 for a keyframe)
+	final HashMap<Long, ByteBuffer> encoded;
+	// Total frames encoded, however many spectators read them
+	int encodings;
+
+	SpectatorFeed() {
+		this.ids = new IdentityHashMap<IGameComponent, Integer>();
+		this.nextId = 0;
+		this.history = new SpectatorState[HISTORY];
+		this.latest = null;
+		this.encoded = new HashMap<Long, ByteBuffer>();
+		this.encodings = 0;
+	}
+
+	// Records the state of the game after the given tick
+	// EFFECT: Modifies the component ids, the history, and clears the encoded frames
+	void capture(JumpingGame game, long tick) {
+		IdentityHashMap<IGameComponent, Integer> currentIds = new IdentityHashMap<IGameComponent, Integer>();
+		int count = game.gamePieces.size();
+		int[] ids = new int[count];
+		int[] kinds = new int[count];
+		int[] xs = new int[count];
+		int[] worldYs = new int[count];
+		boolean sorted = true;
+		for (int i = 0; i < count; i += 1) {
+			IGameComponent component = game.gamePieces.get(i);
+			Integer id = this.ids.get(component);
+			if (id == null) {
+				id = this.nextId;
+				this.nextId += 1;
+			}
+			currentIds.put(component, id);
+			ids[i] = id;
+			kinds[i] = component.kind().ordinal();
+			xs[i] = (component.leftEdge() + component.rightEdge()) / 2;
+			worldYs[i] = (component.topEdge() + component.bottomEdge()) / 2 - game.score;
+			sorted = sorted && (i == 0 || ids[i - 1] < ids[i]);
+		}
+		this.ids = currentIds;
+		if (!sorted) {
+			this.sortById(ids, kinds, xs, worldYs);
+		}
+
+		Player player = game.player;
+		this.latest = new SpectatorState(tick, player.position.x, player.position.y - game.score, player.velocity.x,
+				player.velocity.y, game.score, game.gameOver(), ids, kinds, xs, worldYs);
+		this.history[(int) (tick % HISTORY)] = this.latest;
+		this.encoded.clear();
+	}
+
+	// Sorts the parallel component arrays by id (components are normally already in id order)
+	// EFFECT: Reorders the given arrays
+	void sortById(int[] ids, int[] kinds, int[] xs, int[] worldYs) {
+		for (int i = 1; i < ids.length; i += 1) {
+			int id = ids[i];
+			int kind = kinds[i];
+			int x = xs[i];
+			int worldY = worldYs[i];
+			int j = i - 1;
+			while (j >= 0 && ids[j] > id) {
+				ids[j + 1] = ids[j];
+				kinds[j + 1] = kinds[j];
+				xs[j + 1] = xs[j];
+				worldYs[j + 1] = worldYs[j];
+				j -= 1;
+			}
+			ids[j + 1] = id;
+			kinds[j + 1] = kind;
+			xs[j + 1] = x;
+			worldYs[j + 1] = worldY;
+		}
+	}
+
+	// A read-only view of the latest frame encoded for a spectator that has acknowledged the given tick
+	// (negative if it has seen nothing); the frame is encoded only if no other spectator asked for it already
+	// EFFECT: May encode and cache a frame
+	ByteBuffer frameFor(long ackedTick) {
+		SpectatorState baseline = null;
+		if (ackedTick >= 0 && ackedTick < this.latest.tick) {
+			SpectatorState kept = this.history[(int) (ackedTick % HISTORY)];
+			if (kept != null && kept.tick == ackedTick) {
+				baseline = kept;
+			}
+		}
+		long key = baseline == null ? -1 : baseline.tick;
+		ByteBuffer frame = this.encoded.get(key);
+		if (frame == null) {
+			frame = this.encode(this.latest, baseline == null ? SpectatorState.empty() : baseline);
+			this.encoded.put(key, frame);
+			this.encodings += 1;
+		}
+		return frame.asReadOnlyBuffer();
+	}
+
+	// The changes from the baseline to the target state
+	ByteBuffer encode(SpectatorState target, SpectatorState baseline) {
+		// Enough room for the header and every component appearing in one of the three lists
+		ByteBuffer frame = ByteBuffer.allocateDirect(80 + 25 * (target.ids.length + baseline.ids.length));
+		VarInts.putUnsigned(frame, target.tick);
+		VarInts.putUnsigned(frame, baseline.tick + 1);
+		VarInts.putSigned(frame, target.playerX - baseline.playerX);
+		VarInts.putSigned(frame, target.playerWorldY - baseline.playerWorldY);
+		VarInts.putSigned(frame, target.playerXVel - baseline.playerXVel);
+		VarInts.putSigned(frame, target.playerYVel - baseline.playerYVel);
+		VarInts.putSigned(frame, target.score - baseline.score);
+		frame.put((byte) (target.gameOver ? 1 : 0));
+
+		// Removed: ids only in the baseline
+		int[] removed = new int[baseline.ids.length];
+		int removedCount = 0;
+		// Spawned: indices in the target of ids it alone has; moved: indices in the target of shared ids that moved
+		int[] spawned = new int[target.ids.length];
+		int spawnedCount = 0;
+		int[] moved = new int[target.ids.length];
+		int[] movedFrom = new int[target.ids.length];
+		int movedCount = 0;
+		int b = 0;
+		int t = 0;
+		while (b < baseline.ids.length || t < target.ids.length) {
+			if (t == target.ids.length || (b < baseline.ids.length && baseline.ids[b] < target.ids[t])) {
+				removed[removedCount] = baseline.ids[b];
+				removedCount += 1;
+				b += 1;
+			} else if (b == baseline.ids.length || target.ids[t] < baseline.ids[b]) {
+				spawned[spawnedCount] = t;
+				spawnedCount += 1;
+				t += 1;
+			} else {
+				if (target.xs[t] != baseline.xs[b] || target.worldYs[t] != baseline.worldYs[b]) {
+					moved[movedCount] = t;
+					movedFrom[movedCount] = b;
+					movedCount += 1;
+				}
+				b += 1;
+				t += 1;
+			}
+		}
+
+		// Ids in each list are increasing, so each is written as the gap from the one before
+		VarInts.putUnsigned(frame, removedCount);
+		int lastId = 0;
+		for (int i = 0; i < removedCount; i += 1) {
+			VarInts.putUnsigned(frame, removed[i] - lastId);
+			lastId = removed[i];
+		}
+		VarInts.putUnsigned(frame, spawnedCount);
+		lastId = 0;
+		for (int i = 0; i < spawnedCount; i += 1) {
+			int at = spawned[i];
+			VarInts.putUnsigned(frame, target.ids[at] - lastId);
+			VarInts.putUnsigned(frame, target.kinds[at]);
+			VarInts.putSigned(frame, target.xs[at]);
+			VarInts.putSigned(frame, target.worldYs[at]);
+			lastId = target.ids[at];
+		}
+		VarInts.putUnsigned(frame, movedCount);
+		lastId = 0;
+		for (int i = 0; i < movedCount; i += 1) {
+			int at = moved[i];
+			VarInts.putUnsigned(frame, target.ids[at] - lastId);
+			VarInts.putSigned(frame, target.xs[at] - baseline.xs[movedFrom[i]]);
+			VarInts.putSigned(frame, target.worldYs[at] - baseline.worldYs[movedFrom[i]]);
+			lastId = target.ids[at];
+		}
+		frame.flip();
+		return frame;
+	}
+}
+
+// A spectator's copy of the game, rebuilt from the frames of a SpectatorFeed
+class SpectatorView {
+	long tick;
+	int playerX;
+	int playerWorldY;
+	int playerXVel;
+	int playerYVel;
+	int score;
+	boolean gameOver;
+	// Each component's kind, x and world height, by id
+	TreeMap<Integer, int[]> components;
+
+	// Constructor begins having seen nothing
+	SpectatorView() {
+		this.tick = -1;
+		this.components = new TreeMap<Integer, int[]>();
+	}
+
+	// Applies one frame, which must be encoded against this view's current tick or be a keyframe
+	// EFFECT: Modifies this view
+	void apply(ByteBuffer frame) {
+		long frameTick = VarInts.getUnsigned(frame);
+		long baselineTick = VarInts.getUnsigned(frame) - 1;
+		if (baselineTick == -1) {
+			this.playerX = 0;
+			this.playerWorldY = 0;
+			this.playerXVel = 0;
+			this.playerYVel = 0;
+			this.score = 0;
+			this.components.clear();
+		} else if (baselineTick != this.tick) {
+			throw new IllegalArgumentException("Frame is not encoded against this view's tick.");
+		}
+		this.tick = frameTick;
+		this.playerX += (int) VarInts.getSigned(frame);
+		this.playerWorldY += (int) VarInts.getSigned(frame);
+		this.playerXVel += (int) VarInts.getSigned(frame);
+		this.playerYVel += (int) VarInts.getSigned(frame);
+		this.score += (int) VarInts.getSigned(frame);
+		this.gameOver = frame.get() == 1;
+
+		long removedCount = VarInts.getUnsigned(frame);
+		int id = 0;
+		for (long i = 0; i < removedCount; i += 1) {
+			id += (int) VarInts.getUnsigned(frame);
+			this.components.remove(id);
+		}
+		long spawnedCount = VarInts.getUnsigned(frame);
+		id = 0;
+		for (long i = 0; i < spawnedCount; i += 1) {
+			id += (int) VarInts.getUnsigned(frame);
+			int kind = (int) VarInts.getUnsigned(frame);
+			int x = (int) VarInts.getSigned(frame);
+			int worldY = (int) VarInts.getSigned(frame);
+			this.components.put(id, new int[] { kind, x, worldY });
+		}
+		long movedCount = VarInts.getUnsigned(frame);
+		id = 0;
+		for (long i = 0; i < movedCount; i += 1) {
+			id += (int) VarInts.getUnsigned(frame);
+			int[] component = this.components.get(id);
+			component[1] += (int) VarInts.getSigned(frame);
+			component[2] += (int) VarInts.getSigned(frame);
+		}
+	}
+
+	// Does this view match the given state exactly?
+	boolean matches(SpectatorState state) {
+		if (this.tick != state.tick || this.playerX != state.playerX || this.playerWorldY != state.playerWorldY
+				|| this.playerXVel != state.playerXVel || this.playerYVel != state.playerYVel
+				|| this.score != state.score || this.gameOver != state.gameOver
+				|| this.components.size() != state.ids.length) {
+			return false;
+		}
+		for (int i = 0; i < state.ids.length; i += 1) {
+			int[] component = this.components.get(state.ids[i]);
+			if (component == null || component[0] != state.kinds[i] || component[1] != state.xs[i]
+					|| component[2] != state.worldYs[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
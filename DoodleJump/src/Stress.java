@@ -0,0 +1,277 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+// A named load for finding where the game stops scaling: spawn tables that override the generators' spacing and
+// mix, a population of platforms and hazards kept alive on screen however fast the generators would make them, and
+// optionally an item handed to the player whenever it has none, such as a jet pack for a climb that never ends
+class StressScenario {
+	final String name;
+	final SpawnConfig spawns;
+	// How many components from each spawn table are kept on screen
+	final int platforms;
+	final int hazards;
+	// Given to the player whenever it holds nothing, or NONE
+	final ItemKind sustain;
+
+	StressScenario(String name, SpawnConfig spawns, int platforms, int hazards, ItemKind sustain) {
+		this.name = name;
+		this.spawns = spawns;
+		this.platforms = platforms;
+		this.hazards = hazards;
+		this.sustain = sustain;
+	}
+
+	// The scenarios known by name
+	static ArrayList<StressScenario> all() {
+		ArrayList<StressScenario> scenarios = new ArrayList<StressScenario>();
+		scenarios.add(new StressScenario("platforms-10k", SpawnConfig.parse(String.join("\n",
+				"[platforms] spacing 20 80",
+				"standard-platform 73",
+				"moving-platform 10",
+				"brittle-platform 10",
+				"spring-platform 3",
+				"ethereal-platform 4",
+				"[hazards] spacing 1000000 1000000",
+				"monster 1",
+				"[items] spacing 1000000 1000000",
+				"shield 1")), 10000, 0, ItemKind.NONE));
+		scenarios.add(new StressScenario("monsters-1k", SpawnConfig.parse(String.join("\n",
+				"[platforms] spacing 20 80",
+				"standard-platform 1",
+				"[hazards] spacing 500 500",
+				"monster 1",
+				"[items] spacing 1000000 1000000",
+				"shield 1")), 0, 1000, ItemKind.SHIELD));
+		scenarios.add(new StressScenario("moving-platforms-10k", SpawnConfig.parse(String.join("\n",
+				"[platforms] spacing 20 80",
+				"moving-platform 1",
+				"[hazards] spacing 1000000 1000000",
+				"monster 1",
+				"[items] spacing 1000000 1000000",
+				"shield 1")), 10000, 0, ItemKind.NONE));
+		scenarios.add(new StressScenario("jetpack-ascent", SpawnConfig.parse(String.join("\n",
+				"[platforms] spacing 1 4",
+				"standard-platform 60",
+				"moving-platform 20",
+				"brittle-platform 10",
+				"ethereal-platform 10",
+				"[hazards] spacing 10 30",
+				"black-hole 50",
+				"monster 50",
+				"[items] spacing 50 100",
+				"propeller-hat 40",
+				"jet-pack 20",
+				"shield 40")), 2000, 200, ItemKind.JET_PACK));
+		return scenarios;
+	}
+
+	// The scenario with the given name
+	static StressScenario named(String name) {
+		for (StressScenario scenario : all()) {
+			if (scenario.name.equals(name)) {
+				return scenario;
+			}
+		}
+		throw new IllegalArgumentException("No stress scenario named " + name + ".");
+	}
+
+	// This scenario with its populations scaled by the given fraction
+	StressScenario scaled(double fraction) {
+		return new StressScenario(this.name, this.spawns, (int) Math.round(this.platforms * fraction),
+				(int) Math.round(this.hazards * fraction), this.sustain);
+	}
+
+	// A new item of the given kind
+	static IPlayerItem item(ItemKind kind) {
+		if (kind == ItemKind.PROPELLER_HAT) {
+			return new PropellerHat();
+		} else if (kind == ItemKind.JET_PACK) {
+			return new JetPack();
+		} else {
+			return new Shield();
+		}
+	}
+}
+
+// Plays a stress scenario headless, timing each phase of every tick as the game reports it
+class StressRun implements ITickPhaseListener {
+	// Phases of JumpingGame.tick, in the order it runs them (see TickPhase), then the scenario's own top-up
+	static final String[] PHASES = { "player", "camera", "clean", "components", "interactions", "spawn", "telemetry",
+			"top-up" };
+	static final int TOP_UP = TickPhase.values().length;
+
+	final StressScenario scenario;
+	final Random random;
+	final PlatformGenerator platformFill;
+	final HazardGenerator hazardFill;
+	JumpingGame game;
+	// Nanoseconds spent in each phase, and for each whole tick
+	final long[] phaseNanos;
+	// When the last phase ended, per System.nanoTime
+	long lastPhaseEnd;
+	final long[] tickNanos;
+	int ticks;
+	// Live components summed over every tick, for their average
+	long liveSum;
+	// The most heap seen in use
+	long peakHeap;
+	// Games begun again after the player died
+	int restarts;
+
+	StressRun(StressScenario scenario, long seed, int maxTicks) {
+		SpawnConfigSource spawns = new SpawnConfigSource(scenario.spawns);
+		this.scenario = scenario;
+		this.random = new Random(seed);
+		this.platformFill = new PlatformGenerator(spawns, new Random(seed + 1));
+		this.hazardFill = new HazardGenerator(spawns, new Random(seed + 2));
+		this.phaseNanos = new long[PHASES.length];
+		this.lastPhaseEnd = 0;
+		this.tickNanos = new long[maxTicks];
+		this.ticks = 0;
+		this.liveSum = 0;
+		this.peakHeap = 0;
+		this.restarts = 0;
+		this.game = this.newGame(seed);
+	}
+
+	// A game on the scenario's spawn tables, its populations spread over the whole screen
+	JumpingGame newGame(long seed) {
+		SpawnConfigSource spawns = new SpawnConfigSource(this.scenario.spawns);
+		JumpingGame game = new JumpingGame(new PlatformGenerator(spawns, new Random(seed + 3)),
+				new HazardGenerator(spawns, new Random(seed + 4)), new ItemGenerator(spawns, new Random(seed + 5)));
+		this.topUp(game, IConstant.WINDOW_HEIGHT);
+		game.phases = this;
+		return game;
+	}
+
+	// Adds components until the populations are reached, placed at random heights in the given band at the top of
+	// the screen (where the camera has just uncovered)
+	// EFFECT: Adds to the game's components
+	void topUp(JumpingGame game, int band) {
+		int platforms = 0;
+		int hazards = 0;
+		for (IGameComponent component : game.gamePieces) {
+			if (SpawnConfig.HAZARD_KINDS.contains(component.kind())) {
+				hazards += 1;
+			} else if (SpawnConfig.PLATFORM_KINDS.contains(component.kind())) {
+				platforms += 1;
+			}
+		}
+		for (; platforms < this.scenario.platforms; platforms += 1) {
+			this.place(game, this.platformFill.samplePlatform(), band);
+		}
+		for (; hazards < this.scenario.hazards; hazards += 1) {
+			this.place(game, this.hazardFill.generateComponent(), band);
+		}
+	}
+
+	// Adds a component made at the top of the screen, moved to a random height within the given band
+	// EFFECT: Adds to the game's components
+	void place(JumpingGame game, IGameComponent component, int band) {
+		int y = this.random.nextInt(band);
+		if (y > 0) {
+			component.displaceDownwards(y);
+		}
+		game.addComponent(component);
+	}
+
+	// Adds the time since the last phase ended to the one that just did
+	// EFFECT: Adds to the timings
+	public void ended(TickPhase phase) {
+		long now = System.nanoTime();
+		this.phaseNanos[phase.ordinal()] += now - this.lastPhaseEnd;
+		this.lastPhaseEnd = now;
+	}
+
+	// Plays one tick of the game, which reports the end of each of its phases, then tops the populations back up
+	// EFFECT: Advances the game and adds to the timings
+	void tick() {
+		JumpingGame game = this.game;
+		if (this.scenario.sustain != ItemKind.NONE && game.player.item.kind() == ItemKind.NONE) {
+			game.player.takeItem(StressScenario.item(this.scenario.sustain));
+		}
+		int scoreBefore = game.score;
+		long start = System.nanoTime();
+		this.lastPhaseEnd = start;
+		game.tick();
+		this.topUp(game, Math.max(1, game.score - scoreBefore));
+		long end = System.nanoTime();
+		this.phaseNanos[TOP_UP] += end - this.lastPhaseEnd;
+		this.tickNanos[this.ticks] = end - start;
+		this.liveSum += game.gamePieces.size();
+		this.ticks += 1;
+		if ((this.ticks & 63) == 0) {
+			Runtime runtime = Runtime.getRuntime();
+			this.peakHeap = Math.max(this.peakHeap, runtime.totalMemory() - runtime.freeMemory());
+		}
+		if (game.gameOver()) {
+			this.restarts += 1;
+			this.game = this.newGame(this.random.nextLong());
+		}
+	}
+
+	// EFFECT: Plays ticks until the timings are full
+	void run() {
+		while (this.ticks < this.tickNanos.length) {
+			this.tick();
+		}
+	}
+
+	// The tick time below which the given fraction of ticks took, in microseconds
+	double percentileMicros(double fraction) {
+		long[] sorted = Arrays.copyOf(this.tickNanos, this.ticks);
+		Arrays.sort(sorted);
+		return sorted[Math.min(this.ticks - 1, (int) (fraction * this.ticks))] / 1000.0;
+	}
+
+	// The columns report() writes, in order
+	static String header() {
+		StringBuilder header = new StringBuilder("scenario,platforms,hazards,live,ticks/s,p50 us,p99 us");
+		for (String phase : PHASES) {
+			header.append(",").append(phase).append(" us");
+		}
+		return header.append(",heap MiB,restarts").toString();
+	}
+
+	// One comma-separated row of results, the phases as mean microseconds per tick
+	String report() {
+		long total = 0;
+		for (int i = 0; i < this.ticks; i += 1) {
+			total += this.tickNanos[i];
+		}
+		StringBuilder row = new StringBuilder();
+		row.append(this.scenario.name).append(",").append(this.scenario.platforms).append(",")
+				.append(this.scenario.hazards).append(",").append(this.liveSum / this.ticks).append(",")
+				.append(Math.round(this.ticks / (total / 1e9))).append(",")
+				.append(String.format("%.1f,%.1f", this.percentileMicros(0.5), this.percentileMicros(0.99)));
+		for (long nanos : this.phaseNanos) {
+			row.append(String.format(",%.1f", nanos / 1000.0 / this.ticks));
+		}
+		return row.append(String.format(",%.1f,", this.peakHeap / 1048576.0)).append(this.restarts).toString();
+	}
+
+	// Runs each named scenario (all of them if none are named) at an eighth, a quarter, half and all of its
+	// populations, printing a row per run for plotting against the live component count
+	// Usage: StressRun [ticks per run] [scenario ...]
+	public static void main(String[] args) {
+		int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		ArrayList<StressScenario> scenarios = new ArrayList<StressScenario>();
+		for (int i = 1; i < args.length; i += 1) {
+			scenarios.add(StressScenario.named(args[i]));
+		}
+		if (scenarios.isEmpty()) {
+			scenarios = StressScenario.all();
+		}
+		System.out.println(header());
+		for (StressScenario scenario : scenarios) {
+			for (double fraction : new double[] { 0.125, 0.25, 0.5, 1 }) {
+				// Warm up on the same load first, so the compiler has done its work before timing starts
+				new StressRun(scenario.scaled(fraction), 0, ticks / 4).run();
+				StressRun run = new StressRun(scenario.scaled(fraction), 1, ticks);
+				run.run();
+				System.out.println(run.report());
+			}
+		}
+	}
+}
@@ -0,0 +1,360 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// One stretch of a run's samples, a primitive array per column, filled a row per tick
+class TelemetryBlock {
+	static final int ROWS = 1024;
+
+	final long firstTick;
+	final int[][] columns;
+	int rows;
+
+	TelemetryBlock(long firstTick, int columnCount) {
+		this.firstTick = firstTick;
+		this.columns = new int[columnCount][ROWS];
+		this.rows = 0;
+	}
+
+	boolean full() {
+		return this.rows == ROWS;
+	}
+}
+
+// Samples a game after every tick into column blocks: the score, the player's vertical velocity, the item the player
+// holds, each generator's progress toward its next component and how many of each kind of component are in play.
+// A sample is a handful of array stores, the component counts being kept by the game as components come and go; a new
+// block is only allocated every ROWS ticks. Games are only recorded when asked to (see JumpingGame.recordTelemetry).
+class TelemetryRecorder {
+	static final int SCORE = 0;
+	static final int Y_VELOCITY = 1;
+	static final int ITEM = 2;
+	static final int PLATFORM_HEIGHT = 3;
+	static final int HAZARD_HEIGHT = 4;
+	static final int ITEM_HEIGHT = 5;
+	// The count of each kind of component follows, in the order of ComponentKind
+	static final int FIRST_COUNT = 6;
+	static final String[] COLUMNS = columnNames();
+
+	final ArrayList<TelemetryBlock> blocks;
+	TelemetryBlock current;
+	long ticks;
+
+	TelemetryRecorder() {
+		this.blocks = new ArrayList<TelemetryBlock>();
+		this.current = new TelemetryBlock(0, COLUMNS.length);
+		this.blocks.add(this.current);
+		this.ticks = 0;
+	}
+
+	// The name of every column, as written to telemetry files
+	static String[] columnNames() {
+		ComponentKind[] kinds = ComponentKind.values();
+		String[] names = new String[FIRST_COUNT + kinds.length];
+		names[SCORE] = "score";
+		names[Y_VELOCITY] = "y-velocity";
+		names[ITEM] = "item";
+		names[PLATFORM_HEIGHT] = "platform-height";
+		names[HAZARD_HEIGHT] = "hazard-height";
+		names[ITEM_HEIGHT] = "item-height";
+		for (ComponentKind kind : kinds) {
+			names[FIRST_COUNT + kind.ordinal()] = "count-" + kind.name().toLowerCase().replace('_', '-');
+		}
+		return names;
+	}
+
+	// The index of the column with the given name
+	static int column(String name) {
+		for (int i = 0; i < COLUMNS.length; i += 1) {
+			if (COLUMNS[i].equals(name)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("No telemetry column named " + name);
+	}
+
+	// Records the game as it stands after a tick
+	// EFFECT: Adds a row, starting a new block if this one is full
+	void sample(JumpingGame game) {
+		if (this.current.full()) {
+			this.current = new TelemetryBlock(this.ticks, COLUMNS.length);
+			this.blocks.add(this.current);
+		}
+		int[][] columns = this.current.columns;
+		int row = this.current.rows;
+		columns[SCORE][row] = game.score;
+		columns[Y_VELOCITY][row] = game.player.velocity.y;
+		columns[ITEM][row] = game.player.item.kind().ordinal();
+		columns[PLATFORM_HEIGHT][row] = game.platformGen.heightSoFar();
+		columns[HAZARD_HEIGHT][row] = game.hazardGen.heightSoFar();
+		columns[ITEM_HEIGHT][row] = game.itemGen.heightSoFar();
+		for (int kind = 0; kind < game.kindCounts.length; kind += 1) {
+			columns[FIRST_COUNT + kind][row] = game.kindCounts[kind];
+		}
+		this.current.rows += 1;
+		this.ticks += 1;
+	}
+}
+
+// Appends finished runs to a columnar telemetry file on a background thread, started when a run is handed over and
+// finishing once none are left, so that handing over a run never waits on the disk. Each run is written as:
+//   header: magic, version, ticks, column count, column names, block count
+//   blocks: first tick, rows, then for each column its byte length and bytes
+// A column's bytes are the deltas between its rows, zigzag varint encoded and deflated, so a reader can pull out one
+// column and skip the rest by their lengths.
+class TelemetryWriter implements Runnable {
+	static final int MAGIC = 0x444A544D;
+	static final int VERSION = 1;
+	static TelemetryWriter standard;
+
+	// The file runs are appended to, or null to discard them
+	final File file;
+	final ConcurrentLinkedQueue<TelemetryRecorder> pending;
+	// The thread writing, or null when there is nothing to write
+	Thread writer;
+	volatile long runsWritten;
+	volatile IOException failure;
+
+	TelemetryWriter(File file) {
+		this.file = file;
+		this.pending = new ConcurrentLinkedQueue<TelemetryRecorder>();
+		this.writer = null;
+		this.runsWritten = 0;
+		this.failure = null;
+	}
+
+	// The writer shared by every game, appending to the standard telemetry file
+	static synchronized TelemetryWriter standard() {
+		if (standard == null) {
+			standard = new TelemetryWriter(new File(IConstant.TELEMETRY_FILE));
+		}
+		return standard;
+	}
+
+	// Hands over a finished run to be written
+	// EFFECT: Queues the run, starting the writer thread if it is not running
+	synchronized void submit(TelemetryRecorder run) {
+		if (this.file == null) {
+			return;
+		}
+		this.pending.add(run);
+		if (this.writer == null) {
+			this.writer = new Thread(this, "telemetry-writer");
+			this.writer.start();
+		}
+	}
+
+	// The next run to write, or null once there are none, in which case the writer stops
+	// EFFECT: Removes the run from the queue
+	synchronized TelemetryRecorder nextRun() {
+		TelemetryRecorder run = this.pending.poll();
+		if (run == null) {
+			this.writer = null;
+		}
+		return run;
+	}
+
+	// Writes every run handed over until none are left
+	// EFFECT: Appends to the file
+	public void run() {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(this.file, true)))) {
+			ColumnCodec codec = new ColumnCodec();
+			TelemetryRecorder run = this.nextRun();
+			while (run != null) {
+				write(out, run, codec);
+				this.runsWritten += 1;
+				run = this.nextRun();
+			}
+		} catch (IOException e) {
+			this.failure = e;
+			synchronized (this) {
+				this.pending.clear();
+				this.writer = null;
+			}
+		}
+	}
+
+	// EFFECT: Writes the run to the stream
+	static void write(DataOutputStream out, TelemetryRecorder run, ColumnCodec codec) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(run.ticks);
+		out.writeShort(TelemetryRecorder.COLUMNS.length);
+		for (String name : TelemetryRecorder.COLUMNS) {
+			out.writeUTF(name);
+		}
+		out.writeInt(run.blocks.size());
+		for (TelemetryBlock block : run.blocks) {
+			out.writeLong(block.firstTick);
+			out.writeInt(block.rows);
+			for (int[] column : block.columns) {
+				int length = codec.encode(column, block.rows);
+				out.writeInt(length);
+				out.write(codec.compressed, 0, length);
+			}
+		}
+	}
+
+	// Waits for every run handed over so far to be written
+	void awaitWritten() throws IOException, InterruptedException {
+		Thread running;
+		synchronized (this) {
+			running = this.writer;
+		}
+		if (running != null) {
+			running.join();
+		}
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+}
+
+// Turns a column of a block into deflated zigzag varint deltas and back, reusing its buffers between columns
+class ColumnCodec {
+	final ByteBuffer varints;
+	byte[] compressed;
+	final Deflater deflater;
+	final Inflater inflater;
+
+	ColumnCodec() {
+		// Each delta of an int takes at most five bytes
+		this.varints = ByteBuffer.allocate(5 * TelemetryBlock.ROWS);
+		this.compressed = new byte[5 * TelemetryBlock.ROWS + 64];
+		this.deflater = new Deflater(Deflater.BEST_SPEED);
+		this.inflater = new Inflater();
+	}
+
+	// Encodes the first rows of the column into compressed, returning how many bytes it took
+	// EFFECT: Modifies the buffers
+	int encode(int[] column, int rows) {
+		this.varints.clear();
+		int previous = 0;
+		for (int i = 0; i < rows; i += 1) {
+			VarInts.putSigned(this.varints, column[i] - previous);
+			previous = column[i];
+		}
+		this.deflater.reset();
+		this.deflater.setInput(this.varints.array(), 0, this.varints.position());
+		this.deflater.finish();
+		int length = 0;
+		while (!this.deflater.finished()) {
+			if (length == this.compressed.length) {
+				this.compressed = java.util.Arrays.copyOf(this.compressed, 2 * length);
+			}
+			length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+		}
+		return length;
+	}
+
+	// Decodes the given number of rows from length compressed bytes into the column from the given index
+	// EFFECT: Modifies the column and the buffers
+	void decode(byte[] bytes, int length, int rows, int[] column, int from) throws IOException {
+		this.inflater.reset();
+		this.inflater.setInput(bytes, 0, length);
+		try {
+			int size = this.inflater.inflate(this.varints.array());
+			this.varints.clear();
+			this.varints.limit(size);
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt telemetry column: " + e.getMessage());
+		}
+		int value = 0;
+		for (int i = 0; i < rows; i += 1) {
+			value += (int) VarInts.getSigned(this.varints);
+			column[from + i] = value;
+		}
+	}
+}
+
+// Reads one column of every run in a telemetry file, inflating only that column's bytes and skipping the rest
+class TelemetryReader {
+	// The named column of each run in the file, in the order they were written
+	static ArrayList<int[]> column(File file, String name) throws IOException {
+		ArrayList<int[]> runs = new ArrayList<int[]>();
+		ColumnCodec codec = new ColumnCodec();
+		byte[] bytes = new byte[0];
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (true) {
+				int magic;
+				try {
+					magic = in.readInt();
+				} catch (EOFException e) {
+					return runs;
+				}
+				if (magic != TelemetryWriter.MAGIC || in.readInt() != TelemetryWriter.VERSION) {
+					throw new IOException("Not a telemetry file, or one of another version: " + file);
+				}
+				int[] values = new int[(int) in.readLong()];
+				int wanted = -1;
+				int columns = in.readShort();
+				for (int i = 0; i < columns; i += 1) {
+					if (in.readUTF().equals(name)) {
+						wanted = i;
+					}
+				}
+				if (wanted < 0) {
+					throw new IllegalArgumentException("No telemetry column named " + name);
+				}
+				int blocks = in.readInt();
+				for (int b = 0; b < blocks; b += 1) {
+					int from = (int) in.readLong();
+					int rows = in.readInt();
+					for (int i = 0; i < columns; i += 1) {
+						int length = in.readInt();
+						if (i != wanted) {
+							in.skipNBytes(length);
+						} else {
+							if (bytes.length < length) {
+								bytes = new byte[length];
+							}
+							in.readFully(bytes, 0, length);
+							codec.decode(bytes, length, rows, values, from);
+						}
+					}
+				}
+				runs.add(values);
+			}
+		}
+	}
+
+	// Usage: TelemetryReader [file] [column]
+	// Prints the length of every run in the file and the lowest, mean and highest value of the column in it
+	public static void main(String[] args) throws IOException {
+		File file = new File(args.length > 0 ? args[0] : IConstant.TELEMETRY_FILE);
+		String name = args.length > 1 ? args[1] : "score";
+		long start = System.nanoTime();
+		ArrayList<int[]> runs = column(file, name);
+		long ticks = 0;
+		System.out.println("run,ticks,min,mean,max");
+		for (int run = 0; run < runs.size(); run += 1) {
+			int[] values = runs.get(run);
+			long total = 0;
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int value : values) {
+				total += value;
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			ticks += values.length;
+			System.out.printf("%d,%d,%d,%.1f,%d%n", run, values.length, values.length == 0 ? 0 : min,
+					values.length == 0 ? 0.0 : 1.0 * total / values.length, values.length == 0 ? 0 : max);
+		}
+		System.err.printf("Scanned %s over %d runs (%d ticks) in %.1f ms%n", name, runs.size(), ticks,
+				(System.nanoTime() - start) / 1e6);
+	}
+}
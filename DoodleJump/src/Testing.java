@@ -80,4 +80,1466 @@ class Testing {
 		// Player inside from the bottom-left corner
 		t.checkExpect(func.apply(new Vector2D(-6, 39), null, w, h), true);
 	}
+
+	void testCollisionScheduler(Tester t) {
+		CollisionScheduler cs = new CollisionScheduler();
+		// Free fall from rest: 0, 1, 3, 6, 10 ...
+		t.checkExpect(cs.fallDistance(0, 0), 0L);
+		t.checkExpect(cs.fallDistance(4, 0), 6L);
+		// Right after a standard bounce the player rises 19 then falls
+		t.checkExpect(cs.fallDistance(19, -19), -190L);
+		// Terminal velocity caps the fall
+		t.checkExpect(cs.fallDistance(3, 20), 60L);
+		t.checkExpect(cs.fallDistance(3, 19), 59L);
+
+		// A platform 5 below a player at rest is crossed on the tick moving from 3 to 6
+		t.checkExpect(cs.firstLandingOffset(5, 0), 3);
+		// The first falling tick (velocity 1) is the earliest possible landing
+		t.checkExpect(cs.firstLandingOffset(0, 0), 1);
+		// Rising to an apex 190 above and then falling back down
+		t.checkExpect(cs.firstLandingOffset(-100, -19), 32);
+		// Above the apex can never be landed on
+		t.checkExpect(cs.firstLandingOffset(-200, -19), LandingWindow.NEVER);
+		// Already below the platform while falling
+		t.checkExpect(cs.firstLandingOffset(-1, 5), LandingWindow.NEVER);
+
+		// Scheduling against a real game only tests the platform below the player once it is close
+		JumpingGame jg = new JumpingGame();
+		Player p = jg.player;
+		IGameComponent below = jg.gamePieces.get(0);
+		cs.beginTick(p, jg.gamePieces);
+		t.checkExpect(cs.needsTest(below), false);
+		int gap = below.topEdge() - (p.position.y + IConstant.PLAYER_HEIGHT / 2);
+		for (int i = 1; i < cs.firstLandingOffset(gap, 0); i += 1) {
+			p.move();
+			cs.beginTick(p, jg.gamePieces);
+		}
+		p.move();
+		cs.beginTick(p, jg.gamePieces);
+		t.checkExpect(cs.needsTest(below), true);
+	}
+
+	void testSweepAndPrune(Tester t) {
+		SweepAndPrune sap = new SweepAndPrune();
+		Monster m1 = new Monster(new Vector2D(100, 100), 5);
+		Monster m2 = new Monster(new Vector2D(120, 110), 5);
+		Monster m3 = new Monster(new Vector2D(300, 100));
+		HorizontalMovingPlatform hmp = new HorizontalMovingPlatform(new Vector2D(140, 112), -4);
+		sap.add(m3);
+		sap.add(m1);
+		sap.add(m2);
+		sap.add(hmp);
+		// Stationary platforms never take part
+		sap.add(new StandardPlatform(new Vector2D(100, 100)));
+		sap.update();
+		t.checkExpect(sap.sorted.size(), 4);
+		t.checkExpect(sap.sorted.get(0), m1);
+		t.checkExpect(sap.sorted.get(3), m3);
+		// m1-m2 and m2-hmp overlap, m3 is far away and hmp is below m1
+		t.checkExpect(sap.candidatePairs().size(), 2);
+
+		sap.interactPairs();
+		// m1 runs into m2, and m2 and the platform run into each other
+		t.checkExpect(m1.xVel(), -5);
+		t.checkExpect(m2.xVel(), -5);
+		t.checkExpect(hmp.xVel(), 4);
+	}
+
+	void testSpriteInterpolation(Tester t) {
+		Object a = "a";
+		Object b = "b";
+		SpriteList before = new SpriteList(1);
+		before.add(SpriteShape.SOLID_RECT, new Vector2D(0, 100), 10, 10, java.awt.Color.BLUE, a);
+		before.add(SpriteShape.SOLID_CIRCLE, new Vector2D(0, 100), 4, 4, java.awt.Color.RED, a);
+		SpriteList after = new SpriteList();
+		after.add(SpriteShape.SOLID_RECT, new Vector2D(50, 0), 30, 5, java.awt.Color.GREEN, b);
+		after.add(SpriteShape.SOLID_RECT, new Vector2D(10, 80), 10, 10, java.awt.Color.BLUE, a);
+		after.add(SpriteShape.SOLID_CIRCLE, new Vector2D(10, 80), 4, 4, java.awt.Color.RED, a);
+		t.checkExpect(before.size, 2);
+
+		SpriteList half = after.interpolateFrom(before, 0.5);
+		t.checkExpect(half.size, 3);
+		// New sprites are not moved
+		t.checkExpect(half.xs[0], 50);
+		t.checkExpect(half.ys[0], 0);
+		// Sprites of the same owner are matched in order
+		t.checkExpect(half.xs[1], 5);
+		t.checkExpect(half.ys[1], 90);
+		t.checkExpect(half.ys[2], 90);
+		t.checkExpect(after.interpolateFrom(before, 1.0).ys[1], 80);
+	}
+
+	// Draws the world's own scene (background, sprites and score) through javalib's scene drawing and the same game
+	// through the Java2D renderer, headless, and compares the pixels (the score text, drawn by a different text
+	// renderer, is left out)
+	void testJava2DRendererMatchesJavalib(Tester t) {
+		JumpingWorld jw = new JumpingWorld(false, new HighScores(), new TelemetryWriter(null));
+		JumpingGame jg = jw.jg;
+		jg.gamePieces.add(new SpringPlatform(new Vector2D(100, 200)));
+		jg.gamePieces.add(new BlackHole(new Vector2D(300, 150)));
+		jg.gamePieces.add(new Monster(new Vector2D(60, 300)));
+		jg.gamePieces.add(new EnvironmentItem(new Vector2D(200, 100), new PropellerHat()));
+		EtherealPlatform ethereal = new EtherealPlatform(new Vector2D(250, 250));
+		ethereal.ticksElapsed = 150;
+		jg.gamePieces.add(ethereal);
+		// Part way up, so both background layers have scrolled and wrapped
+		jg.score = 1000;
+
+		java.awt.image.BufferedImage expected = new java.awt.image.BufferedImage(IConstant.WINDOW_WIDTH,
+				IConstant.WINDOW_HEIGHT, java.awt.image.BufferedImage.TYPE_INT_RGB);
+		java.awt.Graphics2D g = expected.createGraphics();
+		g.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
+		jw.makeScene().draw(g);
+
+		Java2DRenderer renderer = new Java2DRenderer(ParallaxBackground.starField());
+		java.awt.image.BufferedImage actual = jg.drawScene(renderer);
+		java.awt.Rectangle score = renderer.scoreRect("Score: " + jg.score);
+		int mismatched = 0;
+		for (int y = 0; y < IConstant.WINDOW_HEIGHT; y += 1) {
+			for (int x = 0; x < IConstant.WINDOW_WIDTH; x += 1) {
+				if (!score.contains(x, y) && expected.getRGB(x, y) != actual.getRGB(x, y)) {
+					mismatched += 1;
+				}
+			}
+		}
+		t.checkExpect(mismatched, 0);
+
+		// Redrawing only the dirty rectangles gives the same frame as a full redraw
+		jg.player.move();
+		SpriteList moved = jg.snapshot(1).sprites;
+		int[] partial = renderer.render(moved, jg.score).getRGB(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT,
+				null, 0, IConstant.WINDOW_WIDTH);
+		int[] full = new Java2DRenderer(ParallaxBackground.starField()).render(moved, jg.score).getRGB(0, 0,
+				IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT, null, 0, IConstant.WINDOW_WIDTH);
+		t.checkExpect(java.util.Arrays.equals(partial, full), true);
+	}
+
+	void testCullingAndBatching(Tester t) {
+		JumpingGame jg = new JumpingGame();
+		jg.gamePieces = new java.util.ArrayList<IGameComponent>();
+		jg.gamePieces.add(new StandardPlatform(new Vector2D(100, 100)));
+		jg.gamePieces.add(new BrittlePlatform(new Vector2D(100, 200)));
+		jg.gamePieces.add(new StandardPlatform(new Vector2D(100, 300)));
+		// Entirely above and entirely below the window
+		jg.gamePieces.add(new StandardPlatform(new Vector2D(100, -10)));
+		jg.gamePieces.add(new StandardPlatform(new Vector2D(100, IConstant.WINDOW_HEIGHT + 10)));
+		// Half on screen at the top
+		jg.gamePieces.add(new BrittlePlatform(new Vector2D(100, 0)));
+
+		SpriteList sprites = new SpriteList();
+		jg.addSprites(sprites);
+		// The player and four visible platforms
+		t.checkExpect(sprites.size, 5);
+		t.checkExpect(sprites.owners[0], jg.player);
+		// Platforms of one color are drawn together, in their original order
+		t.checkExpect(sprites.colors[1], sprites.colors[2]);
+		t.checkExpect(sprites.colors[3], sprites.colors[4]);
+		t.checkExpect(sprites.ys[1], 100);
+		t.checkExpect(sprites.ys[2], 300);
+		t.checkExpect(sprites.ys[3], 200);
+		t.checkExpect(sprites.ys[4], 0);
+		t.checkExpect(sprites.sameLook(1, 2), true);
+		t.checkExpect(sprites.sameLook(2, 3), false);
+	}
+
+	void testSpectatorFeed(Tester t) {
+		java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(32);
+		VarInts.putUnsigned(buffer, 300);
+		VarInts.putSigned(buffer, -2);
+		VarInts.putSigned(buffer, Long.MIN_VALUE);
+		// 300 takes two bytes and -2 one
+		t.checkExpect(buffer.position(), 3 + 10);
+		buffer.flip();
+		t.checkExpect(VarInts.getUnsigned(buffer), 300L);
+		t.checkExpect(VarInts.getSigned(buffer), -2L);
+		t.checkExpect(VarInts.getSigned(buffer), Long.MIN_VALUE);
+
+		JumpingGame jg = new JumpingGame();
+		jg.player.takeItem(new JetPack());
+		SpectatorFeed feed = new SpectatorFeed();
+		SpectatorView caughtUp = new SpectatorView();
+		SpectatorView other = new SpectatorView();
+		SpectatorView late = new SpectatorView();
+		for (long tick = 0; tick < 200; tick += 1) {
+			// A new jetpack whenever the last runs out, so the player never falls onto a monster
+			jg.player.takeItem(new JetPack());
+			jg.tick();
+			feed.capture(jg, tick);
+			// Two spectators on the same baseline share one encoded frame
+			caughtUp.apply(feed.frameFor(caughtUp.tick));
+			other.apply(feed.frameFor(other.tick));
+			// One spectator only keeps up every 100 ticks, past the feed's history, and gets keyframes
+			if (tick % 100 == 99) {
+				late.apply(feed.frameFor(late.tick));
+				t.checkExpect(late.matches(feed.latest), true);
+			}
+		}
+		t.checkExpect(caughtUp.matches(feed.latest), true);
+		t.checkExpect(other.matches(feed.latest), true);
+		t.checkExpect(feed.encodings, 202);
+		// The jetpack carried the player up past many spawned and removed components
+		t.checkExpect(jg.score > 1000, true);
+	}
+
+	void testGameEventBus(Tester t) {
+		GameEventBus bus = new GameEventBus(8);
+		GameEventConsumer early = bus.subscribe();
+		GameStats stats = new GameStats();
+		bus.publish(GameEventType.BOUNCE, 10, 20, -19);
+		bus.nextTick();
+		bus.publish(GameEventType.PLAYER_KILLED, 10, 30, 0);
+		t.checkExpect(early.poll(stats), 2);
+		t.checkExpect(stats.count(GameEventType.BOUNCE), 1L);
+		t.checkExpect(stats.lastTick, 1L);
+		t.checkExpect(early.poll(stats), 0);
+
+		// A consumer joining late sees only what follows, and one that falls a whole ring behind misses the oldest
+		GameEventConsumer late = bus.subscribe();
+		for (int i = 0; i < 13; i += 1) {
+			bus.publish(GameEventType.COMPONENT_SPAWNED, 0, 0, i);
+		}
+		t.checkExpect(late.poll(stats), 8);
+		t.checkExpect(late.missed, 5L);
+		t.checkExpect(early.poll(stats), 8);
+		t.checkExpect(stats.count(GameEventType.COMPONENT_SPAWNED), 16L);
+
+		// A game reports its bounces and spawns, read here by a consumer on its own thread
+		JumpingGame jg = new JumpingGame();
+		GameEventConsumer consumer = jg.events.subscribe();
+		GameStats gameStats = new GameStats();
+		Thread thread = consumer.start(gameStats, "stats");
+		jg.player.takeItem(new Shield());
+		// The player starts just above a platform, so bounces at least once
+		for (int tick = 0; tick < 300 && !jg.gameOver(); tick += 1) {
+			jg.tick();
+		}
+		consumer.stop();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		t.checkExpect(consumer.missed, 0L);
+		t.checkExpect(gameStats.count(GameEventType.ITEM_TAKEN), 1L);
+		t.checkExpect(gameStats.count(GameEventType.BOUNCE) > 0, true);
+	}
+
+	void testSpawnTables(Tester t) {
+		// Every index's total chance across the alias columns matches its share of the weight
+		double[] weights = { 73, 10, 10, 3, 4, 0 };
+		AliasTable table = new AliasTable(weights);
+		for (int i = 0; i < weights.length; i += 1) {
+			t.checkInexact(table.chanceOf(i) + 1, weights[i] / 100 + 1, 0.000001);
+		}
+		java.util.Random random = new java.util.Random(7);
+		int[] counts = new int[weights.length];
+		for (int i = 0; i < 100000; i += 1) {
+			counts[table.sample(random)] += 1;
+		}
+		t.checkExpect(counts[5], 0);
+		t.checkExpect(Math.abs(counts[0] - 73000) < 1000, true);
+		t.checkExpect(Math.abs(counts[3] - 3000) < 400, true);
+
+		SpawnConfig config = SpawnConfig.DEFAULT;
+		t.checkExpect(config.platforms.outcomes.size(), 9);
+		t.checkExpect(config.hazards.firstLow, 500);
+		t.checkExpect(config.hazards.firstHigh, 1500);
+		t.checkExpect(config.hazards.nextSpacing(random), 500);
+		t.checkExpect(config.items.outcomes.get(1), ItemKind.JET_PACK);
+
+		// Only what a generator can make is allowed in its section
+		String onlyMonsters = "[platforms] spacing 10 10\nstandard-platform 1\n[hazards] spacing 5 5\nmonster 1\n"
+				+ "[items] spacing 7 9\nshield 2\n";
+		t.checkExpect(SpawnConfig.parse(onlyMonsters).hazards.sample(random), ComponentKind.MONSTER);
+		String message = null;
+		try {
+			SpawnConfig.parse("[items] spacing 1 1\nmonster 1\n");
+		} catch (IllegalArgumentException e) {
+			message = e.getMessage();
+		}
+		t.checkExpect(message, "Spawn config line 1: Cannot spawn monster here (line 2).");
+
+		// Changing the file swaps in the new tables, and a broken edit keeps the old ones
+		try {
+			java.nio.file.Path file = java.nio.file.Files.createTempFile("spawns", ".cfg");
+			java.nio.file.Files.write(file, onlyMonsters.getBytes());
+			SpawnConfigSource source = new SpawnConfigSource(file, 10);
+			HazardGenerator hazards = new HazardGenerator(source, random);
+			t.checkExpect(hazards.nextSpacing(), 5);
+			t.checkExpect(hazards.generateComponent().kind(), ComponentKind.MONSTER);
+
+			java.nio.file.Files.write(file, onlyMonsters.replace("monster", "black-hole").getBytes());
+			java.nio.file.Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(1000));
+			t.checkExpect(source.reloadIfChanged(), true);
+			t.checkExpect(hazards.generateComponent().kind(), ComponentKind.BLACK_HOLE);
+
+			java.nio.file.Files.write(file, "[hazards] spacing 5".getBytes());
+			java.nio.file.Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(2000));
+			t.checkExpect(source.reloadIfChanged(), false);
+			t.checkExpect(source.lastError != null, true);
+			t.checkExpect(hazards.generateComponent().kind(), ComponentKind.BLACK_HOLE);
+			java.nio.file.Files.delete(file);
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testDifficultyCurves(Tester t) {
+		DifficultyCurve curve = DifficultyCurve.parse(new String[] { "100=2", "300=6", "400=1" });
+		t.checkInexact(curve.valueAt(0), 2.0, 0.000001);
+		t.checkInexact(curve.valueAt(200), 4.0, 0.000001);
+		t.checkInexact(curve.valueAt(350), 3.5, 0.000001);
+		t.checkInexact(curve.valueAt(5000), 1.0, 0.000001);
+		t.checkExpect(curve.lastScore(), 400);
+
+		// The default curves stop changing at 20000, so 41 bands of 500 cover every score
+		SpawnConfig config = SpawnConfig.DEFAULT;
+		t.checkExpect(config.bands.length, 41);
+		t.checkExpect(config.band(0).platforms.spacingLow, 20);
+		t.checkExpect(config.band(499).platforms.spacingHigh, 80);
+		t.checkExpect(config.band(10000).platforms.spacingHigh, 100);
+		t.checkExpect(config.band(10000).movingPlatformSpeed, 12);
+		t.checkInexact(config.band(10000).platforms.rawWeights[1], 17.5, 0.000001);
+		t.checkExpect(config.band(20000), config.band(Integer.MAX_VALUE));
+		t.checkExpect(config.band(20000).hazards.spacingLow, 300);
+		// Weights that are not curved keep their table value
+		t.checkInexact(config.band(20000).platforms.rawWeights[0], 67.0, 0.000001);
+
+		// Without a [difficulty] section every score shares one band
+		String flat = "[platforms] spacing 10 10\nstandard-platform 1\n[hazards] spacing 5 5\nmonster 1\n"
+				+ "[items] spacing 7 9\nshield 2\n";
+		t.checkExpect(SpawnConfig.parse(flat).bands.length, 1);
+		t.checkExpect(SpawnConfig.parse(flat).band(1000000).monsterSpeed, 10);
+		// A curve that stops changing part way through a band still ends the table at its final value
+		String uneven = flat + "[difficulty] band 500\nmonster-speed 0=10 1250=20\n";
+		t.checkExpect(SpawnConfig.parse(uneven).bands.length, 4);
+		t.checkExpect(SpawnConfig.parse(uneven).band(1000).monsterSpeed, 18);
+		t.checkExpect(SpawnConfig.parse(uneven).band(Integer.MAX_VALUE).monsterSpeed, 20);
+
+		// Generators use the band for the height they have seen gained
+		HazardGenerator hazards = new HazardGenerator(
+				new SpawnConfigSource(java.nio.file.Paths.get("no-such-spawns.cfg"), 10), new java.util.Random(3));
+		hazards.addToHeightSoFar(25000);
+		t.checkExpect(hazards.nextSpacing(), 300);
+		for (int i = 0; i < 50; i += 1) {
+			IGameComponent hazard = hazards.generateComponent();
+			if (hazard.kind() == ComponentKind.MONSTER) {
+				t.checkExpect(Math.abs(((Monster) hazard).xVel()) <= 14, true);
+			}
+		}
+	}
+
+	void testReachability(Tester t) {
+		// Bouncing at -20 rises 19, 18, ... 1, 0 pixels: 190 in all, back to the start after 39 ticks
+		t.checkExpect(ReachabilityIndex.apex(IConstant.STD_BOUNCE_VELOCITY), 190);
+		t.checkExpect(ReachabilityIndex.apex(IConstant.SPRING_VELOCITY), 435);
+		t.checkExpect(ReachabilityIndex.lastTickAbove(IConstant.STD_BOUNCE_VELOCITY, 0), 39);
+		t.checkExpect(ReachabilityIndex.lastTickAbove(IConstant.STD_BOUNCE_VELOCITY, 190), 20);
+		t.checkExpect(ReachabilityIndex.lastTickAbove(IConstant.STD_BOUNCE_VELOCITY, 191), -1);
+		t.checkExpect(ReachabilityIndex.wrappedDistance(10, 390), 20);
+		t.checkExpect(ReachabilityIndex.horizontalReach(0), 20);
+
+		ReachabilityIndex index = new ReachabilityIndex();
+		index.add(new StandardPlatform(new Vector2D(50, 0)), 0);
+		t.checkExpect(index.canReach(new StandardPlatform(new Vector2D(370, 0)), 170), true);
+		t.checkExpect(index.canReach(new StandardPlatform(new Vector2D(50, 0)), 185), false);
+		t.checkExpect(index.ceiling(), 180);
+		// A spawn that leaves the next one out of reach is replaced by a step the player can get to
+		IGameComponent ethereal = new EtherealPlatform(new Vector2D(250, 0));
+		IGameComponent repaired = index.admit(ethereal, 150, 40);
+		t.checkExpect(repaired.kind(), ComponentKind.STANDARD_PLATFORM);
+		t.checkExpect(index.repaired, 1);
+		t.checkExpect(index.size, 2);
+		// ...but not when the climb can go on without it
+		t.checkExpect(index.admit(ethereal, 160, 20), ethereal);
+
+		// Climbing through a mix of almost only ethereal and brittle platforms, every step can be reached
+		// from the one before
+		String unsafe = "[platforms] spacing 20 80\nstandard-platform 5\nethereal-platform 60\nbrittle-platform 35\n"
+				+ "[hazards] spacing 5 5\nmonster 1\n[items] spacing 7 9\nshield 2\n";
+		try {
+			java.nio.file.Path file = java.nio.file.Files.createTempFile("spawns", ".cfg");
+			java.nio.file.Files.write(file, unsafe.getBytes());
+			PlatformGenerator generator = new PlatformGenerator(new SpawnConfigSource(file, 10),
+					new java.util.Random(5));
+			java.nio.file.Files.delete(file);
+			generator.seedReachable(new JumpingGame().gamePieces);
+			int top = generator.reachable.slot(generator.reachable.size - 1);
+			int lastAltitude = generator.reachable.altitudes[top];
+			int lastX = generator.reachable.xs[top];
+			boolean allReachable = true;
+			for (int tick = 0; tick < 5000; tick += 1) {
+				generator.addToHeightSoFar(15);
+				if (generator.hasNextComponent()) {
+					IGameComponent platform = generator.nextComponent();
+					if (ReachabilityIndex.isStep(platform)) {
+						int x = (platform.leftEdge() + platform.rightEdge()) / 2;
+						int ticks = ReachabilityIndex.lastTickAbove(IConstant.STD_BOUNCE_VELOCITY,
+								generator.totalHeight - lastAltitude);
+						allReachable = allReachable && ticks > 0
+								&& ReachabilityIndex.wrappedDistance(x, lastX) <= ReachabilityIndex.horizontalReach(ticks);
+						lastAltitude = generator.totalHeight;
+						lastX = x;
+					}
+				}
+			}
+			t.checkExpect(allReachable, true);
+			t.checkExpect(generator.reachable.repaired > 100, true);
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testLevelFile(Tester t) {
+		try {
+			java.io.File file = java.io.File.createTempFile("test", ".level");
+			java.io.File again = java.io.File.createTempFile("again", ".level");
+			LevelFile.compile(file, 11, 20000, 1000, SpawnConfig.DEFAULT);
+			LevelFile.compile(again, 11, 20000, 1000, SpawnConfig.DEFAULT);
+			// The same seed always bakes the same level
+			t.checkExpect(java.util.Arrays.equals(java.nio.file.Files.readAllBytes(file.toPath()),
+					java.nio.file.Files.readAllBytes(again.toPath())), true);
+			again.delete();
+
+			LevelFile level = new LevelFile(file);
+			t.checkExpect(level.seed, 11L);
+			t.checkExpect(level.chunkCount, 21);
+			java.util.ArrayList<IGameComponent> start = level.initialComponents();
+			t.checkExpect(start.size(), 10);
+			t.checkExpect(start.get(0).topEdge(), 9 * IConstant.WINDOW_HEIGHT / 10 - IConstant.PLATFORM_HEIGHT / 2);
+
+			// Climbing 5000 releases every component up to that altitude, across several chunks, each placed as far
+			// below the top of the screen as its altitude is below the score
+			LevelStream stream = level.stream();
+			stream.addToHeightSoFar(5000);
+			int count = 0;
+			int lastY = Integer.MAX_VALUE;
+			boolean ordered = true;
+			while (stream.hasNextComponent()) {
+				IGameComponent component = stream.nextComponent();
+				int y = (component.topEdge() + component.bottomEdge()) / 2;
+				ordered = ordered && y >= 0 && y <= lastY;
+				lastY = y;
+				count += 1;
+			}
+			t.checkExpect(ordered, true);
+			t.checkExpect(stream.chunk, 5);
+			t.checkExpect(count > 50, true);
+
+			// A game on the level takes every component from the file
+			JumpingGame jg = new JumpingGame(level);
+			jg.player.takeItem(new JetPack());
+			for (int tick = 0; tick < 60; tick += 1) {
+				jg.tick();
+			}
+			t.checkExpect(((LevelStream) jg.platformGen).totalHeight, jg.score);
+			t.checkExpect(jg.score > 500, true);
+			level.close();
+			file.delete();
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testSoakHarness(Tester t) {
+		// A piloted game replays exactly from its seed and the moves it recorded
+		SoakRun piloted = SoakRun.piloted(3, 2000);
+		t.checkExpect(piloted.run(), null);
+		t.checkExpect(piloted.inputs.size() > 5, true);
+		SoakRun replayed = piloted.replay(piloted.inputs);
+		t.checkExpect(replayed.run(), null);
+		t.checkExpect(replayed.ticks, piloted.ticks);
+
+		// A failure that needs only one of the recorded moves shrinks down to that move
+		SoakRun strict = new SoakRun(3, piloted.inputs, 2000) {
+			String violation(JumpingGame game, int previousScore) {
+				return game.player.velocity.x < 0 ? "Moved left." : super.violation(game, previousScore);
+			}
+
+			SoakRun replay(java.util.List<SoakInput> moves) {
+				SoakRun original = this;
+				return new SoakRun(3, moves, 2000) {
+					String violation(JumpingGame game, int previousScore) {
+						return original.violation(game, previousScore);
+					}
+				};
+			}
+		};
+		SoakFailure failure = strict.run();
+		t.checkExpect(failure.message, "Moved left.");
+		SoakRepro repro = strict.shrink(failure);
+		t.checkExpect(repro.inputs.size(), 1);
+		t.checkExpect(repro.inputs.get(0).move, "left");
+		t.checkExpect(repro.failure.message, "Moved left.");
+	}
+
+	void testParallelTickComponents(Tester t) {
+		// Two identical crowds of moving and timed components, one ticked in order and one split across workers
+		JumpingGame serial = new JumpingGame();
+		JumpingGame parallel = new JumpingGame();
+		java.util.Random random = new java.util.Random(5);
+		serial.gamePieces = new java.util.ArrayList<IGameComponent>();
+		parallel.gamePieces = new java.util.ArrayList<IGameComponent>();
+		for (int i = 0; i < 20000; i += 1) {
+			Vector2D position = new Vector2D(random.nextInt(IConstant.WINDOW_WIDTH), random.nextInt(600));
+			int param = random.nextInt(21) - 10;
+			if (i % 3 == 0) {
+				serial.gamePieces.add(new HorizontalMovingPlatform(position, param));
+				parallel.gamePieces.add(new HorizontalMovingPlatform(position, param));
+			} else if (i % 3 == 1) {
+				serial.gamePieces.add(new Monster(position, param));
+				parallel.gamePieces.add(new Monster(position, param));
+			} else {
+				serial.gamePieces.add(new EtherealPlatform(position, param + 10));
+				parallel.gamePieces.add(new EtherealPlatform(position, param + 10));
+			}
+		}
+		serial.parallelThreshold = Integer.MAX_VALUE;
+		parallel.parallelThreshold = 1000;
+		for (int tick = 0; tick < 100; tick += 1) {
+			serial.tickComponents();
+			parallel.tickComponents();
+		}
+
+		boolean same = true;
+		for (int i = 0; i < serial.gamePieces.size(); i += 1) {
+			IGameComponent a = serial.gamePieces.get(i);
+			IGameComponent b = parallel.gamePieces.get(i);
+			same = same && a.leftEdge() == b.leftEdge() && a.topEdge() == b.topEdge();
+		}
+		t.checkExpect(same, true);
+		t.checkExpect(((EtherealPlatform) parallel.gamePieces.get(2)).ticksElapsed,
+				((EtherealPlatform) serial.gamePieces.get(2)).ticksElapsed);
+	}
+
+	void testStressScenarios(Tester t) {
+		String message = null;
+		try {
+			StressScenario.named("nothing");
+		} catch (IllegalArgumentException e) {
+			message = e.getMessage();
+		}
+		t.checkExpect(message, "No stress scenario named nothing.");
+
+		// The populations are on screen from the first tick and kept there as the camera climbs
+		StressScenario ascent = StressScenario.named("jetpack-ascent").scaled(0.1);
+		t.checkExpect(ascent.platforms, 200);
+		t.checkExpect(ascent.hazards, 20);
+		StressRun run = new StressRun(ascent, 7, 100);
+		t.checkExpect(run.game.gamePieces.size() >= 220, true);
+		run.run();
+		t.checkExpect(run.ticks, 100);
+		t.checkExpect(run.game.score > 1000, true);
+		t.checkExpect(run.liveSum / run.ticks >= 220, true);
+		t.checkExpect(run.restarts, 0);
+		t.checkExpect(run.report().split(",").length, StressRun.header().split(",").length);
+		// The game reports every phase of its ticks, so the phase timings account for the whole of every tick
+		t.checkExpect(StressRun.PHASES.length, TickPhase.values().length + 1);
+		long phases = 0;
+		for (long nanos : run.phaseNanos) {
+			phases += nanos;
+		}
+		long ticks = 0;
+		for (long nanos : run.tickNanos) {
+			ticks += nanos;
+		}
+		t.checkExpect(phases, ticks);
+	}
+
+	void testInputQueue(Tester t) {
+		JumpingGame jg = new JumpingGame();
+		InputQueue input = jg.input;
+		t.checkExpect(InputCommand.pressed("up"), null);
+
+		// A tap within one tick moves the player for that tick, and the release stops it on the next
+		input.offer(InputCommand.pressed("left"), 0);
+		input.offer(InputCommand.released("left"), 10);
+		input.drain(jg.player, 1, 1000);
+		t.checkExpect(jg.player.velocity.x, -IConstant.PLAYER_X_SPEED);
+		t.checkExpect(input.heldOver.size(), 1);
+		input.drain(jg.player, 2, 2000);
+		t.checkExpect(jg.player.velocity.x, 0);
+
+		// Releasing one arrow while the other is held keeps moving the held way
+		input.offer(InputCommand.PRESS_RIGHT, 2100);
+		input.offer(InputCommand.PRESS_LEFT, 2200);
+		input.drain(jg.player, 3, 3000);
+		t.checkExpect(jg.player.velocity.x, -IConstant.PLAYER_X_SPEED);
+		input.offer(InputCommand.RELEASE_LEFT, 3100);
+		input.drain(jg.player, 4, 4000);
+		t.checkExpect(jg.player.velocity.x, IConstant.PLAYER_X_SPEED);
+
+		// With nothing waiting, a move made directly on the player stands
+		jg.playerHorizontalMove("reset");
+		input.drain(jg.player, 5, 5000);
+		t.checkExpect(jg.player.velocity.x, 0);
+
+		// Each event is timed to the tick that applied it, and to the frame that first shows that tick
+		t.checkExpect(input.toSimulation.count.get(), 5L);
+		t.checkExpect(input.toSimulation.maxNanos.get(), 1990L);
+		input.framed(3, 6000);
+		t.checkExpect(input.toFrame.count.get(), 4L);
+		t.checkExpect(input.unframed.size(), 1);
+		input.framed(4, 7000);
+		t.checkExpect(input.toFrame.count.get(), 5L);
+		t.checkExpect(input.toFrame.maxNanos.get(), 6000L);
+
+		// A key pressed, released and pressed again within one tick is still held on the next
+		input.offer(InputCommand.PRESS_LEFT, 7100);
+		input.offer(InputCommand.RELEASE_LEFT, 7200);
+		input.offer(InputCommand.PRESS_LEFT, 7300);
+		input.drain(jg.player, 6, 8000);
+		t.checkExpect(jg.player.velocity.x, -IConstant.PLAYER_X_SPEED);
+		t.checkExpect(input.heldOver.size(), 0);
+		input.drain(jg.player, 7, 9000);
+		t.checkExpect(jg.player.velocity.x, -IConstant.PLAYER_X_SPEED);
+		t.checkExpect(input.leftHeld, true);
+		// A release after the second press is still held over, and on the next tick the right arrow (held since
+		// tick 3) takes over
+		input.offer(InputCommand.RELEASE_LEFT, 9100);
+		input.offer(InputCommand.PRESS_LEFT, 9200);
+		input.offer(InputCommand.RELEASE_LEFT, 9300);
+		input.drain(jg.player, 8, 10000);
+		t.checkExpect(jg.player.velocity.x, -IConstant.PLAYER_X_SPEED);
+		input.drain(jg.player, 9, 11000);
+		t.checkExpect(jg.player.velocity.x, IConstant.PLAYER_X_SPEED);
+
+		// Buckets hold durations to within an eighth
+		LatencyHistogram histogram = new LatencyHistogram();
+		t.checkExpect(LatencyHistogram.bucket(15), 15);
+		t.checkExpect(LatencyHistogram.highestIn(LatencyHistogram.bucket(16)), 17L);
+		t.checkExpect(LatencyHistogram.highestIn(LatencyHistogram.bucket(1000000)), 1048575L);
+		for (int i = 1; i <= 100; i += 1) {
+			histogram.record(i * 1000L);
+		}
+		t.checkInexact((double) histogram.percentile(0.5), 50000.0, 0.125);
+		t.checkInexact((double) histogram.percentile(0.99), 99000.0, 0.125);
+		t.checkExpect(histogram.percentile(1.0), 100000L);
+	}
+
+	void testGravityField(Tester t) {
+		GravityField field = new GravityField();
+		BlackHole hole = new BlackHole(new Vector2D(200, 300));
+		field.add(hole, 0);
+
+		// The pull points at the hole and falls off with the square of the distance
+		t.checkInexact(field.pullX(120, 300, 0) / 256.0, GravityField.STRENGTH / (80.0 * 80.0), 0.01);
+		t.checkExpect(field.pullY(120, 300, 0), 0);
+		t.checkExpect(field.pullY(200, 240, 0) > 0, true);
+		t.checkExpect(field.pullX(280, 300, 0), -field.pullX(120, 300, 0));
+		t.checkInexact(field.pullY(200, 260, 0) / 4.0, (double) field.pullY(200, 220, 0), 0.01);
+		// It is never stronger than at the nearest distance, and there is none out of reach
+		t.checkExpect(field.pullY(200, 296, 0) <= (int) Math.round(256 * GravityField.STRENGTH / (30.0 * 30.0)), true);
+		t.checkExpect(field.pullX(30, 300, 0), 0);
+
+		// Holes in the ring wrap sideways as the player does
+		BlackHole edge = new BlackHole(new Vector2D(390, 100));
+		field.add(edge, 0);
+		t.checkExpect(field.pullX(10, 100, 0) < 0, true);
+		t.checkExpect(field.pullX(10, 100, 0), -field.pullX(370, 100, 0));
+
+		// As the camera rises everything keeps its pull, the same as a field built at the new height
+		field.scrollTo(250);
+		BlackHole high = new BlackHole(new Vector2D(100, -10));
+		field.add(high, 250);
+		GravityField fresh = new GravityField();
+		fresh.scrollTo(250);
+		fresh.add(hole, 0);
+		fresh.add(edge, 0);
+		fresh.add(high, 250);
+		boolean same = true;
+		for (int y = -200; y < 800; y += 3) {
+			for (int x = 0; x < IConstant.WINDOW_WIDTH; x += 7) {
+				same = same && field.pullX(x, y + 250, 250) == fresh.pullX(x, y + 250, 250)
+						&& field.pullY(x, y + 250, 250) == fresh.pullY(x, y + 250, 250);
+			}
+		}
+		t.checkExpect(same, true);
+
+		// Removing every hole leaves no pull anywhere
+		field.remove(hole);
+		field.remove(edge);
+		field.remove(high);
+		boolean empty = true;
+		for (int i = 0; i < field.fieldX.length; i += 1) {
+			empty = empty && field.fieldX[i] == 0 && field.fieldY[i] == 0;
+		}
+		t.checkExpect(empty, true);
+
+		// A player hanging beside a hole in a game is drawn toward it
+		JumpingGame jg = new JumpingGame(new java.util.ArrayList<IGameComponent>(), new NoComponents(),
+				new NoComponents(), new NoComponents());
+		BlackHole near = new BlackHole(new Vector2D(jg.player.position.x + 40, jg.player.position.y));
+		jg.addComponent(near);
+		jg.player.takeItem(new Shield());
+		int startX = jg.player.position.x;
+		for (int tick = 0; tick < 10; tick += 1) {
+			jg.tick();
+		}
+		t.checkExpect(jg.player.position.x > startX, true);
+		// The sideways pull drifts the player only while it is in reach, and never becomes part of its velocity
+		t.checkExpect(jg.player.velocity.x, 0);
+		jg.gravity.remove(near);
+		int leftAt = jg.player.position.x;
+		for (int tick = 0; tick < 10; tick += 1) {
+			jg.tick();
+		}
+		t.checkExpect(jg.player.position.x, leftAt);
+
+		// However many holes pull together, the drift is no faster than the arrows move the player
+		GravityField crowd = new GravityField();
+		for (int i = 0; i < 100; i += 1) {
+			crowd.add(new BlackHole(new Vector2D(240, 300)), 0);
+		}
+		Player player = new Player(new Vector2D(210, 300), new Vector2D(0, 0));
+		crowd.pull(player, 0);
+		t.checkExpect(player.position.x, 210 + IConstant.PLAYER_X_SPEED);
+	}
+
+	void testMotionSystem(Tester t) {
+		// A horizontal bounce moves as moving platforms always have, reversing at the edges of the screen
+		HorizontalMovingPlatform hmp = new HorizontalMovingPlatform(new Vector2D(398, 100), 4);
+		MotionSystem motion = new MotionSystem(1);
+		java.util.ArrayList<IGameComponent> pieces = new java.util.ArrayList<IGameComponent>();
+		pieces.add(hmp);
+		// A component keeps its starting motion in its own fields until it joins a motion system
+		t.checkExpect(hmp.motion, null);
+		t.checkExpect(hmp.xVel(), 4);
+		motion.sync(pieces);
+		t.checkExpect(hmp.motion, motion);
+		// Once in one it reads its position from its slot, so moving it makes no new position
+		Vector2D made = hmp.position;
+		motion.advance();
+		t.checkExpect(hmp.position == made, true);
+		t.checkExpect(hmp.position(), new Vector2D(IConstant.WINDOW_WIDTH, 100));
+		t.checkExpect(hmp.xVel(), -4);
+		motion.advance();
+		t.checkExpect(hmp.position(), new Vector2D(396, 100));
+		// Components moving the same way share one path
+		t.checkExpect(MotionPath.horizontal(4) == MotionPath.horizontal(4), true);
+
+		// Waves and circles come back to where they began after one period, and start part way along if asked
+		PathPlatform vertical = new PathPlatform(ComponentKind.VERTICAL_PLATFORM, new Vector2D(100, 200), 0);
+		PathPlatform circling = new PathPlatform(ComponentKind.CIRCLING_PLATFORM, new Vector2D(200, 200), 30);
+		PathPlatform sinking = new PathPlatform(ComponentKind.SINKING_PLATFORM, new Vector2D(300, 200), 0);
+		pieces.add(vertical);
+		pieces.add(circling);
+		pieces.add(sinking);
+		motion.sync(pieces);
+		t.checkExpect(motion.size, 4);
+		// A quarter of the way round a circle starts below its center
+		t.checkExpect(motion.anchorYs[circling.motionSlot], 170);
+		for (int tick = 1; tick <= MotionPath.VERTICAL.period; tick += 1) {
+			motion.advance();
+			if (tick == MotionPath.VERTICAL.period / 4) {
+				t.checkExpect(vertical.position().y, 240);
+			}
+		}
+		t.checkExpect(vertical.position(), new Vector2D(100, 200));
+		for (int tick = MotionPath.VERTICAL.period; tick < MotionPath.CIRCLING.period; tick += 1) {
+			motion.advance();
+		}
+		t.checkExpect(circling.position(), new Vector2D(200, 200));
+		t.checkExpect(circling.phase(), 30);
+		// Sinking platforms stay put until landed on, and move down with the camera
+		t.checkExpect(sinking.position(), new Vector2D(300, 200));
+		sinking.onPlayerCollision(new Player(new Vector2D(300, 190), new Vector2D(0, 5)));
+		motion.advance();
+		t.checkExpect(sinking.position(), new Vector2D(300, 203));
+		sinking.displaceDownwards(10);
+		motion.advance();
+		t.checkExpect(sinking.position(), new Vector2D(300, 216));
+		// Only platforms that rise and fall by themselves are tested for collisions every tick
+		t.checkExpect(vertical.landsOnTopOnly(), false);
+		t.checkExpect(sinking.landsOnTopOnly(), false);
+		t.checkExpect(hmp.landsOnTopOnly(), true);
+
+		// Components no longer in the game leave their slots, the last slot filling the gap, and stay where they were
+		Vector2D last = hmp.position();
+		int lastXVel = hmp.xVel();
+		pieces.remove(hmp);
+		motion.sync(pieces);
+		t.checkExpect(motion.size, 3);
+		t.checkExpect(hmp.motion, null);
+		t.checkExpect(hmp.position, last);
+		t.checkExpect(hmp.xVel(), lastXVel);
+
+		// A platform landed on before it joins a motion system starts sinking once it does
+		PathPlatform early = new PathPlatform(ComponentKind.SINKING_PLATFORM, new Vector2D(50, 100), 0);
+		early.onPlayerCollision(new Player(new Vector2D(50, 90), new Vector2D(0, 5)));
+		MotionSystem other = new MotionSystem(1);
+		java.util.ArrayList<IGameComponent> alone = new java.util.ArrayList<IGameComponent>();
+		alone.add(early);
+		other.sync(alone);
+		other.advance();
+		t.checkExpect(early.position(), new Vector2D(50, 103));
+		for (IGameComponent piece : pieces) {
+			AGameComponent component = (AGameComponent) piece;
+			t.checkExpect(motion.components[component.motionSlot], component);
+		}
+		try {
+			PathPlatform.pathOf(ComponentKind.MONSTER);
+			t.checkExpect(true, false);
+		} catch (IllegalArgumentException e) {
+			t.checkExpect(e.getMessage(), "A MONSTER does not follow a path.");
+		}
+
+		// Level records keep each platform's place along its path
+		java.nio.ByteBuffer records = java.nio.ByteBuffer.allocate(LevelFile.RECORD_BYTES);
+		LevelFile.encode(records, new PathPlatform(ComponentKind.DIAGONAL_PLATFORM, new Vector2D(150, 0), 17), 300);
+		records.flip();
+		PathPlatform decoded = (PathPlatform) LevelFile.decode(records, 0);
+		t.checkExpect(decoded.kind(), ComponentKind.DIAGONAL_PLATFORM);
+		t.checkExpect(decoded.phase(), 17);
+	}
+
+	void testLeaderboard(Tester t) {
+		ScoreIndex index = new ScoreIndex();
+		t.checkInexact(index.percentile(500), 100.0, 0.000001);
+		int[] scores = { 30, 1200, 450, 455, 9000, 0, 80000, 2000000 };
+		for (int score : scores) {
+			index.add(score);
+		}
+		t.checkExpect(index.total, 8L);
+		// 450 and 455 share a bucket, so they tie, and scores past the last bucket count as the last bucket
+		t.checkExpect(index.rank(455), 5L);
+		t.checkExpect(index.rank(450), 5L);
+		t.checkExpect(index.countBelow(450), 2L);
+		t.checkExpect(index.rank(2000000), 1L);
+		t.checkExpect(index.rank(80000), 2L);
+		t.checkExpect(index.rank(1000000), 1L);
+		t.checkInexact(index.percentile(1200), 50.0, 0.000001);
+		t.checkExpect(index.scoreAtRank(1), (ScoreIndex.BUCKETS - 1) * ScoreIndex.BUCKET_WIDTH);
+		t.checkExpect(index.scoreAtRank(3), 9000);
+		t.checkExpect(index.scoreAtRank(5), 450);
+		t.checkExpect(index.scoreAtRank(6), 450);
+		t.checkExpect(index.scoreAtRank(8), 0);
+		try {
+			index.scoreAtRank(9);
+			t.checkExpect(true, false);
+		} catch (IllegalArgumentException e) {
+			t.checkExpect(e.getMessage(), "Rank 9 is not between 1 and 8");
+		}
+
+		// Building from bucket counts gives the same tree as adding the scores one by one
+		long[] counts = new long[ScoreIndex.BUCKETS];
+		for (int score : scores) {
+			counts[ScoreIndex.bucket(score)] += 1;
+		}
+		t.checkExpect(java.util.Arrays.equals(ScoreIndex.of(counts).tree, index.tree), true);
+
+		// Scores are read back from the file, skipping lines that are not scores, and appended as games end
+		try {
+			java.nio.file.Path file = java.nio.file.Files.createTempFile("highscores", "");
+			java.nio.file.Files.write(file, "100\nnot a score\n300\n\n200\n".getBytes());
+			HighScores highScores = new HighScores(file);
+			t.checkExpect(highScores.index.total, 3L);
+			highScores.record(250);
+			t.checkExpect(highScores.standing(250), "Rank 2 of 4, better than 50.0% of games");
+			t.checkExpect(new HighScores(file).index.rank(250), 2L);
+			t.checkExpect(highScores.lastError, null);
+			java.nio.file.Files.delete(file);
+		} catch (java.io.IOException e) {
+			t.checkExpect(e.getMessage(), null);
+		}
+
+		// A world records its game's score once, however often it is asked whether the game has ended
+		HighScores played = new HighScores();
+		JumpingWorld world = new JumpingWorld(false, played, new TelemetryWriter(null));
+		world.jg.player.killPlayer();
+		world.worldEnds();
+		world.worldEnds();
+		t.checkExpect(played.index.total, 1L);
+	}
+
+	void testSimulationFailure(Tester t) {
+		// A simulation step that throws stops the loop and publishes a game over, so the world ends showing the last
+		// frame instead of freezing on it
+		HighScores played = new HighScores();
+		JumpingWorld world = new JumpingWorld(false, played, new TelemetryWriter(null));
+		world.simulation = new SimulationLoop(world.jg, IConstant.TICK_RATE);
+		world.jg.phases = new ITickPhaseListener() {
+			public void ended(TickPhase phase) {
+				throw new IllegalStateException("Broken phase.");
+			}
+		};
+		world.simulation.run();
+		t.checkExpect(world.simulation.running, false);
+		t.checkExpect(world.simulation.failure.getMessage(), "Broken phase.");
+		t.checkExpect(world.gameOver(), true);
+		t.checkExpect(world.score(), 0);
+		world.worldEnds();
+		t.checkExpect(played.index.total, 1L);
+	}
+
+	void testQualityController(Tester t) {
+		// With a 10ms budget, a window whose slowest frames come 13ms apart steps down one level, and only one
+		QualityController controller = new QualityController(10000000);
+		for (int i = 0; i < QualityController.WINDOW - 1; i += 1) {
+			t.checkExpect(controller.record(i % 10 == 0 ? 13000000 : 10000000), RenderQuality.FULL);
+		}
+		t.checkExpect(controller.record(10000000), RenderQuality.NO_BACKGROUND);
+		t.checkExpect(controller.percentile(0.95), 13000000L);
+		t.checkExpect(controller.count, 0);
+		t.checkExpect(controller.record(20000000), RenderQuality.NO_BACKGROUND);
+		// A slow burst lowers the quality a level per window, down to drawing every other frame
+		for (int i = 1; i < 3 * QualityController.WINDOW; i += 1) {
+			controller.record(20000000);
+		}
+		t.checkExpect(controller.quality, RenderQuality.HALF_RATE);
+		t.checkExpect(controller.stepsDown, 3);
+
+		// Frames a tick apart are on time, however little work they took; after two windows on time the level above
+		// is tried again
+		for (int i = 0; i < 2 * QualityController.WINDOW - 1; i += 1) {
+			controller.record(10000000);
+		}
+		t.checkExpect(controller.quality, RenderQuality.HALF_RATE);
+		controller.record(10000000);
+		t.checkExpect(controller.quality, RenderQuality.NO_ITEM_TIMERS);
+		// It proves too slow, so the next try waits twice as long
+		for (int i = 0; i < QualityController.WINDOW; i += 1) {
+			controller.record(14000000);
+		}
+		t.checkExpect(controller.quality, RenderQuality.HALF_RATE);
+		t.checkExpect(controller.probation, 4);
+		for (int i = 0; i < 3 * QualityController.WINDOW; i += 1) {
+			controller.record(10000000);
+		}
+		t.checkExpect(controller.quality, RenderQuality.HALF_RATE);
+		controller.record(10000000);
+		for (int i = 1; i < QualityController.WINDOW; i += 1) {
+			controller.record(10000000);
+		}
+		t.checkExpect(controller.quality, RenderQuality.NO_ITEM_TIMERS);
+		// Frames on time from then on climb back to full quality
+		for (int i = 0; i < 8 * QualityController.WINDOW; i += 1) {
+			controller.record(10000000);
+		}
+		t.checkExpect(controller.quality, RenderQuality.FULL);
+		t.checkExpect(controller.stepsUp, 4);
+		t.checkExpect(RenderQuality.FULL.higher(), RenderQuality.FULL);
+		t.checkExpect(RenderQuality.HALF_RATE.lower(), RenderQuality.HALF_RATE);
+
+		// Each level leaves out what the one above does
+		t.checkExpect(RenderQuality.NO_BACKGROUND.drawsBackground(), false);
+		t.checkExpect(RenderQuality.NO_BACKGROUND.drawsItemTimers(), true);
+		t.checkExpect(RenderQuality.HALF_RATE.drawsItemTimers(), false);
+		t.checkExpect(RenderQuality.NO_ITEM_TIMERS.drawsFrame(1), true);
+		t.checkExpect(RenderQuality.HALF_RATE.drawsFrame(1), false);
+
+		// Without item timers the player's item is still drawn, but at full size rather than shrinking with its time
+		JumpingWorld world = new JumpingWorld(false, new HighScores(), new TelemetryWriter(null));
+		Shield shield = new Shield();
+		shield.ticksSoFar = 150;
+		world.jg.player.takeItem(shield);
+		SpriteList timed = world.jg.snapshot(0).sprites;
+		world.drawScene(RenderQuality.NO_ITEM_TIMERS);
+		SpriteList untimed = world.jg.snapshot(0).sprites;
+		t.checkExpect(untimed.size, timed.size);
+		t.checkExpect(timed.heights[1], IConstant.ITEM_SIZE / 4);
+		t.checkExpect(untimed.heights[1], IConstant.ITEM_SIZE);
+		// At half rate every other frame shows the last one again while the simulation still ticks every time, and
+		// every frame is timed from the one before, since javalib paints even a scene shown again
+		world.quality.quality = RenderQuality.HALF_RATE;
+		javalib.impworld.WorldScene drawn = world.makeScene();
+		t.checkExpect(world.quality.count, 0);
+		world.onTick();
+		t.checkExpect(world.makeScene() == drawn, true);
+		world.onTick();
+		t.checkExpect(world.makeScene() == drawn, false);
+		t.checkExpect(world.quality.count, 2);
+		t.checkExpect(world.quality.window[1] > 0, true);
+	}
+
+	void testTelemetry(Tester t) {
+		// Games are only recorded when asked to
+		JumpingGame jg = new JumpingGame();
+		t.checkExpect(jg.telemetry, null);
+		jg.tick();
+		jg.recordTelemetry();
+		jg.player.takeItem(new JetPack());
+		for (int tick = 0; tick < TelemetryBlock.ROWS + 10; tick += 1) {
+			jg.player.takeItem(new JetPack());
+			jg.tick();
+		}
+		TelemetryRecorder recorder = jg.telemetry;
+		t.checkExpect(recorder.ticks, (long) TelemetryBlock.ROWS + 10);
+		t.checkExpect(recorder.blocks.size(), 2);
+		t.checkExpect(recorder.current.firstTick, (long) TelemetryBlock.ROWS);
+		t.checkExpect(recorder.current.rows, 10);
+		// The latest row is the game as it stands
+		int[][] columns = recorder.current.columns;
+		t.checkExpect(columns[TelemetryRecorder.SCORE][9], jg.score);
+		t.checkExpect(columns[TelemetryRecorder.Y_VELOCITY][9], jg.player.velocity.y);
+		t.checkExpect(columns[TelemetryRecorder.ITEM][9], ItemKind.JET_PACK.ordinal());
+		t.checkExpect(columns[TelemetryRecorder.PLATFORM_HEIGHT][9], jg.platformGen.heightSoFar());
+		int counted = 0;
+		for (int kind = 0; kind < ComponentKind.values().length; kind += 1) {
+			counted += columns[TelemetryRecorder.FIRST_COUNT + kind][9];
+		}
+		t.checkExpect(counted, jg.gamePieces.size());
+		// The game keeps its counts as components come and go, matching a count of every component
+		int[] kinds = new int[ComponentKind.values().length];
+		for (IGameComponent component : jg.gamePieces) {
+			kinds[component.kind().ordinal()] += 1;
+		}
+		t.checkExpect(java.util.Arrays.equals(kinds, jg.kindCounts), true);
+		t.checkExpect(TelemetryRecorder.COLUMNS[TelemetryRecorder.column("count-black-hole")], "count-black-hole");
+		try {
+			TelemetryRecorder.column("speed");
+			t.checkExpect(true, false);
+		} catch (IllegalArgumentException e) {
+			t.checkExpect(e.getMessage(), "No telemetry column named speed");
+		}
+
+		// Each column of each run comes back from the file as it was sampled, read without the other columns
+		ColumnCodec codec = new ColumnCodec();
+		int[] wave = { 5, -3, 1000000, Integer.MIN_VALUE, Integer.MAX_VALUE, 0 };
+		int[] decoded = new int[8];
+		try {
+			int length = codec.encode(wave, wave.length);
+			codec.decode(codec.compressed, length, wave.length, decoded, 2);
+			java.io.File file = java.io.File.createTempFile("telemetry", ".djt");
+			TelemetryWriter writer = new TelemetryWriter(file);
+			writer.submit(recorder);
+			writer.submit(new TelemetryRecorder());
+			writer.awaitWritten();
+			t.checkExpect(writer.runsWritten, 2L);
+			java.util.ArrayList<int[]> scores = TelemetryReader.column(file, "score");
+			t.checkExpect(scores.size(), 2);
+			t.checkExpect(scores.get(0).length, TelemetryBlock.ROWS + 10);
+			t.checkExpect(scores.get(0)[TelemetryBlock.ROWS + 9], jg.score);
+			t.checkExpect(scores.get(0)[TelemetryBlock.ROWS - 1],
+					recorder.blocks.get(0).columns[TelemetryRecorder.SCORE][TelemetryBlock.ROWS - 1]);
+			t.checkExpect(scores.get(1).length, 0);
+			t.checkExpect(TelemetryReader.column(file, "item").get(0)[5], ItemKind.JET_PACK.ordinal());
+			// The file is much smaller than the raw columns
+			t.checkExpect(file.length() < 4L * TelemetryRecorder.COLUMNS.length * recorder.ticks / 10, true);
+			file.delete();
+		} catch (java.io.IOException e) {
+			t.checkExpect(e.getMessage(), null);
+		} catch (InterruptedException e) {
+			t.checkExpect(e.getMessage(), null);
+		}
+		t.checkExpect(java.util.Arrays.copyOfRange(decoded, 2, 8), wave);
+	}
+
+	void testSubPixelSteps(Tester t) {
+		// The steps of a tick add up to exactly one tick's velocity, whatever the rounding of each
+		int sum = 0;
+		for (int step = 0; step < 3; step += 1) {
+			sum += Player.stepDistance(-7, step, 3);
+		}
+		t.checkExpect(sum, -7 * IConstant.SUBPIXEL_ONE);
+
+		// A player stepping four times a tick passes through fractions of a pixel and ends each tick where a player
+		// moving once a tick does
+		Player once = new Player(new Vector2D(100, 500), new Vector2D(6, -20));
+		Player split = new Player(new Vector2D(100, 500), new Vector2D(6, -20));
+		split.steps = 4;
+		split.moveStep();
+		t.checkExpect(split.position, new Vector2D(101, 495));
+		t.checkExpect(split.subX, IConstant.SUBPIXEL_ONE / 2);
+		t.checkExpect(split.tickEndPosition(), new Vector2D(106, 480));
+		split.moveStep();
+		split.moveStep();
+		t.checkExpect(split.velocity.y, -20);
+		split.moveStep();
+		once.move();
+		t.checkExpect(split.position, once.position);
+		t.checkExpect(split.velocity, once.velocity);
+		boolean same = true;
+		for (int tick = 0; tick < 80; tick += 1) {
+			once.move();
+			split.move();
+			same = same && once.position.equals(split.position) && once.velocity.equals(split.velocity);
+		}
+		t.checkExpect(same, true);
+		t.checkExpect(split.subX, 0);
+		t.checkExpect(split.subY, 0);
+
+		// In a game, the tick is finished (and the components moved and sampled) only by its last step
+		java.util.ArrayList<IGameComponent> pieces = new java.util.ArrayList<IGameComponent>();
+		pieces.add(new StandardPlatform(new Vector2D(200, 480)));
+		JumpingGame coarse = new JumpingGame(pieces, new NoComponents(), new NoComponents(), new NoComponents());
+		java.util.ArrayList<IGameComponent> samePieces = new java.util.ArrayList<IGameComponent>();
+		samePieces.add(new StandardPlatform(new Vector2D(200, 480)));
+		JumpingGame fine = new JumpingGame(samePieces, new NoComponents(), new NoComponents(), new NoComponents());
+		fine.recordTelemetry();
+		fine.simulateAt(4);
+		fine.step();
+		t.checkExpect(fine.player.step, 1);
+		t.checkExpect(fine.telemetry.ticks, 0L);
+		try {
+			fine.simulateAt(2);
+			t.checkExpect(true, false);
+		} catch (RuntimeException e) {
+			t.checkExpect(e.getMessage(), "Cannot change the simulation rate part way through a tick.");
+		}
+		// A key pressed part way through a tick moves the player on the next step
+		fine.input.offer(InputCommand.PRESS_RIGHT, System.nanoTime());
+		fine.step();
+		t.checkExpect(fine.player.velocity.x, IConstant.PLAYER_X_SPEED);
+		fine.input.offer(InputCommand.RELEASE_RIGHT, System.nanoTime());
+		fine.step();
+		fine.step();
+		t.checkExpect(fine.player.step, 0);
+		t.checkExpect(fine.telemetry.ticks, 1L);
+		t.checkExpect(fine.player.velocity.x, 0);
+		try {
+			fine.simulateAt(0);
+			t.checkExpect(true, false);
+		} catch (IllegalArgumentException e) {
+			t.checkExpect(e.getMessage(), "Must take at least one step per tick.");
+		}
+
+		// Collisions are tested on a tick's first step against the whole tick's move, so falling onto a platform
+		// bounces on the same tick at either rate and the arcs stay at the same height (the fine player is a pixel to
+		// the side, from the key it had applied sooner)
+		coarse.tick();
+		boolean together = true;
+		for (int tick = 1; tick < 20; tick += 1) {
+			coarse.tick();
+			fine.tick();
+			together = together && coarse.player.velocity.equals(fine.player.velocity)
+					&& coarse.player.position.y == fine.player.position.y;
+		}
+		t.checkExpect(together, true);
+		t.checkExpect(coarse.player.velocity.y < 0, true);
+	}
+
+	void testSteppedGamesMatch(Tester t) {
+		// Seeded games played with the same moves at one and at four steps per tick are in the same place, moving the
+		// same way, at the end of every tick, whatever they land on, take or are killed by
+		long[] seeds = { 39, 595, 718, 1137, 1282 };
+		boolean same = true;
+		int ticks = 0;
+		for (long seed : seeds) {
+			JumpingGame coarse = SoakRun.seededGame(seed);
+			JumpingGame fine = SoakRun.seededGame(seed);
+			fine.simulateAt(4);
+			SoakRun pilot = SoakRun.piloted(seed, 2000);
+			for (int tick = 0; tick < 2000 && same && !coarse.gameOver(); tick += 1) {
+				String move = pilot.pilotMove(coarse);
+				coarse.playerHorizontalMove(move);
+				fine.playerHorizontalMove(move);
+				coarse.tick();
+				fine.tick();
+				same = coarse.player.position.equals(fine.player.position)
+						&& coarse.player.velocity.equals(fine.player.velocity) && coarse.score == fine.score
+						&& coarse.gameOver() == fine.gameOver();
+				ticks += 1;
+			}
+		}
+		t.checkExpect(same, true);
+		t.checkExpect(ticks > 1000, true);
+	}
+
+	void testBackgroundCache(Tester t) {
+		try {
+			java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("background");
+			java.io.File source = directory.resolve("stripes.png").toFile();
+			java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(40, 60,
+					java.awt.image.BufferedImage.TYPE_INT_RGB);
+			for (int y = 0; y < 60; y += 1) {
+				for (int x = 0; x < 40; x += 1) {
+					image.setRGB(x, y, y < 30 ? 0x336699 : 0xFFCC00);
+				}
+			}
+			javax.imageio.ImageIO.write(image, "png", source);
+
+			// The first use decodes the image and writes the cache beside it, and later ones map the same pixels
+			BackgroundCache cache = new BackgroundCache(source.getPath(), true);
+			t.checkExpect(cache.cacheFile, new java.io.File(source.getPath() + ".scaled.bgcache"));
+			t.checkExpect(cache.isFresh(), false);
+			int[] built = cache.pixels();
+			t.checkExpect(java.util.Arrays.equals(built, BackgroundCache.scale(image)), true);
+			BackgroundCache warm = new BackgroundCache(source.getPath(), true);
+			t.checkExpect(warm.isFresh(), true);
+			t.checkExpect(java.util.Arrays.equals(warm.pixels(), built), true);
+			t.checkExpect(built[0] & 0xFFFFFF, 0x336699);
+			t.checkExpect(built[built.length - 1] & 0xFFFFFF, 0xFFCC00);
+
+			// A changed source makes the cache stale, and it is rebuilt from the new image
+			for (int x = 0; x < 40; x += 1) {
+				image.setRGB(x, 0, 0xFF0000);
+			}
+			javax.imageio.ImageIO.write(image, "png", source);
+			t.checkExpect(source.setLastModified(source.lastModified() + 2000), true);
+			t.checkExpect(warm.isFresh(), false);
+			BackgroundCache rebuilt = new BackgroundCache(source.getPath(), true);
+			t.checkExpect(rebuilt.pixels()[0] & 0xFFFFFF, 0xFF0000);
+			t.checkExpect(rebuilt.isFresh(), true);
+
+			// The javalib image is drawn from the same pixels
+			java.awt.image.BufferedImage drawn = new java.awt.image.BufferedImage(IConstant.WINDOW_WIDTH,
+					IConstant.WINDOW_HEIGHT, java.awt.image.BufferedImage.TYPE_INT_RGB);
+			java.awt.Graphics2D g = drawn.createGraphics();
+			g.translate(IConstant.WINDOW_WIDTH / 2, IConstant.WINDOW_HEIGHT / 2);
+			rebuilt.image().draw(g);
+			int[] drawnPixels = drawn.getRGB(0, 0, IConstant.WINDOW_WIDTH, IConstant.WINDOW_HEIGHT, null, 0,
+					IConstant.WINDOW_WIDTH);
+			int[] expected = rebuilt.pixels();
+			boolean same = true;
+			for (int i = 0; i < expected.length; i += 1) {
+				same = same && (drawnPixels[i] & 0xFFFFFF) == (expected[i] & 0xFFFFFF);
+			}
+			t.checkExpect(same, true);
+
+			// A source in a directory that cannot be written is cached in the temporary directory
+			java.io.File unwritable = new java.io.File(directory.toFile(), "missing/stripes.png");
+			java.io.File elsewhere = BackgroundCache.cacheFileFor(unwritable, ".bgcache");
+			t.checkExpect(elsewhere.getParentFile(), new java.io.File(System.getProperty("java.io.tmpdir")));
+			t.checkExpect(elsewhere.getName().endsWith("-stripes.png.bgcache"), true);
+
+			java.nio.file.Files.delete(source.toPath());
+			java.nio.file.Files.delete(cache.cacheFile.toPath());
+			java.nio.file.Files.delete(directory);
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testParallaxBackground(Tester t) {
+		try {
+			java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("parallax");
+			// A far layer of two colors, and a near layer that is black but for a white stripe across its second sixth
+			java.awt.image.BufferedImage farImage = new java.awt.image.BufferedImage(40, 60,
+					java.awt.image.BufferedImage.TYPE_INT_RGB);
+			java.awt.image.BufferedImage nearImage = new java.awt.image.BufferedImage(40, 60,
+					java.awt.image.BufferedImage.TYPE_INT_RGB);
+			for (int y = 0; y < 60; y += 1) {
+				for (int x = 0; x < 40; x += 1) {
+					farImage.setRGB(x, y, y < 30 ? 0x203040 : 0x405060);
+					nearImage.setRGB(x, y, y >= 10 && y < 20 ? 0xFFFFFF : 0);
+				}
+			}
+			java.io.File farFile = directory.resolve("far.png").toFile();
+			java.io.File nearFile = directory.resolve("near.png").toFile();
+			javax.imageio.ImageIO.write(farImage, "png", farFile);
+			javax.imageio.ImageIO.write(nearImage, "png", nearFile);
+			ParallaxLayer far = new ParallaxLayer(farFile.getPath(), 0.125, false);
+			ParallaxLayer near = new ParallaxLayer(nearFile.getPath(), 0.25, true);
+			ParallaxBackground background = new ParallaxBackground(far, near);
+
+			// The near layer's dark pixels are see-through, and every other pixel is opaque
+			t.checkExpect(near.pixels()[0], 0);
+			t.checkExpect(near.pixels()[150 * IConstant.WINDOW_WIDTH], 0xFFFFFFFF);
+			t.checkExpect(far.pixels()[0], 0xFF203040);
+
+			int w = IConstant.WINDOW_WIDTH;
+			int[] composed = new int[w * IConstant.WINDOW_HEIGHT];
+			background.compose(composed, 0);
+			t.checkExpect(composed[0], 0xFF203040);
+			t.checkExpect(composed[150 * w], 0xFFFFFFFF);
+			t.checkExpect(composed[599 * w], 0xFF405060);
+			// After a climb of 400 the far layer has scrolled down 50 rows and the near layer 100, wrapping around
+			background.compose(composed, 400);
+			t.checkExpect(composed[0], far.pixels()[550 * w]);
+			t.checkExpect(composed[49 * w], far.pixels()[599 * w]);
+			t.checkExpect(composed[50 * w], far.pixels()[0]);
+			t.checkExpect(composed[150 * w], 0xFF203040);
+			t.checkExpect(composed[250 * w], 0xFFFFFFFF);
+
+			// The background only changes once the camera has risen a whole pixel of some layer
+			t.checkExpect(background.scrollsBetween(400, 403), false);
+			t.checkExpect(background.scrollsBetween(400, 404), true);
+
+			// javalib draws the same pixels from the same layers
+			javalib.impworld.WorldScene scene = new javalib.impworld.WorldScene(w, IConstant.WINDOW_HEIGHT);
+			background.drawOntoScene(scene, 400);
+			java.awt.image.BufferedImage drawn = new java.awt.image.BufferedImage(w, IConstant.WINDOW_HEIGHT,
+					java.awt.image.BufferedImage.TYPE_INT_RGB);
+			java.awt.Graphics2D g = drawn.createGraphics();
+			scene.draw(g);
+			int[] drawnPixels = drawn.getRGB(0, 0, w, IConstant.WINDOW_HEIGHT, null, 0, w);
+			t.checkExpect(java.util.Arrays.equals(drawnPixels, composed), true);
+
+			// Frames redrawn over a background that did not scroll, and over one that did, match full redraws
+			JumpingGame jg = new JumpingGame();
+			SpriteList sprites = jg.snapshot(0).sprites;
+			Java2DRenderer renderer = new Java2DRenderer(background);
+			renderer.render(sprites, 400);
+			for (int height = 401; height <= 404; height += 1) {
+				int[] kept = renderer.render(sprites, height).getRGB(0, 0, w, IConstant.WINDOW_HEIGHT, null, 0, w);
+				int[] full = new Java2DRenderer(background).render(sprites, height).getRGB(0, 0, w,
+						IConstant.WINDOW_HEIGHT, null, 0, w);
+				t.checkExpect(java.util.Arrays.equals(kept, full), true);
+			}
+
+			for (java.io.File file : directory.toFile().listFiles()) {
+				java.nio.file.Files.delete(file.toPath());
+			}
+			java.nio.file.Files.delete(directory);
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testFrameExport(Tester t) {
+		// Moves are read back as soak repros print them
+		java.util.ArrayList<SoakInput> recorded = SoakInput.parseList("[0:right, 5:reset]");
+		t.checkExpect(recorded.toString(), "[0:right, 5:reset]");
+		t.checkExpect(SoakInput.parseList("2:left\n9:right").size(), 2);
+		String message = null;
+		try {
+			SoakInput.parseList("3:jump");
+		} catch (IllegalArgumentException e) {
+			message = e.getMessage();
+		}
+		t.checkExpect(message, "Not a recorded move: 3:jump");
+
+		try {
+			java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("export");
+			// A recorded run replays its moves on the seeded game: right for five ticks, then still
+			HeadlessExport export = new HeadlessExport(SoakRun.seededGame(3), recorded);
+			FrameExporter png = new FrameExporter(directory.toFile(), FrameFormat.PNG, 8);
+			t.checkExpect(png.encoder.isDaemon(), true);
+			export.run(8, png);
+			png.close();
+			t.checkExpect(png.framesWritten + png.framesDropped, 8);
+			t.checkExpect(export.game.player.position.x, IConstant.WINDOW_WIDTH / 2 + 5 * IConstant.PLAYER_X_SPEED);
+			String[] names = directory.toFile().list();
+			java.util.Arrays.sort(names);
+			t.checkExpect(names.length, png.framesWritten);
+			t.checkExpect(names[0], "frame-000000.png");
+			java.awt.image.BufferedImage first = javax.imageio.ImageIO.read(directory.resolve(names[0]).toFile());
+			t.checkExpect(first.getWidth(), IConstant.WINDOW_WIDTH);
+			t.checkExpect(first.getHeight(), IConstant.WINDOW_HEIGHT);
+
+			// Raw frames are packed one after another, three bytes a pixel
+			FrameExporter raw = new FrameExporter(directory.toFile(), FrameFormat.RAW_RGB, 8);
+			new HeadlessExport(new JumpingGame(), 7).run(5, raw);
+			raw.close();
+			t.checkExpect(raw.framesWritten + raw.framesDropped, 5);
+			t.checkExpect(directory.resolve("frames.rgb").toFile().length(),
+					3L * IConstant.WINDOW_WIDTH * IConstant.WINDOW_HEIGHT * raw.framesWritten);
+
+			for (java.io.File file : directory.toFile().listFiles()) {
+				java.nio.file.Files.delete(file.toPath());
+			}
+			java.nio.file.Files.delete(directory);
+		} catch (java.io.IOException | InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testGameServer(Tester t) {
+		try {
+			// A session that reaches the histogram's last bucket stays there rather than running off its end
+			SessionStats stats = new SessionStats();
+			stats.recordLag(Long.MAX_VALUE);
+			t.checkExpect(stats.lagHistogram[SessionStats.LAG_BUCKETS - 1], 1L);
+
+			java.io.File telemetryFile = java.io.File.createTempFile("server", ".djt");
+			TelemetryWriter telemetry = new TelemetryWriter(telemetryFile);
+			GameServer server = new GameServer(0, 0, 1, telemetry);
+			Thread thread = new Thread(server, "server");
+			thread.start();
+			java.nio.channels.SocketChannel client = java.nio.channels.SocketChannel
+					.open(new java.net.InetSocketAddress("localhost", server.port()));
+			java.io.BufferedReader lines = new java.io.BufferedReader(
+					new java.io.InputStreamReader(client.socket().getInputStream(), "US-ASCII"));
+
+			// A player is told which session is theirs, for spectators to ask for
+			t.checkExpect(lines.readLine(), "SESSION 0");
+
+			// Every line is a whole state, and moving right carries the player across the screen
+			client.write(java.nio.ByteBuffer.wrap("right\n".getBytes("US-ASCII")));
+			String[] state = lines.readLine().split(" ");
+			int states = 1;
+			while (Integer.parseInt(state[2]) < IConstant.WINDOW_WIDTH / 2 + 3 * IConstant.PLAYER_X_SPEED
+					&& states < 300) {
+				state = lines.readLine().split(" ");
+				states += 1;
+			}
+			t.checkExpect(state.length, 6);
+			t.checkExpect(state[0], "STATE");
+			t.checkExpect(state[5], "false");
+			t.checkExpect(states < 300, true);
+			// The worker publishes its sessions after it has sent to each of them
+			for (int wait = 0; wait < 200 && server.scheduler.sessions().isEmpty(); wait += 1) {
+				Thread.sleep(10);
+			}
+			t.checkExpect(server.scheduler.sessions().size(), 1);
+
+			// A spectator that names the session gets a frame every tick, each against the last one it was sent
+			java.nio.channels.SocketChannel watcher = java.nio.channels.SocketChannel
+					.open(new java.net.InetSocketAddress("localhost", server.spectatorPort()));
+			watcher.write(java.nio.ByteBuffer.wrap("0\n".getBytes("US-ASCII")));
+			java.io.DataInputStream frames = new java.io.DataInputStream(watcher.socket().getInputStream());
+			SpectatorView view = new SpectatorView();
+			for (int frame = 0; frame < 5; frame += 1) {
+				byte[] length = new byte[10];
+				int at = 0;
+				length[at] = frames.readByte();
+				while ((length[at] & 0x80) != 0) {
+					at += 1;
+					length[at] = frames.readByte();
+				}
+				byte[] bytes = new byte[(int) VarInts.getUnsigned(java.nio.ByteBuffer.wrap(length))];
+				frames.readFully(bytes);
+				view.apply(java.nio.ByteBuffer.wrap(bytes));
+			}
+			t.checkExpect(view.tick > Long.parseLong(state[1]), true);
+			t.checkExpect(view.components.isEmpty(), false);
+
+			// A client that leaves finishes its session, which lets go of the channel and of its spectators
+			GameSession session = server.scheduler.sessions().get(0);
+			client.close();
+			for (int wait = 0; wait < 200 && !server.scheduler.sessions().isEmpty(); wait += 1) {
+				Thread.sleep(10);
+			}
+			t.checkExpect(server.scheduler.sessions().isEmpty(), true);
+			t.checkExpect(session.output.closed, true);
+			t.checkExpect(session.output.channel.isOpen(), false);
+			// The finished game's telemetry is written, a row for every tick it was played
+			telemetry.awaitWritten();
+			t.checkExpect(telemetry.runsWritten, 1L);
+			t.checkExpect(TelemetryReader.column(telemetryFile, "score").get(0).length, (int) session.ticks);
+			java.nio.file.Files.delete(telemetryFile.toPath());
+			int unread = 0;
+			while (frames.read() >= 0 && unread < 1 << 20) {
+				unread += 1;
+			}
+			t.checkExpect(frames.read(), -1);
+			watcher.close();
+
+			// Closing the server while its thread waits in select has the thread close everything and finish
+			server.close();
+			thread.join(2000);
+			t.checkExpect(thread.isAlive(), false);
+			t.checkExpect(server.listener.isOpen(), false);
+			t.checkExpect(server.spectatorListener.isOpen(), false);
+			t.checkExpect(server.selector.isOpen(), false);
+		} catch (java.io.IOException | InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void testDroppedSession(Tester t) {
+		// A session whose tick fails is dropped with its failure recorded, and the sessions beside it keep running
+		SessionScheduler scheduler = new SessionScheduler(1, IConstant.TICK_RATE);
+		GameSession broken = new GameSession(0, null, System.nanoTime());
+		GameSession healthy = new GameSession(1, null, System.nanoTime());
+		broken.moves.add("sideways");
+		scheduler.add(broken);
+		scheduler.add(healthy);
+		scheduler.start();
+		try {
+			for (int wait = 0; wait < 200 && (scheduler.dropped.isEmpty() || healthy.ticks < 5); wait += 1) {
+				Thread.sleep(10);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		scheduler.stop();
+		t.checkExpect(scheduler.dropped.peek() == broken, true);
+		t.checkExpect(broken.failure instanceof IllegalArgumentException, true);
+		t.checkExpect(broken.failure.getMessage(), "Invalid move type.");
+		t.checkExpect(broken.closed, true);
+		t.checkExpect(healthy.failure == null, true);
+		t.checkExpect(healthy.ticks >= 5, true);
+	}
 }